@@ -0,0 +1,103 @@
+package hello.aop.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 컴파일할 때 AOP 애노테이션이 붙은 클래스를 미리 적어두는 애노테이션 프로세서
+ *
+ * 자동 프록시 생성기는 빈이 만들어질 때마다 모든 메서드를 리플렉션으로 훑어서
+ * @annotation(...), @within(...), @target(...) 포인트컷을 검사한다.
+ * 애노테이션이 붙은 클래스는 컴파일 시점에 이미 정해져 있으므로 목록을 만들어 두고 (META-INF/aop-annotation.index)
+ * 목록에 없는 빈은 검사 자체를 건너뛴다. (hello.aop.advisor.AnnotationIndex)
+ *
+ * 파일 형식, 한 줄에 하나
+ * annotation 색인한 애노테이션
+ * class 클래스 바이너리 이름 붙어있는 애노테이션...
+ * */
+public class AnnotationIndexProcessor extends AbstractProcessor {
+
+    static final String INDEX_LOCATION = "META-INF/aop-annotation.index";
+
+    static final List<String> ANNOTATIONS = Arrays.asList(
+            "hello.aop.exam.annotation.Trace",
+            "hello.aop.exam.annotation.Retry",
+            "hello.aop.member.annotation.MethodAop",
+            "hello.aop.member.annotation.ClassAop");
+
+    //클래스 이름 -> 클래스나 메서드에 붙은 애노테이션, 라운드가 여러 번이어도 모아서 마지막에 한 번 쓴다
+    private final Map<String, Set<String>> index = new TreeMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new LinkedHashSet<>(ANNOTATIONS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement type = typeOf(element);
+                if (type != null) {
+                    String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+                    index.computeIfAbsent(className, key -> new TreeSet<>()).add(annotationName);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            write();
+        }
+
+        //다른 프로세서(lombok)도 같은 애노테이션을 볼 수 있게
+        return false;
+    }
+
+    //메서드에 붙었으면 메서드를 선언한 클래스
+    private TypeElement typeOf(Element element) {
+        Element current = element;
+        while (current != null && !(current instanceof TypeElement)) {
+            current = current.getEnclosingElement();
+        }
+        return (TypeElement) current;
+    }
+
+    private void write() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String annotation : ANNOTATIONS) {
+                    writer.write("annotation " + annotation + "\n");
+                }
+                for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+                    writer.write("class " + entry.getKey() + " " + String.join(" ", entry.getValue()) + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "애노테이션 색인 생성 실패: " + e);
+        }
+    }
+}
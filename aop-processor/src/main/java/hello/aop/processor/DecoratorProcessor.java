@@ -0,0 +1,418 @@
+package hello.aop.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * @Trace, @Retry 메서드를 감싸는 데코레이터 하위 클래스를 만드는 애노테이션 프로세서
+ *
+ * 프록시는 호출마다 리플렉션으로 어드바이스 체인을 타고 JoinPoint 를 만든다.
+ * 데코레이터는 ExamRepository -> ExamRepository_Decorator 처럼 메서드를 오버라이딩해서
+ * 로그, 재시도를 평범한 코드로 적고 super 를 호출하므로 JIT 가 그대로 인라인 할 수 있다.
+ *
+ * 생성한 클래스는 META-INF/aop-decorators.index 에 적어두고
+ * aop.decorator.enabled=true 일 때 원래 빈 대신 등록한다. (hello.aop.exam.decorator.DecoratorRegistrar)
+ *
+ * 생성자는 원래 클래스에 선언된 생성자를 애노테이션까지 그대로 따라 만든다. 없는 생성자를 짐작해서 만들지 않는다.
+ * lombok 이 만든 생성자는 lombok 이 먼저 실행되어야 보인다. (build.gradle 의 annotationProcessor 선언 순서)
+ * lombok 생성자 애노테이션이 있는데 컴파일러가 넣은 기본 생성자만 보이면 순서가 바뀐 것이므로
+ * 컴파일되지 않는 코드를 만들지 않고 에러로 멈춘다. 부를 수 있는 생성자가 없을 때도 에러
+ *
+ * 테스트 안의 중첩 클래스처럼 데코레이터를 만들 수 없는 클래스, 메서드는 조용히 건너뛴다.
+ * 왜 빠졌는지 보려면 -Aaop.decorator.debug=true (compileJava.options.compilerArgs)
+ * */
+public class DecoratorProcessor extends AbstractProcessor {
+
+    static final String INDEX_LOCATION = "META-INF/aop-decorators.index";
+    static final String SUFFIX = "_Decorator";
+
+    private static final String TRACE = "hello.aop.exam.annotation.Trace";
+    private static final String RETRY = "hello.aop.exam.annotation.Retry";
+    private static final String SUPPORT = "hello.aop.exam.decorator.DecoratorSupport";
+    private static final String DEADLINE = "hello.aop.exam.deadline.DeadlineContext";
+    private static final String ATTEMPT_EVENT = "hello.aop.jfr.RetryAttemptEvent";
+    private static final String POLICY = "hello.aop.exam.retry.RetryPolicy";
+    private static final String DEBUG_OPTION = "aop.decorator.debug";
+
+    //생성자를 만드는 lombok 애노테이션, @NoArgsConstructor 는 기본 생성자와 같으므로 빼고
+    private static final Set<String> LOMBOK_CONSTRUCTORS = Set.of("lombok.RequiredArgsConstructor",
+            "lombok.AllArgsConstructor", "lombok.Data", "lombok.Value");
+
+    //원래 클래스 -> 데코레이터, 라운드가 여러 번이어도 모아서 마지막에 한 번 쓴다
+    private final Map<String, String> generated = new TreeMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new LinkedHashSet<>(List.of(TRACE, RETRY));
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(DEBUG_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD && element.getEnclosingElement() instanceof TypeElement) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+
+        for (TypeElement type : types) {
+            if (canDecorate(type)) {
+                generate(type);
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private boolean canDecorate(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS || modifiers.contains(Modifier.FINAL)
+                || modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.ABSTRACT)
+                || type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            note(type, "데코레이터를 만들 수 없는 클래스");
+            return false;
+        }
+        List<ExecutableElement> constructors = constructors(type);
+        if (constructors.isEmpty()) {
+            error(type, "데코레이터가 호출할 수 있는 생성자가 없음, private 이 아닌 생성자를 선언해야 한다");
+            return false;
+        }
+        if (lombokConstructorMissing(type, constructors)) {
+            error(type, "lombok 이 만들 생성자가 아직 없음, build.gradle 에서 annotationProcessor 'org.projectlombok:lombok' 을"
+                    + " aop-processor 보다 먼저 선언해야 한다");
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = type.getSimpleName() + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (annotation(method, TRACE) == null && annotation(method, RETRY) == null) {
+                continue;
+            }
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                    || modifiers.contains(Modifier.FINAL)) {
+                note(method, "오버라이딩 할 수 없어서 데코레이터에서 제외");
+                continue;
+            }
+            methods.add(method);
+        }
+        if (methods.isEmpty()) {
+            return;
+        }
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                out.println("/** " + type.getSimpleName() + " 의 @Trace, @Retry 데코레이터, DecoratorProcessor 가 생성 */");
+                out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+                out.println("public class " + simpleName + " extends " + type.getQualifiedName() + " {");
+                out.println();
+                for (int i = 0; i < methods.size(); i++) {
+                    out.println("    private static final String SIGNATURE_" + i + " = \"" + signature(type, methods.get(i)) + "\";");
+                }
+                //@Retry 의 include, exclude, retryOnResult 는 RetryAspect 와 같은 판단표로
+                for (int i = 0; i < methods.size(); i++) {
+                    if (annotation(methods.get(i), RETRY) != null) {
+                        out.println("    private static final " + POLICY + " POLICY_" + i + " = " + POLICY + ".forMethod("
+                                + type.getQualifiedName() + ".class, \"" + methods.get(i).getSimpleName() + "\""
+                                + parameterClasses(methods.get(i)) + ");");
+                    }
+                }
+                out.println();
+                out.println("    private " + SUPPORT + " decoratorSupport;");
+                out.println();
+                for (ExecutableElement constructor : constructors(type)) {
+                    writeConstructor(out, simpleName, constructor);
+                }
+                out.println("    @org.springframework.beans.factory.annotation.Autowired");
+                out.println("    public void setDecoratorSupport(" + SUPPORT + " decoratorSupport) {");
+                out.println("        this.decoratorSupport = decoratorSupport;");
+                out.println("    }");
+                for (int i = 0; i < methods.size(); i++) {
+                    out.println();
+                    writeMethod(out, methods.get(i), "SIGNATURE_" + i, "POLICY_" + i);
+                }
+                out.println("}");
+            }
+            generated.put(processingEnv.getElementUtils().getBinaryName(type).toString(), qualifiedName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "데코레이터 생성 실패: " + e, type);
+        }
+    }
+
+    private void writeConstructor(PrintWriter out, String simpleName, ExecutableElement constructor) {
+        for (AnnotationMirror annotation : constructor.getAnnotationMirrors()) {
+            out.println("    " + annotation);
+        }
+        out.println("    public " + simpleName + "(" + parameters(constructor, true) + ")" + throwsClause(constructor) + " {");
+        out.println("        super(" + arguments(constructor) + ");");
+        out.println("    }");
+        out.println();
+    }
+
+    /**
+     * TraceAspect 처럼 호출 전에 로그를 남기고, RetryAspect 처럼 예외가 나면 value 번까지 다시 호출한다.
+     * 재시도 전에 데드라인(DeadlineContext)이 지났으면 멈추는 것도 RetryAspect 와 같다.
+     * 재시도할 예외, 결과로 재시도할지는 RetryAspect 와 같은 RetryPolicy 판단표를 쓴다.
+     * */
+    private void writeMethod(PrintWriter out, ExecutableElement method, String signature, String policy) {
+        boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+        String call = "super." + method.getSimpleName() + "(" + arguments(method) + ")";
+        String args = method.getParameters().isEmpty() ? "new Object[0]" : "new Object[]{" + arguments(method) + "}";
+
+        out.println("    @Override");
+
+        //@Timeout, @Hedge 처럼 다른 애스펙트가 보는 애노테이션은 그대로 옮겨서 데코레이터에도 적용되게 한다
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (annotation != annotation(method, TRACE) && annotation != annotation(method, RETRY)) {
+                out.println("    " + annotation);
+            }
+        }
+        out.println("    " + visibility(method) + typeParameters(method) + method.getReturnType() + " "
+                + method.getSimpleName() + "(" + parameters(method, false) + ")" + throwsClause(method) + " {");
+
+        if (annotation(method, TRACE) != null) {
+            out.println("        decoratorSupport.trace(" + signature + ", " + args + ");");
+        }
+
+        AnnotationMirror retry = annotation(method, RETRY);
+        if (retry == null) {
+            out.println("        " + (isVoid ? "" : "return ") + call + ";");
+            out.println("    }");
+            return;
+        }
+
+        String maxRetry = retryValue(retry);
+        out.println("        decoratorSupport.retry(" + signature + ", " + maxRetry + ");");
+        out.println("        Exception exceptionHolder = null;");
+        out.println("        for (int retryCount = 1; retryCount <= " + maxRetry + "; retryCount++) {");
+        out.println("            if (retryCount == 1) {");
+        out.println("                " + DEADLINE + ".check(" + signature + ");");
+        out.println("            } else {");
+        out.println("                " + DEADLINE + ".checkRetry(" + signature + ", retryCount - 1, exceptionHolder);");
+        out.println("            }");
+        out.println("            " + ATTEMPT_EVENT + " event = decoratorSupport.attempt(retryCount, " + maxRetry + ");");
+        out.println("            try {");
+        if (isVoid) {
+            out.println("                " + call + ";");
+            out.println("                return;");
+        } else {
+            out.println("                " + method.getReturnType() + " result = " + call + ";");
+            out.println("                if (retryCount < " + maxRetry + " && " + policy + ".retryOnResult(result)) {");
+            out.println("                    continue;");
+            out.println("                }");
+            out.println("                return result;");
+        }
+        out.println("            } catch (Exception e) {");
+        out.println("                if (!" + policy + ".isRetryable(e)) {");
+        out.println("                    throw " + SUPPORT + ".rethrow(e);");
+        out.println("                }");
+        out.println("                exceptionHolder = e;");
+        out.println("                decoratorSupport.failed(event, " + signature + ", retryCount, " + maxRetry + ", e);");
+        out.println("            }");
+        out.println("        }");
+        out.println("        throw " + SUPPORT + ".rethrow(exceptionHolder);");
+        out.println("    }");
+    }
+
+    //getDeclaredMethod 에 넘길 파라미터 타입, 제네릭은 지운 타입으로
+    private String parameterClasses(ExecutableElement method) {
+        StringBuilder result = new StringBuilder();
+        for (VariableElement parameter : method.getParameters()) {
+            result.append(", ").append(processingEnv.getTypeUtils().erasure(parameter.asType())).append(".class");
+        }
+        return result.toString();
+    }
+
+    //@Retry(value = 4) 의 값, 없으면 애노테이션 기본값
+    private String retryValue(AnnotationMirror retry) {
+        return processingEnv.getElementUtils().getElementValuesWithDefaults(retry).entrySet().stream()
+                .filter(entry -> entry.getKey().getSimpleName().contentEquals("value"))
+                .map(entry -> String.valueOf(entry.getValue().getValue()))
+                .findFirst()
+                .orElse("3");
+    }
+
+    //lombok 생성자 애노테이션이 있는데 컴파일러가 넣은 기본 생성자만 있으면 lombok 이 아직 실행되지 않은 것
+    private boolean lombokConstructorMissing(TypeElement type, List<ExecutableElement> constructors) {
+        boolean lombok = type.getAnnotationMirrors().stream()
+                .map(annotation -> ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString())
+                .anyMatch(LOMBOK_CONSTRUCTORS::contains);
+        return lombok && constructors.size() == 1
+                && processingEnv.getElementUtils().getOrigin(constructors.get(0)) == Elements.Origin.MANDATED;
+    }
+
+    private List<ExecutableElement> constructors(TypeElement type) {
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(constructor -> !constructor.getModifiers().contains(Modifier.PRIVATE))
+                .collect(Collectors.toList());
+    }
+
+    private String visibility(ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.PUBLIC)) {
+            return "public ";
+        }
+        return method.getModifiers().contains(Modifier.PROTECTED) ? "protected " : "";
+    }
+
+    private String typeParameters(ExecutableElement method) {
+        if (method.getTypeParameters().isEmpty()) {
+            return "";
+        }
+        List<String> result = new ArrayList<>();
+        for (TypeParameterElement parameter : method.getTypeParameters()) {
+            List<String> bounds = parameter.getBounds().stream()
+                    .map(TypeMirror::toString)
+                    .filter(bound -> !bound.equals("java.lang.Object"))
+                    .collect(Collectors.toList());
+            result.add(bounds.isEmpty() ? parameter.toString() : parameter + " extends " + String.join(" & ", bounds));
+        }
+        return "<" + String.join(", ", result) + "> ";
+    }
+
+    private String parameters(ExecutableElement executable, boolean withAnnotations) {
+        List<String> result = new ArrayList<>();
+        List<? extends VariableElement> parameters = executable.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            StringBuilder sb = new StringBuilder();
+            if (withAnnotations) {
+                for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                    sb.append(annotation).append(' ');
+                }
+            }
+            TypeMirror type = parameter.asType();
+            if (executable.isVarArgs() && i == parameters.size() - 1 && type.getKind() == TypeKind.ARRAY) {
+                sb.append(((ArrayType) type).getComponentType()).append("...");
+            } else {
+                sb.append(type);
+            }
+            result.add(sb.append(' ').append(parameter.getSimpleName()).toString());
+        }
+        return String.join(", ", result);
+    }
+
+    private String arguments(ExecutableElement executable) {
+        return executable.getParameters().stream()
+                .map(parameter -> parameter.getSimpleName().toString())
+                .collect(Collectors.joining(", "));
+    }
+
+    private String throwsClause(ExecutableElement executable) {
+        if (executable.getThrownTypes().isEmpty()) {
+            return "";
+        }
+        return " throws " + executable.getThrownTypes().stream().map(TypeMirror::toString).collect(Collectors.joining(", "));
+    }
+
+    //JoinPoint.getSignature() 와 같은 모양, ex) String hello.aop.exam.ExamRepository.save(String)
+    private String signature(TypeElement type, ExecutableElement method) {
+        String parameters = method.getParameters().stream()
+                .map(parameter -> shortName(parameter.asType()))
+                .collect(Collectors.joining(","));
+        return shortName(method.getReturnType()) + " " + type.getQualifiedName() + "." + method.getSimpleName() + "(" + parameters + ")";
+    }
+
+    private String shortName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return shortName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((DeclaredType) type).asElement().getSimpleName().toString();
+        }
+        return type.toString();
+    }
+
+    private AnnotationMirror annotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            if (annotationType instanceof TypeElement
+                    && ((TypeElement) annotationType).getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : generated.entrySet()) {
+                    writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "데코레이터 색인 생성 실패: " + e);
+        }
+    }
+
+    //빌드마다 나오면 소음이라 -Aaop.decorator.debug=true 일 때만
+    private void note(Element element, String message) {
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(DEBUG_OPTION))) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,88 @@
+package hello.aop.admin;
+
+import hello.aop.advisor.AdvisorStatus;
+import hello.aop.advisor.AdvisorSwitchboard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 어드바이저 관리용 엔드포인트
+ * AdvisorSwitchboard 를 등록했을 때만 동작한다. 없으면 목록은 비어 있고 변경은 400
+ *
+ * GET  /admin/advisors                      목록
+ * POST /admin/advisors/{name}/disable       끄기
+ * POST /admin/advisors/{name}/enable        켜기
+ * PUT  /admin/advisors/{name}/pointcut      포인트컷 교체, body 에 표현식
+ * POST /admin/advisors/{name}/reset         원래 포인트컷으로 되돌리고 켜기
+ *
+ * name 에 . 이 들어가므로 {name:.+}
+ * */
+@RestController
+@RequestMapping("/admin/advisors")
+@RequiredArgsConstructor
+public class AdvisorAdminController {
+
+    private final ObjectProvider<AdvisorSwitchboard> advisorSwitchboardProvider;
+
+    @GetMapping
+    public List<AdvisorStatus> advisors() {
+        AdvisorSwitchboard switchboard = advisorSwitchboardProvider.getIfAvailable();
+        return switchboard == null ? List.of() : switchboard.advisors();
+    }
+
+    @PostMapping("/{name:.+}/disable")
+    public List<AdvisorStatus> disable(@PathVariable String name) {
+        AdvisorSwitchboard switchboard = switchboard();
+        switchboard.disable(name);
+        return switchboard.advisors();
+    }
+
+    @PostMapping("/{name:.+}/enable")
+    public List<AdvisorStatus> enable(@PathVariable String name) {
+        AdvisorSwitchboard switchboard = switchboard();
+        switchboard.enable(name);
+        return switchboard.advisors();
+    }
+
+    @PutMapping("/{name:.+}/pointcut")
+    public List<AdvisorStatus> replacePointcut(@PathVariable String name, @RequestBody String expression) {
+        AdvisorSwitchboard switchboard = switchboard();
+        switchboard.replacePointcut(name, expression.trim());
+        return switchboard.advisors();
+    }
+
+    @PostMapping("/{name:.+}/reset")
+    public List<AdvisorStatus> reset(@PathVariable String name) {
+        AdvisorSwitchboard switchboard = switchboard();
+        switchboard.reset(name);
+        return switchboard.advisors();
+    }
+
+    private AdvisorSwitchboard switchboard() {
+        AdvisorSwitchboard switchboard = advisorSwitchboardProvider.getIfAvailable();
+        if (switchboard == null) {
+            throw new IllegalArgumentException("AdvisorSwitchboard 가 등록되어 있지 않습니다");
+        }
+        return switchboard;
+    }
+
+    //없는 이름, 잘못된 표현식, 바인딩 있는 어드바이스
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("message", String.valueOf(e.getMessage()));
+    }
+}
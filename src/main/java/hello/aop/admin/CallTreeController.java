@@ -0,0 +1,29 @@
+package hello.aop.admin;
+
+import hello.aop.exam.aop.CallTreeAspect;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 어드바이스 대상 호출 트리를 플레임 그래프용 collapsed stack 형식으로
+ * CallTreeAspect 를 등록했을 때만 값이 있다.
+ *
+ * GET /admin/calltree?metric=time|count
+ * ex) curl localhost:8080/admin/calltree > calls.folded && flamegraph.pl calls.folded > calls.svg
+ * */
+@RestController
+@RequiredArgsConstructor
+public class CallTreeController {
+
+    private final ObjectProvider<CallTreeAspect> callTreeAspect;
+
+    @GetMapping(value = "/admin/calltree", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String callTree(@RequestParam(defaultValue = "time") String metric) {
+        CallTreeAspect aspect = callTreeAspect.getIfAvailable();
+        return aspect == null ? "" : aspect.collapsed(metric);
+    }
+}
@@ -0,0 +1,26 @@
+package hello.aop.admin;
+
+import hello.aop.advisor.ChainPrecomputer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 컨텍스트가 뜰 때 미리 만든 메서드별 인터셉터 체인 길이와 걸린 시간
+ * aop.chain.eager=false 면 비어 있다.
+ *
+ * GET /admin/chains
+ * */
+@RestController
+@RequiredArgsConstructor
+public class ChainController {
+
+    private final ChainPrecomputer chainPrecomputer;
+
+    @GetMapping("/admin/chains")
+    public List<ChainPrecomputer.ChainInfo> chains() {
+        return chainPrecomputer.getChains();
+    }
+}
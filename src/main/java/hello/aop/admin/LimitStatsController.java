@@ -0,0 +1,29 @@
+package hello.aop.admin;
+
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.exam.limit.GradientLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * @AdaptiveLimit 메서드별 한도, 실행 중인 호출 수, 거절 비율
+ * AdaptiveLimitAspect 를 등록했을 때만 값이 있다.
+ *
+ * GET /admin/limits
+ * */
+@RestController
+@RequiredArgsConstructor
+public class LimitStatsController {
+
+    private final ObjectProvider<AdaptiveLimitAspect> adaptiveLimitAspect;
+
+    @GetMapping("/admin/limits")
+    public List<GradientLimiter> limits() {
+        AdaptiveLimitAspect aspect = adaptiveLimitAspect.getIfAvailable();
+        return aspect == null ? List.of() : aspect.limiters();
+    }
+}
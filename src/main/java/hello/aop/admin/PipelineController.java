@@ -0,0 +1,29 @@
+package hello.aop.admin;
+
+import hello.aop.pipeline.OrderPipeline;
+import hello.aop.pipeline.StageStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 주문 파이프라인 단계별 큐 길이, 대기/처리 시간
+ * order.pipeline.enabled=true 일 때만 값이 있다.
+ *
+ * GET /admin/pipeline
+ * */
+@RestController
+@RequiredArgsConstructor
+public class PipelineController {
+
+    private final ObjectProvider<OrderPipeline> orderPipeline;
+
+    @GetMapping("/admin/pipeline")
+    public List<StageStats> pipeline() {
+        OrderPipeline pipeline = orderPipeline.getIfAvailable();
+        return pipeline == null ? List.of() : pipeline.stats();
+    }
+}
@@ -0,0 +1,29 @@
+package hello.aop.admin;
+
+import hello.aop.advisor.PointcutProfiler;
+import hello.aop.advisor.PointcutStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 어드바이저별 포인트컷 매칭 통계
+ * PointcutProfiler 를 등록했을 때만 값이 있다.
+ *
+ * GET /admin/pointcuts
+ * */
+@RestController
+@RequiredArgsConstructor
+public class PointcutStatsController {
+
+    private final ObjectProvider<PointcutProfiler> pointcutProfiler;
+
+    @GetMapping("/admin/pointcuts")
+    public List<PointcutStats> pointcuts() {
+        PointcutProfiler profiler = pointcutProfiler.getIfAvailable();
+        return profiler == null ? List.of() : profiler.stats();
+    }
+}
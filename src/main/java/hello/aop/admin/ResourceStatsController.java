@@ -0,0 +1,31 @@
+package hello.aop.admin;
+
+import hello.aop.exam.aop.ResourceAccountingAspect;
+import hello.aop.exam.resource.ResourceStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 메서드별 CPU 시간, 할당 바이트 상위 목록
+ * ResourceAccountingAspect 를 등록했을 때만 값이 있다.
+ *
+ * GET /admin/resources?sort=cpu|alloc&limit=10
+ * */
+@RestController
+@RequiredArgsConstructor
+public class ResourceStatsController {
+
+    private final ObjectProvider<ResourceAccountingAspect> resourceAccountingAspect;
+
+    @GetMapping("/admin/resources")
+    public List<ResourceStats> resources(@RequestParam(defaultValue = "cpu") String sort,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        ResourceAccountingAspect aspect = resourceAccountingAspect.getIfAvailable();
+        return aspect == null ? List.of() : aspect.top(sort, limit);
+    }
+}
@@ -0,0 +1,29 @@
+package hello.aop.admin;
+
+import hello.aop.exam.aop.SlowCallAspect;
+import hello.aop.exam.slowcall.SlowCallRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 최근 느린 호출, 인수와 안쪽 호출까지
+ * SlowCallAspect 를 등록했을 때만 값이 있다.
+ *
+ * GET /admin/slowcalls
+ * */
+@RestController
+@RequiredArgsConstructor
+public class SlowCallController {
+
+    private final ObjectProvider<SlowCallAspect> slowCallAspect;
+
+    @GetMapping("/admin/slowcalls")
+    public List<SlowCallRecord> slowCalls() {
+        SlowCallAspect aspect = slowCallAspect.getIfAvailable();
+        return aspect == null ? List.of() : aspect.records();
+    }
+}
@@ -0,0 +1,25 @@
+package hello.aop.advisor;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/** 어드바이저 현재 상태, 관리용 엔드포인트 응답 */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class AdvisorStatus {
+
+    private final String name;
+
+    //지금 사용중인 포인트컷 표현식
+    private final String expression;
+
+    //애스펙트에 선언된 원래 표현식
+    private final String originalExpression;
+
+    private final boolean enabled;
+
+    //이 어드바이저가 들어있는 프록시 수
+    private final int proxyCount;
+}
@@ -0,0 +1,274 @@
+package hello.aop.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJAfterReturningAdvice;
+import org.springframework.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 재시작 없이 어드바이저를 끄고 켜거나 포인트컷 표현식을 교체하는
+ *
+ * 지금은 AspectV1~V6 를 바꾸려면 @Import 를 고치고 다시 띄워야 한다.
+ * 프록시가 만들어질 때 AspectJ 어드바이저를 SwitchableAdvisor 로 한 번 감싸두고,
+ * 그 뒤로는 어드바이저 목록을 바꾸지 않고 감싼 어드바이저의 상태만 volatile 로 바꿔 끼운다.
+ *
+ * 실행 중인 프록시의 어드바이저 목록(removeAdvisor, replaceAdvisor)을 바꾸면
+ * 요청 스레드가 읽는 중인 목록을 고치게 되고, 캐시를 비운 뒤에 옛 목록으로 만든 체인이 다시 캐시될 수 있다.
+ * 여기서는 체인이 처음 만든 그대로라서 그런 문제가 없고, 호출은 바뀌기 전이나 후의 상태 중 하나를 본다.
+ * 대신 감싼 어드바이저는 꺼져 있어도 체인에 남아서 호출마다 상태를 한 번 확인한다.
+ * 체인에는 원래 포인트컷이 걸던 메서드에만 들어가므로 상관없는 메서드는 비용이 없다.
+ * 그래서 포인트컷은 원래가 걸던 메서드 안에서만 바꿀 수 있다. 넓히려면 애스펙트를 고치고 다시 띄워야 한다.
+ *
+ * 어드바이저 이름은 "애스펙트 빈 이름.어드바이스 메서드 이름"
+ * ex) hello.aop.order.aop.AspectV6Advice.doBefore
+ *
+ * 사용할 때만 @Import(AdvisorSwitchboard.class) 로 등록, 관리는 /admin/advisors
+ * PointcutProfiler 와 같은 이유로 Ordered 를 구현하지 않고, 싱글톤 생성이 끝난 뒤 한 번 더 훑는다.
+ *
+ * 참고: 포인트컷을 바꿔도 원래 이 어드바이저가 들어있던 프록시에만 적용된다. 프록시는 빈 생성 시점에 만들어지기 때문
+ * */
+@Slf4j
+public class AdvisorSwitchboard implements BeanPostProcessor, SmartInitializingSingleton, BeanFactoryAware {
+
+    //이름 -> 감싼 어드바이저
+    private final Map<String, Handle> handles = new LinkedHashMap<>();
+
+    //원래 어드바이저 -> 감싼 어드바이저, 같은 어드바이저는 여러 프록시가 공유하므로 상태도 하나
+    private final Map<Advisor, Handle> byOriginal = new IdentityHashMap<>();
+
+    private final Set<Advised> wrapped = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof Advised) {
+            wrap((Advised) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (bean instanceof Advised) {
+                wrap((Advised) bean);
+            }
+        }
+    }
+
+    public synchronized List<AdvisorStatus> advisors() {
+        List<AdvisorStatus> result = new ArrayList<>();
+        for (Handle handle : handles.values()) {
+            SwitchableAdvisor.State state = handle.advisor.getState();
+            result.add(new AdvisorStatus(handle.name, state.getExpression(), handle.originalExpression,
+                    state.isEnabled(), handle.proxyCount));
+        }
+        return result;
+    }
+
+    /** 어드바이스를 실행하지 않는다, 체인은 그대로 */
+    public synchronized void disable(String name) {
+        Handle handle = handle(name);
+        SwitchableAdvisor.State state = handle.advisor.getState();
+        if (!state.isEnabled()) {
+            return;
+        }
+        handle.advisor.setState(state.withEnabled(false));
+        log.info("[advisor] disable {}", name);
+    }
+
+    /** 다시 실행한다, 체인에서 빠진 적이 없으므로 순서도 원래 그대로 */
+    public synchronized void enable(String name) {
+        Handle handle = handle(name);
+        SwitchableAdvisor.State state = handle.advisor.getState();
+        if (state.isEnabled()) {
+            return;
+        }
+        handle.advisor.setState(state.withEnabled(true));
+        log.info("[advisor] enable {}", name);
+    }
+
+    /**
+     * 포인트컷 표현식 교체
+     * 어드바이스는 그대로 두고 포인트컷만 새로 만들어서 상태를 바꿔 끼운다. 꺼져 있으면 켤 때 적용
+     *
+     * args(arg,..) 처럼 어드바이스 파라미터에 값을 바인딩하는 어드바이스는
+     * 바인딩 정보가 원래 포인트컷에 묶여 있어서 교체하지 않는다.
+     * */
+    public synchronized void replacePointcut(String name, String expression) {
+        Handle handle = handle(name);
+
+        SwitchableAdvisor.State state = handle.advisor.getState();
+        if (handle.originalExpression.equals(expression)) {
+            handle.advisor.setState(new SwitchableAdvisor.State(state.isEnabled(), expression,
+                    ((PointcutAdvisor) handle.advisor.getOriginal()).getPointcut()));
+        } else {
+            checkNoBinding(handle);
+            AspectJExpressionPointcut pointcut = pointcut(handle, expression);
+            checkNotWider(handle, pointcut);
+            handle.advisor.setState(new SwitchableAdvisor.State(state.isEnabled(), expression, pointcut));
+        }
+        log.info("[advisor] replace pointcut {} -> {}", name, expression);
+    }
+
+    /** 원래 포인트컷으로 되돌리고 다시 켠다 */
+    public synchronized void reset(String name) {
+        Handle handle = handle(name);
+        handle.advisor.setState(initialState(handle.advisor.getOriginal(), handle.originalExpression));
+        log.info("[advisor] reset {}", name);
+    }
+
+    private Handle handle(String name) {
+        Handle handle = handles.get(name);
+        if (handle == null) {
+            throw new IllegalArgumentException("존재하지 않는 어드바이저: " + name);
+        }
+        return handle;
+    }
+
+    /**
+     * 프록시의 AspectJ 어드바이저를 감싼 어드바이저로 바꾼다
+     * 빈 생성 중이라 아직 아무도 이 프록시를 부르지 않을 때 한 번만 한다.
+     * */
+    private synchronized void wrap(Advised advised) {
+        if (advised.isFrozen() || !wrapped.add(advised)) {
+            return;
+        }
+
+        for (Advisor advisor : advised.getAdvisors()) {
+            if (!(advisor instanceof PointcutAdvisor) || advisor instanceof SwitchableAdvisor
+                    || !(advisor.getAdvice() instanceof AbstractAspectJAdvice)) {
+                continue;
+            }
+            Handle handle = register(advisor);
+            advised.replaceAdvisor(advisor, handle.advisor);
+            handle.proxyCount++;
+            Class<?> targetClass = advised.getTargetSource().getTargetClass();
+            if (targetClass != null) {
+                handle.targetClasses.add(targetClass);
+            }
+        }
+    }
+
+    private Handle register(Advisor advisor) {
+        Handle existing = byOriginal.get(advisor);
+        if (existing != null) {
+            return existing;
+        }
+
+        AbstractAspectJAdvice advice = (AbstractAspectJAdvice) advisor.getAdvice();
+        String name = advice.getAspectName() + "." + advice.getAspectJAdviceMethod().getName();
+        String uniqueName = name;
+        for (int i = 2; handles.containsKey(uniqueName); i++) {
+            uniqueName = name + "#" + i;
+        }
+
+        Handle handle = new Handle(uniqueName, advisor, advice);
+        handles.put(uniqueName, handle);
+        byOriginal.put(advisor, handle);
+        return handle;
+    }
+
+    private static SwitchableAdvisor.State initialState(Advisor original, String expression) {
+        return new SwitchableAdvisor.State(true, expression, ((PointcutAdvisor) original).getPointcut());
+    }
+
+    private void checkNoBinding(Handle handle) {
+        Class<?>[] parameterTypes = handle.advice.getAspectJAdviceMethod().getParameterTypes();
+
+        //@AfterReturning, @AfterThrowing 은 returning, throwing 값 하나는 포인트컷과 상관없이 바인딩 된다
+        int allowed = (handle.advice instanceof AspectJAfterReturningAdvice
+                || handle.advice instanceof AspectJAfterThrowingAdvice) ? 1 : 0;
+
+        long bound = Arrays.stream(parameterTypes)
+                .filter(type -> !JoinPoint.class.isAssignableFrom(type) && type != JoinPoint.StaticPart.class)
+                .count();
+
+        if (bound > allowed) {
+            throw new IllegalArgumentException("파라미터를 바인딩하는 어드바이스는 포인트컷을 교체할 수 없습니다: " + handle.name);
+        }
+    }
+
+    /** 원래 포인트컷이 걸지 않던 메서드는 체인에 이 어드바이저가 없어서 새 포인트컷이 적용되지 않는다 */
+    private void checkNotWider(Handle handle, Pointcut pointcut) {
+        Pointcut original = ((PointcutAdvisor) handle.advisor.getOriginal()).getPointcut();
+        for (Class<?> targetClass : handle.targetClasses) {
+            if (!pointcut.getClassFilter().matches(targetClass)) {
+                continue;
+            }
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass, ReflectionUtils.USER_DECLARED_METHODS)) {
+                if (pointcut.getMethodMatcher().matches(method, targetClass)
+                        && !(original.getClassFilter().matches(targetClass)
+                        && original.getMethodMatcher().matches(method, targetClass))) {
+                    throw new IllegalArgumentException("원래 포인트컷이 걸지 않던 메서드로 넓힐 수 없습니다: "
+                            + handle.name + " " + method);
+                }
+            }
+        }
+    }
+
+    private AspectJExpressionPointcut pointcut(Handle handle, String expression) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+
+        //allOrder() 처럼 애스펙트 안에 선언된 포인트컷 시그니처도 쓸 수 있게
+        pointcut.setPointcutDeclarationScope(handle.advice.getAspectJAdviceMethod().getDeclaringClass());
+        pointcut.setBeanFactory(beanFactory);
+        pointcut.setExpression(expression);
+
+        //잘못된 표현식이면 여기서 IllegalArgumentException
+        pointcut.getClassFilter();
+        return pointcut;
+    }
+
+    private static class Handle {
+
+        private final String name;
+        private final AbstractAspectJAdvice advice;
+        private final String originalExpression;
+        private final SwitchableAdvisor advisor;
+
+        //이 어드바이저가 들어있는 프록시 수
+        private int proxyCount;
+
+        //그 프록시들의 대상 클래스
+        private final Set<Class<?>> targetClasses = new LinkedHashSet<>();
+
+        Handle(String name, Advisor original, AbstractAspectJAdvice advice) {
+            this.name = name;
+            this.advice = advice;
+            this.originalExpression = advice.getPointcut().getExpression();
+            this.advisor = new SwitchableAdvisor(original, initialState(original, originalExpression));
+        }
+    }
+}
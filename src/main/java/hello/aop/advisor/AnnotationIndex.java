@@ -0,0 +1,104 @@
+package hello.aop.advisor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 컴파일 시점에 만든 애노테이션 색인 (aop-processor 의 AnnotationIndexProcessor)
+ *
+ * 클래스나 메서드에 @Trace, @Retry, @MethodAop, @ClassAop 가 붙은 클래스 목록이다.
+ * 부모 클래스나 인터페이스의 메서드를 그대로 물려받는 경우도 있으니 상속 계층에 하나라도 있으면 후보로 본다.
+ *
+ * main, test 처럼 컴파일 단위마다 파일이 하나씩 생기므로 클래스패스의 파일을 전부 합친다.
+ * */
+public class AnnotationIndex {
+
+    public static final String LOCATION = "META-INF/aop-annotation.index";
+
+    //색인한 애노테이션, 여기 없는 애노테이션은 색인으로 판단할 수 없다
+    private final Set<String> annotations = new HashSet<>();
+
+    //클래스 이름 -> 붙은 애노테이션
+    private final Map<String, Set<String>> classes = new HashMap<>();
+
+    //클래스 -> 상속 계층 전체에 붙은 애노테이션
+    private final Map<Class<?>, Set<String>> hierarchyCache = new ConcurrentHashMap<>();
+
+    private AnnotationIndex() {
+    }
+
+    /** 색인 파일이 하나도 없으면 null, 프로세서 없이 컴파일된 경우 */
+    public static AnnotationIndex load(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            if (!resources.hasMoreElements()) {
+                return null;
+            }
+
+            AnnotationIndex index = new AnnotationIndex();
+            while (resources.hasMoreElements()) {
+                index.read(resources.nextElement());
+            }
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** 색인으로 판단할 수 있는 애노테이션인지 */
+    public boolean isIndexed(String annotation) {
+        return annotations.contains(annotation);
+    }
+
+    /** type 이나 부모 타입 어딘가에 annotation 이 붙어있을 수 있는지 */
+    public boolean mayCarry(Class<?> type, String annotation) {
+        if (!isIndexed(annotation)) {
+            return true;
+        }
+        return hierarchyCache.computeIfAbsent(type, this::collect).contains(annotation);
+    }
+
+    private Set<String> collect(Class<?> type) {
+        Set<String> result = new HashSet<>();
+        collect(type, result, new HashSet<>());
+        return result;
+    }
+
+    private void collect(Class<?> type, Set<String> result, Set<Class<?>> visited) {
+        if (type == null || type == Object.class || !visited.add(type)) {
+            return;
+        }
+        result.addAll(classes.getOrDefault(type.getName(), Collections.emptySet()));
+        collect(type.getSuperclass(), result, visited);
+        for (Class<?> anInterface : type.getInterfaces()) {
+            collect(anInterface, result, visited);
+        }
+    }
+
+    private void read(URL url) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.trim().split(" ");
+                if (tokens[0].equals("annotation") && tokens.length == 2) {
+                    annotations.add(tokens[1]);
+                } else if (tokens[0].equals("class") && tokens.length > 2) {
+                    Set<String> carried = classes.computeIfAbsent(tokens[1], key -> new HashSet<>());
+                    carried.addAll(Arrays.asList(tokens).subList(2, tokens.length));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hello.aop.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.aspectj.annotation.AnnotationAwareAspectJAutoProxyCreator;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 자동 프록시 생성기를 IndexAwareAutoProxyCreator 로 바꿔서 등록하는
+ *
+ * 스프링 부트가 등록하는 AnnotationAwareAspectJAutoProxyCreator 빈 정의의 클래스만 바꾼다.
+ * 빈 후처리기는 빈 팩토리 후처리기가 모두 끝난 뒤에 만들어지므로 여기서 바꾸면 된다.
+ *
+ * 색인 파일이 없으면 (애노테이션 프로세서 없이 컴파일) 그대로 둔다.
+ * aop.index.enabled=false 로 끌 수 있다.
+ * */
+@Slf4j
+@Component
+public class AnnotationIndexConfigurer implements BeanDefinitionRegistryPostProcessor, EnvironmentAware, BeanClassLoaderAware {
+
+    private Environment environment;
+    private ClassLoader classLoader;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        if (!environment.getProperty("aop.index.enabled", Boolean.class, true)
+                || !registry.containsBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME)) {
+            return;
+        }
+
+        BeanDefinition definition = registry.getBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME);
+        if (!AnnotationAwareAspectJAutoProxyCreator.class.getName().equals(definition.getBeanClassName())) {
+            return;
+        }
+        if (classLoader.getResource(AnnotationIndex.LOCATION) == null) {
+            log.info("[index] {} 없음, 모든 빈을 검사", AnnotationIndex.LOCATION);
+            return;
+        }
+
+        definition.setBeanClassName(IndexAwareAutoProxyCreator.class.getName());
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+}
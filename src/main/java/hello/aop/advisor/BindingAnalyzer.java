@@ -0,0 +1,279 @@
+package hello.aop.advisor;
+
+import hello.aop.advisor.BindingPlan.Binding;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 동적 포인트컷을 메서드 단위로 미리 판단하는
+ *
+ * "allMember() && args(arg,..)" 를 && 로 나눠서
+ * - allMember() 처럼 시그니처만 보는 부분은 스프링이 이미 정적으로 검사하고
+ * - args, this, target, @target, @within, @annotation 부분은 메서드 파라미터 타입, 프록시, 대상 클래스로 미리 따져본다.
+ *
+ * 선언된 타입만으로 항상 매칭된다는 게 증명되면 BindingPlan 을 만들고,
+ * ArgsTest 의 args(String) 를 Object 파라미터에 거는 것처럼 실제 값을 봐야 아는 경우는 null (원래대로 동적 검사)
+ *
+ * ||, ! 가 들어간 표현식이나 args 에 .. 이 두 번 나오는 경우처럼 애매하면 분석하지 않는다.
+ * */
+class BindingAnalyzer {
+
+    private static final Pattern DYNAMIC_TERM =
+            Pattern.compile("(args|this|target|@target|@within|@annotation)\\s*\\((.*)\\)", Pattern.DOTALL);
+
+    private final List<Term> terms = new ArrayList<>();
+    private final Map<String, Class<?>> parameters = new HashMap<>();
+    private final ClassLoader classLoader;
+
+    //args, this, target 등을 뺀 나머지, 없으면 null
+    private AspectJExpressionPointcut remainder;
+
+    private BindingAnalyzer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /** 분석할 수 없는 표현식이면 null */
+    static BindingAnalyzer of(AspectJExpressionPointcut pointcut, Class<?> aspectClass, BeanFactory beanFactory) {
+        String expression = pointcut.getExpression();
+        if (expression == null) {
+            return null;
+        }
+
+        expression = StringUtils.replace(expression, " and ", " && ");
+        if (expression.contains(" or ") || expression.contains(" not ")
+                || expression.contains("||") || expression.contains("!")) {
+            return null;
+        }
+
+        BindingAnalyzer analyzer = new BindingAnalyzer(aspectClass.getClassLoader());
+        String[] names = fieldOf(pointcut, "pointcutParameterNames");
+        Class<?>[] types = fieldOf(pointcut, "pointcutParameterTypes");
+        for (int i = 0; i < names.length; i++) {
+            analyzer.parameters.put(names[i], types[i]);
+        }
+
+        List<String> staticTerms = new ArrayList<>();
+        for (String term : splitTopLevel(expression, "&&")) {
+            Matcher matcher = DYNAMIC_TERM.matcher(term);
+            if (matcher.matches()) {
+                analyzer.terms.add(new Term(matcher.group(1), matcher.group(2).trim()));
+            } else {
+                staticTerms.add(term);
+            }
+        }
+
+        if (!staticTerms.isEmpty()) {
+            AspectJExpressionPointcut remainder = new AspectJExpressionPointcut();
+            remainder.setPointcutDeclarationScope(aspectClass);
+            remainder.setBeanFactory(beanFactory);
+            remainder.setExpression(String.join(" && ", staticTerms));
+            try {
+                //참조하는 포인트컷 안에 args(..) 가 숨어 있으면 여기서도 동적이라 포기
+                if (remainder.getMethodMatcher().isRuntime()) {
+                    return null;
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                return null;
+            }
+            analyzer.remainder = remainder;
+        }
+        return analyzer;
+    }
+
+    /**
+     * targetClass 의 method 에 대해 미리 바인딩 할 수 있으면 BindingPlan, 아니면 null
+     * proxy 는 this() 검사에 사용
+     * */
+    BindingPlan plan(Method method, Class<?> targetClass, Object proxy) {
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        if (remainder != null && !remainder.matches(specific, targetClass)) {
+            return null;
+        }
+
+        List<Binding> bindings = new ArrayList<>();
+        Set<String> bound = new HashSet<>();
+        for (Term term : terms) {
+            if (!term.resolve(this, specific, targetClass, proxy, bindings, bound)) {
+                return null;
+            }
+        }
+
+        //바인딩 해야 하는 파라미터가 빠짐없이 한 번씩
+        if (bindings.size() != parameters.size() || bound.size() != parameters.size()) {
+            return null;
+        }
+        return new BindingPlan(bindings);
+    }
+
+    private Class<?> resolveType(String name) {
+        if (name.contains("*") || name.endsWith("+")) {
+            return null;
+        }
+        String[] candidates = name.contains(".") ? new String[]{name} : new String[]{name, "java.lang." + name};
+        for (String candidate : candidates) {
+            try {
+                return ClassUtils.forName(candidate, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                //다음 후보
+            }
+        }
+        return null;
+    }
+
+    //괄호 밖에 있는 구분자로만 나눈다
+    static List<String> splitTopLevel(String expression, String separator) {
+        List<String> result = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && expression.startsWith(separator, i)) {
+                result.add(expression.substring(start, i).trim());
+                start = i + separator.length();
+            }
+        }
+        result.add(expression.substring(start).trim());
+        return result;
+    }
+
+    /**
+     * 어드바이스가 바인딩 하는 파라미터 이름, 타입은 포인트컷에만 들어 있고 꺼내는 메서드가 없다.
+     * argNames 를 쓰거나 디버그 정보가 없는 경우에도 스프링이 실제로 쓰는 이름과 똑같아야 하므로 그대로 읽는다.
+     * */
+    @SuppressWarnings("unchecked")
+    static <T> T fieldOf(AspectJExpressionPointcut pointcut, String name) {
+        Field field = ReflectionUtils.findField(AspectJExpressionPointcut.class, name);
+        ReflectionUtils.makeAccessible(field);
+        return (T) ReflectionUtils.getField(field, pointcut);
+    }
+
+    private static class Term {
+
+        private final String designator;
+        private final String body;
+
+        Term(String designator, String body) {
+            this.designator = designator;
+            this.body = body;
+        }
+
+        boolean resolve(BindingAnalyzer analyzer, Method method, Class<?> targetClass, Object proxy,
+                        List<Binding> bindings, Set<String> bound) {
+            if (designator.equals("args")) {
+                return resolveArgs(analyzer, method, bindings, bound);
+            }
+
+            String name = analyzer.parameters.containsKey(body) ? body : null;
+            Class<?> type = name != null ? analyzer.parameters.get(body) : analyzer.resolveType(body);
+            if (type == null) {
+                return false;
+            }
+
+            switch (designator) {
+                case "this":
+                    if (!type.isInstance(proxy)) {
+                        return false;
+                    }
+                    if (name != null) {
+                        bindings.add(Binding.proxy(name, type));
+                    }
+                    break;
+                case "target":
+                    if (!type.isAssignableFrom(targetClass)) {
+                        return false;
+                    }
+                    if (name != null) {
+                        bindings.add(Binding.target(name, type));
+                    }
+                    break;
+                default:
+                    if (!type.isAnnotation()) {
+                        return false;
+                    }
+                    Annotation annotation = annotationOf(type.asSubclass(Annotation.class), method, targetClass);
+                    if (annotation == null) {
+                        return false;
+                    }
+                    if (name != null) {
+                        bindings.add(Binding.constant(name, type, annotation));
+                    }
+            }
+
+            if (name != null) {
+                bound.add(name);
+            }
+            return true;
+        }
+
+        private Annotation annotationOf(Class<? extends Annotation> type, Method method, Class<?> targetClass) {
+            switch (designator) {
+                //@target 은 실행 객체의 클래스, @Inherited 면 부모 것도
+                case "@target":
+                    return targetClass.getAnnotation(type);
+                //@within 은 메서드가 선언된 타입
+                case "@within":
+                    return method.getDeclaringClass().getDeclaredAnnotation(type);
+                default:
+                    return method.getAnnotation(type);
+            }
+        }
+
+        /**
+         * args(arg,..), args(String), args(.., arg) 같은 위치 지정
+         * 선언된 파라미터 타입이 요구 타입에 항상 대입 가능해야 미리 확정할 수 있다.
+         * */
+        private boolean resolveArgs(BindingAnalyzer analyzer, Method method, List<Binding> bindings, Set<String> bound) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            List<String> tokens = body.isEmpty() ? new ArrayList<>() : splitTopLevel(body, ",");
+
+            int ellipsis = tokens.indexOf("..");
+            if (ellipsis != tokens.lastIndexOf("..")) {
+                return false;
+            }
+            if (ellipsis == -1 ? tokens.size() != parameterTypes.length : tokens.size() - 1 > parameterTypes.length) {
+                return false;
+            }
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if (i == ellipsis || token.equals("*")) {
+                    continue;
+                }
+
+                int position = (ellipsis == -1 || i < ellipsis) ? i : parameterTypes.length - (tokens.size() - i);
+                String name = analyzer.parameters.containsKey(token) ? token : null;
+                Class<?> type = name != null ? analyzer.parameters.get(token) : analyzer.resolveType(token);
+
+                //선언 타입이 요구 타입의 하위 타입이면 AspectJ 도 값을 보지 않고 매칭으로 본다 (null 포함)
+                if (type == null || !ClassUtils.isAssignable(type, parameterTypes[position])) {
+                    return false;
+                }
+                if (name != null) {
+                    bindings.add(Binding.argument(name, type, position));
+                    bound.add(name);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package hello.aop.advisor;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.weaver.tools.JoinPointMatch;
+import org.aspectj.weaver.tools.PointcutParameter;
+import org.springframework.aop.ProxyMethodInvocation;
+
+import java.util.List;
+
+/**
+ * 메서드 하나에 대해 포인트컷 동적 검사를 생략하고 파라미터를 바로 꺼내는 방법
+ *
+ * 동적 검사를 하지 않아도 매칭이 보장된 경우에만 만들어진다. (BindingAnalyzer)
+ * 어드바이스는 파라미터 값을 invocation 의 user attribute(키는 포인트컷 표현식)에 있는 JoinPointMatch 에서 꺼내므로
+ * 원래 동적 검사가 해주던 그 부분만 직접 채워준다.
+ * */
+class BindingPlan {
+
+    enum Source {
+        ARGUMENT, PROXY, TARGET, CONSTANT
+    }
+
+    private final Binding[] bindings;
+
+    BindingPlan(List<Binding> bindings) {
+        this.bindings = bindings.toArray(new Binding[0]);
+    }
+
+    void bind(MethodInvocation invocation, String expression) {
+        if (bindings.length == 0) {
+            return;
+        }
+
+        ProxyMethodInvocation pmi = (ProxyMethodInvocation) invocation;
+        PointcutParameter[] parameters = new PointcutParameter[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            parameters[i] = new BoundParameter(bindings[i], bindings[i].valueOf(pmi));
+        }
+        pmi.setUserAttribute(expression, new StaticJoinPointMatch(parameters));
+    }
+
+    static class Binding {
+
+        private final String name;
+        private final Class<?> type;
+        private final Source source;
+        private final int index;
+        private final Object constant;
+
+        private Binding(String name, Class<?> type, Source source, int index, Object constant) {
+            this.name = name;
+            this.type = type;
+            this.source = source;
+            this.index = index;
+            this.constant = constant;
+        }
+
+        static Binding argument(String name, Class<?> type, int index) {
+            return new Binding(name, type, Source.ARGUMENT, index, null);
+        }
+
+        static Binding proxy(String name, Class<?> type) {
+            return new Binding(name, type, Source.PROXY, -1, null);
+        }
+
+        static Binding target(String name, Class<?> type) {
+            return new Binding(name, type, Source.TARGET, -1, null);
+        }
+
+        //@target, @within, @annotation 값은 클래스, 메서드에 붙은 애노테이션이라 미리 꺼내둔다
+        static Binding constant(String name, Class<?> type, Object value) {
+            return new Binding(name, type, Source.CONSTANT, -1, value);
+        }
+
+        private Object valueOf(ProxyMethodInvocation pmi) {
+            switch (source) {
+                case ARGUMENT:
+                    return pmi.getArguments()[index];
+                case PROXY:
+                    return pmi.getProxy();
+                case TARGET:
+                    return pmi.getThis();
+                default:
+                    return constant;
+            }
+        }
+    }
+
+    private static class BoundParameter implements PointcutParameter {
+
+        private final Binding binding;
+        private final Object value;
+
+        BoundParameter(Binding binding, Object value) {
+            this.binding = binding;
+            this.value = value;
+        }
+
+        @Override
+        public String getName() {
+            return binding.name;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return binding.type;
+        }
+
+        @Override
+        public Object getBinding() {
+            return value;
+        }
+    }
+
+    private static class StaticJoinPointMatch implements JoinPointMatch {
+
+        private final PointcutParameter[] parameters;
+
+        StaticJoinPointMatch(PointcutParameter[] parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public boolean matches() {
+            return true;
+        }
+
+        @Override
+        public PointcutParameter[] getParameterBindings() {
+            return parameters;
+        }
+    }
+}
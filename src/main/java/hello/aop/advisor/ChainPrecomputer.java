@@ -0,0 +1,184 @@
+package hello.aop.advisor;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AdvisedSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프록시의 메서드별 인터셉터 체인을 컨텍스트가 뜰 때 미리 만들어두는
+ *
+ * 스프링은 메서드를 처음 호출할 때 어드바이저마다 포인트컷을 맞춰보고 체인을 만들어 AdvisedSupport 에 캐시한다.
+ * 그래서 OrderService.orderItem 같은 메서드의 첫 요청은 이 매칭 비용까지 낸다.
+ * 여기서 모든 프록시의 public 메서드에 대해 getInterceptorsAndDynamicInterceptionAdvice 를 미리 불러서 캐시를 채운다.
+ * 어드바이스가 붙지 않는 메서드도 빈 체인이 캐시되므로 같이 부른다.
+ *
+ * 캐시 키는 프록시가 호출할 때 넘기는 Method 인스턴스와 같아야 하므로 프록시 클래스에 있는 Method 를 쓴다.
+ *
+ * PointcutProfiler, StaticBindingOptimizer 처럼 싱글톤 생성 뒤에 어드바이저를 바꾸는 것들이 있으므로
+ * 리프레시가 끝난 ContextRefreshedEvent 에서 한다.
+ * AdvisorSwitchboard 는 체인을 바꾸지 않고 상태만 바꾸므로 미리 만든 캐시가 그대로 쓰인다.
+ *
+ * aop.chain.eager=false 면 하지 않는다. (스프링 기본 동작, 지연 생성)
+ * */
+@Slf4j
+@Component
+public class ChainPrecomputer implements ApplicationListener<ContextRefreshedEvent> {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final boolean eager;
+
+    private volatile List<ChainInfo> chains = Collections.emptyList();
+    private volatile long totalNanos;
+
+    public ChainPrecomputer(ConfigurableListableBeanFactory beanFactory,
+                            @Value("${aop.chain.eager:true}") boolean eager) {
+        this.beanFactory = beanFactory;
+        this.eager = eager;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!eager) {
+            log.info("[chain] lazy, 처음 호출할 때 만든다");
+            return;
+        }
+        precompute();
+    }
+
+    public void precompute() {
+        long start = System.nanoTime();
+        List<ChainInfo> result = new ArrayList<>();
+
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (!(bean instanceof Advised)) {
+                continue;
+            }
+            AdvisedSupport config = configOf(bean);
+            if (config == null) {
+                continue;
+            }
+
+            Class<?> targetClass = config.getTargetClass();
+            for (Method method : proxiedMethods(bean, targetClass)) {
+                long methodStart = System.nanoTime();
+                int length = config.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass).size();
+                result.add(new ChainInfo(beanName, ClassUtils.getQualifiedMethodName(method, targetClass), length,
+                        System.nanoTime() - methodStart));
+            }
+        }
+
+        this.totalNanos = System.nanoTime() - start;
+        this.chains = Collections.unmodifiableList(result);
+
+        for (ChainInfo chain : result) {
+            log.debug("[chain] {} length={} {}us", chain.getMethod(), chain.getLength(),
+                    TimeUnit.NANOSECONDS.toMicros(chain.getNanos()));
+        }
+        log.info("[chain] methods={} advised={} {}us", result.size(),
+                result.stream().filter(chain -> chain.getLength() > 0).count(),
+                TimeUnit.NANOSECONDS.toMicros(totalNanos));
+    }
+
+    public List<ChainInfo> getChains() {
+        return chains;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 프록시 클래스가 static 필드로 들고 있는 Method
+     * 캐시 키(MethodCacheKey)는 Method 를 == 로 비교하므로 getMethods() 로 새로 꺼낸 Method 로는 캐시가 맞지 않는다.
+     * - CGLIB 프록시: CGLIB$메서드이름$0$Method
+     * - JDK 동적 프록시: m0, m1, ...
+     * Object, Advised 처럼 타겟이 구현하지 않은 타입의 메서드는 체인을 타지 않으므로 뺀다.
+     * */
+    private Set<Method> proxiedMethods(Object proxy, Class<?> targetClass) {
+        Set<Method> result = new LinkedHashSet<>();
+        if (targetClass == null) {
+            return result;
+        }
+
+        for (Field field : proxy.getClass().getDeclaredFields()) {
+            if (field.getType() != Method.class || !Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Method method;
+            try {
+                ReflectionUtils.makeAccessible(field);
+                method = (Method) field.get(null);
+            } catch (RuntimeException | IllegalAccessException e) {
+                //다른 모듈에 만들어진 JDK 동적 프록시는 열어볼 수 없다. 그 프록시는 원래처럼 지연 생성
+                log.debug("[chain] {} 건너뜀: {}", proxy.getClass().getName(), e.toString());
+                return result;
+            }
+            if (method != null && method.getDeclaringClass() != Object.class
+                    && method.getDeclaringClass().isAssignableFrom(targetClass)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 프록시가 들고 있는 AdvisedSupport
+     * Advised 인터페이스로는 체인 계산을 부를 수 없어서 프록시 안의 advised 필드를 꺼낸다.
+     * - JDK 동적 프록시: InvocationHandler 인 JdkDynamicAopProxy
+     * - CGLIB 프록시: 0번 콜백인 DynamicAdvisedInterceptor
+     * */
+    static AdvisedSupport configOf(Object proxy) {
+        Object holder;
+        if (Proxy.isProxyClass(proxy.getClass())) {
+            holder = Proxy.getInvocationHandler(proxy);
+        } else if (proxy instanceof Factory) {
+            holder = ((Factory) proxy).getCallback(0);
+        } else {
+            return null;
+        }
+
+        Field field = ReflectionUtils.findField(holder.getClass(), "advised", AdvisedSupport.class);
+        if (field == null) {
+            return null;
+        }
+        ReflectionUtils.makeAccessible(field);
+        return (AdvisedSupport) ReflectionUtils.getField(field, holder);
+    }
+
+    @Getter
+    public static class ChainInfo {
+
+        private final String bean;
+        private final String method;
+        private final int length;
+        private final long nanos;
+
+        ChainInfo(String bean, String method, int length, long nanos) {
+            this.bean = bean;
+            this.method = method;
+            this.length = length;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package hello.aop.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.annotation.AnnotationAwareAspectJAutoProxyCreator;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 애노테이션 색인을 보고 후보가 아닌 빈은 포인트컷 검사를 건너뛰는 자동 프록시 생성기
+ *
+ * 원래는 빈마다 모든 어드바이저에 대해 AopUtils.canApply 로 모든 메서드를 리플렉션으로 검사한다.
+ * "@annotation(hello.aop.exam.annotation.Trace)", "@annotation(retry)" 처럼 색인한 애노테이션이 있어야만 매칭되는 어드바이저는
+ * 빈 클래스 계층에 그 애노테이션이 없으면 검사하지 않고 바로 뺀다.
+ * 남은 어드바이저가 없으면 메서드를 하나도 훑지 않고 프록시 대상에서 빠진다.
+ *
+ * 등록은 AnnotationIndexConfigurer 가 자동 프록시 생성기 빈 정의의 클래스를 바꿔서 한다.
+ * */
+@Slf4j
+public class IndexAwareAutoProxyCreator extends AnnotationAwareAspectJAutoProxyCreator {
+
+    private static final Pattern ANNOTATION_TERM = Pattern.compile("(@annotation|@within|@target)\\s*\\((.*)\\)", Pattern.DOTALL);
+
+    //어드바이저 -> 반드시 있어야 하는 애노테이션, 비어 있으면 색인으로 거를 수 없는 어드바이저
+    private final Map<Advisor, Set<String>> required = new ConcurrentHashMap<>();
+
+    private AnnotationIndex index;
+
+    @Override
+    protected void initBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        super.initBeanFactory(beanFactory);
+        ClassLoader classLoader = beanFactory.getBeanClassLoader();
+        this.index = AnnotationIndex.load(classLoader != null ? classLoader : getClass().getClassLoader());
+    }
+
+    @Override
+    protected List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidateAdvisors, Class<?> beanClass, String beanName) {
+        if (index == null) {
+            return super.findAdvisorsThatCanApply(candidateAdvisors, beanClass, beanName);
+        }
+
+        List<Advisor> candidates = new ArrayList<>(candidateAdvisors.size());
+        for (Advisor advisor : candidateAdvisors) {
+            if (mayApply(advisor, beanClass)) {
+                candidates.add(advisor);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        return super.findAdvisorsThatCanApply(candidates, beanClass, beanName);
+    }
+
+    private boolean mayApply(Advisor advisor, Class<?> beanClass) {
+        for (String annotation : required.computeIfAbsent(advisor, this::requiredAnnotations)) {
+            if (!index.mayCarry(beanClass, annotation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * && 로만 이어진 표현식에서 @annotation, @within, @target 에 들어간 색인한 애노테이션
+     * || 나 ! 가 있으면 없어도 매칭될 수 있으므로 거르지 않는다.
+     * */
+    private Set<String> requiredAnnotations(Advisor advisor) {
+        if (!(advisor instanceof PointcutAdvisor)
+                || !(((PointcutAdvisor) advisor).getPointcut() instanceof AspectJExpressionPointcut)) {
+            return Collections.emptySet();
+        }
+
+        AspectJExpressionPointcut pointcut = (AspectJExpressionPointcut) ((PointcutAdvisor) advisor).getPointcut();
+        String expression = pointcut.getExpression();
+        if (expression == null) {
+            return Collections.emptySet();
+        }
+
+        expression = StringUtils.replace(expression, " and ", " && ");
+        if (expression.contains(" or ") || expression.contains(" not ")
+                || expression.contains("||") || expression.contains("!")) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new HashSet<>();
+        for (String term : BindingAnalyzer.splitTopLevel(expression, "&&")) {
+            Matcher matcher = ANNOTATION_TERM.matcher(term);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String annotation = annotationName(pointcut, matcher.group(2).trim());
+            if (annotation != null && index.isIndexed(annotation)) {
+                result.add(annotation);
+            }
+        }
+        return result;
+    }
+
+    //@annotation(retry) 처럼 파라미터 이름이면 어드바이스 파라미터 타입
+    private String annotationName(AspectJExpressionPointcut pointcut, String body) {
+        if (body.contains(".")) {
+            return body;
+        }
+
+        String[] names = BindingAnalyzer.fieldOf(pointcut, "pointcutParameterNames");
+        Class<?>[] types = BindingAnalyzer.fieldOf(pointcut, "pointcutParameterTypes");
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(body)) {
+                return types[i].getName();
+            }
+        }
+        return null;
+    }
+}
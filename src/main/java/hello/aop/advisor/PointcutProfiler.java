@@ -0,0 +1,117 @@
+package hello.aop.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.aop.support.ExpressionPointcut;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 어드바이저별 포인트컷 매칭 통계를 모으는
+ *
+ * ParameterTest 의 "allMember() && args(arg,..)", this(obj), target(obj), @target(annotation) 같은 포인트컷은
+ * 메서드 시그니처만으로는 판단이 안 돼서 호출할 때마다 동적 검사를 한다.
+ * 어떤 포인트컷이 호출 경로에 비용을 얼마나 더하는지 보려고
+ * 프록시의 어드바이저를 ProfiledAdvisor 로 감싸서 정적 매칭, 동적 검사 횟수, 실패 횟수, 걸린 시간을 센다.
+ *
+ * 사용할 때만 @Import(PointcutProfiler.class) 로 등록, 결과는 GET /admin/pointcuts
+ *
+ * 자동 프록시 생성기 다음에 실행되어야 하므로 Ordered 를 구현하지 않는다.
+ * 순환 참조 때문에 미리 만들어진 프록시는 여기로 안 들어오므로 싱글톤 생성이 끝난 뒤 한 번 더 훑는다.
+ * */
+@Slf4j
+public class PointcutProfiler implements BeanPostProcessor, SmartInitializingSingleton, BeanFactoryAware {
+
+    //원래 어드바이저 -> 감싼 어드바이저, 같은 어드바이저는 여러 프록시가 공유하므로 통계도 하나
+    private final Map<Advisor, ProfiledAdvisor> profiled = new IdentityHashMap<>();
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof Advised) {
+            profile((Advised) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (bean instanceof Advised) {
+                profile((Advised) bean);
+            }
+        }
+    }
+
+    /** 동적 검사 시간이 큰 순서 */
+    public List<PointcutStats> stats() {
+        List<PointcutStats> result = new ArrayList<>();
+        synchronized (profiled) {
+            for (ProfiledAdvisor advisor : profiled.values()) {
+                result.add(advisor.getStats());
+            }
+        }
+        result.sort(Comparator.comparingLong(PointcutStats::getDynamicNanos).reversed()
+                .thenComparing(PointcutStats::getName));
+        return result;
+    }
+
+    private void profile(Advised advised) {
+        if (advised.isFrozen()) {
+            return;
+        }
+
+        for (Advisor advisor : advised.getAdvisors()) {
+            if (!(advisor instanceof PointcutAdvisor)
+                    || advisor instanceof ProfiledAdvisor
+                    || advisor == ExposeInvocationInterceptor.ADVISOR) {
+                continue;
+            }
+
+            ProfiledAdvisor replacement;
+            synchronized (profiled) {
+                replacement = profiled.computeIfAbsent(advisor, key -> {
+                    PointcutAdvisor pointcutAdvisor = (PointcutAdvisor) key;
+                    return new ProfiledAdvisor(pointcutAdvisor, new PointcutStats(nameOf(pointcutAdvisor), expressionOf(pointcutAdvisor)));
+                });
+            }
+            advised.replaceAdvisor(advisor, replacement);
+        }
+    }
+
+    private String nameOf(PointcutAdvisor advisor) {
+        if (advisor.getAdvice() instanceof AbstractAspectJAdvice) {
+            AbstractAspectJAdvice advice = (AbstractAspectJAdvice) advisor.getAdvice();
+            return advice.getAspectName() + "." + advice.getAspectJAdviceMethod().getName();
+        }
+        return advisor.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(advisor));
+    }
+
+    private String expressionOf(PointcutAdvisor advisor) {
+        if (advisor.getPointcut() instanceof ExpressionPointcut) {
+            return ((ExpressionPointcut) advisor.getPointcut()).getExpression();
+        }
+        return String.valueOf(advisor.getPointcut());
+    }
+}
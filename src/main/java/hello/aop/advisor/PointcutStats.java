@@ -0,0 +1,85 @@
+package hello.aop.advisor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 어드바이저 하나의 포인트컷 매칭 통계
+ *
+ * 정적 매칭: 프록시가 메서드별 체인을 만들 때 한 번, 메서드 시그니처만 보고 판단
+ * 동적 매칭: args(arg,..), this(obj), target(obj), @target(annotation) 처럼 실제 인수나 객체를 봐야 하는 포인트컷은
+ *           호출할 때마다 다시 검사한다. 이게 호출 경로의 비용
+ *
+ * 여러 스레드에서 동시에 올리므로 LongAdder
+ * */
+public class PointcutStats {
+
+    private final String name;
+    private final String expression;
+
+    private final LongAdder staticChecks = new LongAdder();
+    private final LongAdder staticMatches = new LongAdder();
+    private final LongAdder dynamicChecks = new LongAdder();
+    private final LongAdder dynamicFailures = new LongAdder();
+    private final LongAdder dynamicNanos = new LongAdder();
+
+    public PointcutStats(String name, String expression) {
+        this.name = name;
+        this.expression = expression;
+    }
+
+    void recordStatic(boolean matched) {
+        staticChecks.increment();
+        if (matched) {
+            staticMatches.increment();
+        }
+    }
+
+    void recordDynamic(boolean matched, long nanos) {
+        dynamicChecks.increment();
+        if (!matched) {
+            dynamicFailures.increment();
+        }
+        dynamicNanos.add(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public long getStaticChecks() {
+        return staticChecks.sum();
+    }
+
+    public long getStaticMatches() {
+        return staticMatches.sum();
+    }
+
+    public long getDynamicChecks() {
+        return dynamicChecks.sum();
+    }
+
+    public long getDynamicFailures() {
+        return dynamicFailures.sum();
+    }
+
+    public long getDynamicNanos() {
+        return dynamicNanos.sum();
+    }
+
+    //동적 검사 한 번 평균
+    public long getAvgDynamicNanos() {
+        long checks = getDynamicChecks();
+        return checks == 0 ? 0 : getDynamicNanos() / checks;
+    }
+
+    @Override
+    public String toString() {
+        return name + " static=" + getStaticMatches() + "/" + getStaticChecks()
+                + " dynamic=" + getDynamicChecks() + " failures=" + getDynamicFailures()
+                + " avg=" + getAvgDynamicNanos() + "ns";
+    }
+}
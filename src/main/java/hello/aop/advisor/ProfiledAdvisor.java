@@ -0,0 +1,123 @@
+package hello.aop.advisor;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.IntroductionAwareMethodMatcher;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+
+/**
+ * 포인트컷 매칭 횟수와 시간을 재는 어드바이저
+ * 어드바이스, 순서는 원래 어드바이저 그대로 쓰고 MethodMatcher 만 감싼다.
+ *
+ * 동적 매칭은 원래 포인트컷 객체에 그대로 위임하므로 args(arg,..) 같은 파라미터 바인딩도 그대로 동작한다.
+ * */
+class ProfiledAdvisor implements PointcutAdvisor, Ordered {
+
+    private final PointcutAdvisor delegate;
+    private final PointcutStats stats;
+    private final Pointcut pointcut;
+
+    ProfiledAdvisor(PointcutAdvisor delegate, PointcutStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+        this.pointcut = new ProfiledPointcut(delegate.getPointcut());
+    }
+
+    PointcutAdvisor getDelegate() {
+        return delegate;
+    }
+
+    PointcutStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return delegate.getAdvice();
+    }
+
+    @Override
+    public boolean isPerInstance() {
+        return delegate.isPerInstance();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate instanceof Ordered ? ((Ordered) delegate).getOrder() : Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfiledAdvisor: " + delegate;
+    }
+
+    private class ProfiledPointcut implements Pointcut {
+
+        private final Pointcut target;
+        private final MethodMatcher methodMatcher;
+
+        ProfiledPointcut(Pointcut target) {
+            this.target = target;
+            this.methodMatcher = new ProfiledMethodMatcher(target.getMethodMatcher());
+        }
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return target.getClassFilter();
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return methodMatcher;
+        }
+    }
+
+    private class ProfiledMethodMatcher implements IntroductionAwareMethodMatcher {
+
+        private final MethodMatcher target;
+
+        ProfiledMethodMatcher(MethodMatcher target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean hasIntroductions) {
+            boolean matched = target instanceof IntroductionAwareMethodMatcher
+                    ? ((IntroductionAwareMethodMatcher) target).matches(method, targetClass, hasIntroductions)
+                    : target.matches(method, targetClass);
+            stats.recordStatic(matched);
+            return matched;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            boolean matched = target.matches(method, targetClass);
+            stats.recordStatic(matched);
+            return matched;
+        }
+
+        @Override
+        public boolean isRuntime() {
+            return target.isRuntime();
+        }
+
+        //호출마다 실행되는 부분
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, Object... args) {
+            long start = System.nanoTime();
+            boolean matched = target.matches(method, targetClass, args);
+            stats.recordDynamic(matched, System.nanoTime() - start);
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package hello.aop.advisor;
+
+import hello.aop.exam.annotation.StatefulAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.target.EmptyTargetSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트래픽을 받기 전에 프록시 호출 경로를 JIT 컴파일 시켜두는
+ *
+ * 처음 수천 번의 호출은 인터프리터로 실행되고 메서드별 체인도 처음 호출할 때 만들어져서 느리다.
+ * ApplicationRunner 는 컨텍스트가 다 뜬 다음, 준비 완료(ReadinessState.ACCEPTING_TRAFFIC)를 알리기 전에 실행된다.
+ *
+ * 실제 빈을 부르면 저장이나 주문 같은 부작용이 생기므로 대역 프록시를 부른다.
+ * - 어드바이저는 실제 프록시와 같고, 맨 끝에 타겟 대신 기본값을 돌려주는 인터셉터를 붙인다.
+ * - 한도, 중복 제거, 통계, 저널, JFR 이벤트처럼 상태가 있는 애스펙트(@StatefulAspect)는 뺀다.
+ *   더 뺄 애스펙트가 있으면 warmup.skip-aspects 에 클래스 이름으로
+ * - PointcutProfiler 가 감싼 어드바이저는 원래 어드바이저로 풀어서 넣는다. 매칭 통계에 워밍업 호출이 섞이지 않도록
+ * - 인수는 타입별 기본값 (숫자 0, 문자열 "warmup", 나머지 null)
+ *
+ * 어드바이스 코드, 프록시 호출 경로(ReflectiveMethodInvocation 등)가 컴파일 되는 것이고 타겟 코드는 데워지지 않는다.
+ * warmup.batch 번씩 돌면서 평균 지연이 warmup.tolerance 안에서 warmup.stable-rounds 번 연속 비슷하면 멈춘다.
+ * warmup.max-millis 가 지나도 멈춘다.
+ * 워밍업 동안 warmup.quiet-logger 로거는 WARN 으로 낮췄다가 되돌린다.
+ *
+ * warmup.enabled=true 일 때만 등록
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class ProxyWarmup implements ApplicationRunner {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final long maxNanos;
+    private final int batch;
+    private final double tolerance;
+    private final int stableRounds;
+    private final Set<String> skipAspects;
+    private final String quietLogger;
+    private final LoggingSystem loggingSystem;
+
+    private volatile Result lastResult;
+
+    public ProxyWarmup(ConfigurableListableBeanFactory beanFactory,
+                       @Value("${warmup.max-millis:5000}") long maxMillis,
+                       @Value("${warmup.batch:200}") int batch,
+                       @Value("${warmup.tolerance:0.1}") double tolerance,
+                       @Value("${warmup.stable-rounds:3}") int stableRounds,
+                       @Value("${warmup.skip-aspects:}") String skipAspects,
+                       @Value("${warmup.quiet-logger:hello.aop}") String quietLogger,
+                       LoggingSystem loggingSystem) {
+        this.beanFactory = beanFactory;
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        this.batch = batch;
+        this.tolerance = tolerance;
+        this.stableRounds = stableRounds;
+        this.skipAspects = StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(skipAspects));
+        this.quietLogger = quietLogger;
+        this.loggingSystem = loggingSystem;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        lastResult = warmUp();
+    }
+
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    public Result warmUp() {
+        Map<String, Object> standIns = standIns();
+        List<Invocation> invocations = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : standIns.entrySet()) {
+            for (Method method : methods(AopUtils.getTargetClass(entry.getValue()))) {
+                invocations.add(new Invocation(entry.getKey(), entry.getValue(), method));
+            }
+        }
+        if (invocations.isEmpty()) {
+            return new Result(0, 0, 0, 0, 0);
+        }
+
+        //로그를 남기는 어드바이스가 워밍업 호출마다 로그를 쓰지 않도록 잠시 WARN 으로
+        LoggerConfiguration configuration = loggingSystem.getLoggerConfiguration(quietLogger);
+        LogLevel previousLevel = configuration != null ? configuration.getConfiguredLevel() : null;
+        loggingSystem.setLogLevel(quietLogger, LogLevel.WARN);
+
+        long start = System.nanoTime();
+        long first = -1;
+        long previous = -1;
+        long current = -1;
+        int stable = 0;
+        int rounds = 0;
+        try {
+            while (stable < stableRounds && System.nanoTime() - start < maxNanos) {
+                long average = round(invocations);
+                if (average < 0) {
+                    //모든 메서드가 계속 실패해서 제외됨
+                    break;
+                }
+                current = average;
+                rounds++;
+                if (first < 0) {
+                    first = current;
+                }
+                if (previous > 0 && Math.abs(current - previous) <= previous * tolerance) {
+                    stable++;
+                } else {
+                    stable = 0;
+                }
+                previous = current;
+            }
+        } finally {
+            loggingSystem.setLogLevel(quietLogger, previousLevel);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result(invocations.size(), rounds, TimeUnit.NANOSECONDS.toMillis(elapsed), first, current);
+        log.info("[warmup] beans={} methods={} rounds={} {}ms latency {}ns -> {}ns{}", standIns.size(), invocations.size(),
+                rounds, result.getDurationMillis(), first, current, stable < stableRounds ? " (안정되기 전에 시간 초과)" : "");
+        return result;
+    }
+
+    /** 모든 메서드를 batch 번씩, 실제로 부른 호출 한 번 평균, 부른 게 없으면 -1 */
+    private long round(List<Invocation> invocations) {
+        long start = System.nanoTime();
+        long calls = 0;
+        for (Invocation invocation : invocations) {
+            for (int i = 0; i < batch && invocation.active; i++) {
+                invocation.invoke();
+                calls++;
+            }
+        }
+        return calls == 0 ? -1 : (System.nanoTime() - start) / calls;
+    }
+
+    /** 빈 이름 -> 대역 프록시 */
+    private Map<String, Object> standIns() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (!(bean instanceof Advised) || !AopUtils.isAopProxy(bean)) {
+                continue;
+            }
+
+            Advised advised = (Advised) bean;
+            Class<?> targetClass = AopUtils.getTargetClass(bean);
+            ProxyFactory factory = new ProxyFactory();
+            factory.setTargetSource(EmptyTargetSource.forClass(targetClass));
+            factory.setProxyTargetClass(advised.isProxyTargetClass());
+            factory.setInterfaces(advised.getProxiedInterfaces());
+
+            int copied = 0;
+            for (Advisor advisor : advised.getAdvisors()) {
+                if (advisor instanceof ProfiledAdvisor) {
+                    advisor = ((ProfiledAdvisor) advisor).getDelegate();
+                }
+                if (!skip(advisor)) {
+                    factory.addAdvisor(advisor);
+                    copied++;
+                }
+            }
+            if (copied == 0) {
+                continue;
+            }
+            factory.addAdvice(STAND_IN);
+            result.put(beanName, factory.getProxy(ClassUtils.getDefaultClassLoader()));
+        }
+        return result;
+    }
+
+    private boolean skip(Advisor advisor) {
+        advisor = unwrap(advisor);
+        if (!(advisor.getAdvice() instanceof AbstractAspectJAdvice)) {
+            return false;
+        }
+        Class<?> aspectClass = ((AbstractAspectJAdvice) advisor.getAdvice()).getAspectJAdviceMethod().getDeclaringClass();
+        return aspectClass.isAnnotationPresent(StatefulAspect.class) || skipAspects.contains(aspectClass.getSimpleName());
+    }
+
+    /**
+     * PointcutProfiler, StaticBindingOptimizer, AdvisorSwitchboard 가 감싼 어드바이저에서 원래 AspectJ 어드바이저를 꺼낸다
+     * 여러 겹으로 감쌀 수 있어서 더 벗길 게 없을 때까지
+     * */
+    private static Advisor unwrap(Advisor advisor) {
+        while (true) {
+            if (advisor instanceof ProfiledAdvisor) {
+                advisor = ((ProfiledAdvisor) advisor).getDelegate();
+            } else if (advisor instanceof StaticBindingAdvisor) {
+                advisor = ((StaticBindingAdvisor) advisor).getDelegate();
+            } else if (advisor instanceof SwitchableAdvisor) {
+                advisor = ((SwitchableAdvisor) advisor).getOriginal();
+            } else {
+                return advisor;
+            }
+        }
+    }
+
+    private static List<Method> methods(Class<?> type) {
+        List<Method> result = new ArrayList<>();
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(type, ReflectionUtils.USER_DECLARED_METHODS)) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+                    && method.getDeclaringClass() != Object.class) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    //타겟을 부르지 않고 반환 타입의 기본값을 돌려준다
+    private static final MethodInterceptor STAND_IN = invocation -> defaultValue(invocation.getMethod().getReturnType());
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == String.class) {
+            return "warmup";
+        }
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        return ReflectionUtils.invokeMethod(ReflectionUtils.findMethod(ClassUtils.resolvePrimitiveIfNecessary(type),
+                "valueOf", String.class), null, "0");
+    }
+
+    private static class Invocation {
+
+        private final String beanName;
+        private final Object proxy;
+        private final Method method;
+        private final Object[] args;
+        private int failures;
+        private boolean active = true;
+
+        Invocation(String beanName, Object proxy, Method method) {
+            this.beanName = beanName;
+            this.proxy = proxy;
+            this.method = method;
+            Class<?>[] types = method.getParameterTypes();
+            this.args = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                args[i] = defaultValue(types[i]);
+            }
+        }
+
+        void invoke() {
+            try {
+                method.invoke(proxy, args);
+            } catch (Exception e) {
+                //기본값 인수로는 계속 실패하는 메서드는 그만 부른다
+                if (++failures >= 10) {
+                    active = false;
+                    log.debug("[warmup] {}.{} 제외: {}", beanName, method.getName(), e.toString());
+                }
+            }
+        }
+    }
+
+    /** 워밍업 결과, 지연은 호출 한 번 평균 */
+    public static class Result {
+
+        private final int methods;
+        private final int rounds;
+        private final long durationMillis;
+        private final long firstRoundNanos;
+        private final long lastRoundNanos;
+
+        Result(int methods, int rounds, long durationMillis, long firstRoundNanos, long lastRoundNanos) {
+            this.methods = methods;
+            this.rounds = rounds;
+            this.durationMillis = durationMillis;
+            this.firstRoundNanos = firstRoundNanos;
+            this.lastRoundNanos = lastRoundNanos;
+        }
+
+        public int getMethods() {
+            return methods;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getFirstRoundNanos() {
+            return firstRoundNanos;
+        }
+
+        public long getLastRoundNanos() {
+            return lastRoundNanos;
+        }
+    }
+}
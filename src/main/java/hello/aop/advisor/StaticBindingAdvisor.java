@@ -0,0 +1,166 @@
+package hello.aop.advisor;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 프록시 하나에 대해 동적 포인트컷 검사를 생략하는 어드바이저
+ *
+ * 포인트컷은 정적 매칭만 원래 포인트컷에 맡기고 isRuntime() 은 false 라서
+ * 스프링이 호출마다 포인트컷 검사를 하지 않는다.
+ * 대신 어드바이스 앞에서 메서드별로 미리 만든 BindingPlan 으로 파라미터만 채워주고 원래 인터셉터를 호출한다.
+ *
+ * 미리 확정하지 못한 메서드는 원래 포인트컷으로 동적 검사를 해서 결과도 그대로다.
+ * this(obj) 는 프록시마다 답이 다를 수 있어서 어드바이저는 프록시마다 따로 만든다.
+ * */
+class StaticBindingAdvisor implements PointcutAdvisor, Ordered {
+
+    private final PointcutAdvisor delegate;
+    private final Pointcut pointcut;
+    private final StaticBindingInterceptor interceptor;
+
+    StaticBindingAdvisor(PointcutAdvisor delegate, MethodInterceptor interceptor, BindingAnalyzer analyzer,
+                         Class<?> targetClass, Object proxy) {
+        this.delegate = delegate;
+        this.pointcut = new StaticPointcut(delegate.getPointcut());
+        this.interceptor = new StaticBindingInterceptor(interceptor, analyzer,
+                (AspectJExpressionPointcut) delegate.getPointcut(), targetClass, proxy);
+    }
+
+    PointcutAdvisor getDelegate() {
+        return delegate;
+    }
+
+    /** targetClass 의 메서드 중 동적 검사를 생략할 수 있는 메서드 수 */
+    int prepare(Iterable<Method> methods) {
+        int count = 0;
+        for (Method method : methods) {
+            if (delegate.getPointcut().getMethodMatcher().matches(method, interceptor.targetClass)
+                    && interceptor.planOf(method) != StaticBindingInterceptor.DYNAMIC) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+
+    @Override
+    public boolean isPerInstance() {
+        return delegate.isPerInstance();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate instanceof Ordered ? ((Ordered) delegate).getOrder() : Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public String toString() {
+        return "StaticBindingAdvisor: " + delegate;
+    }
+
+    private static class StaticPointcut implements Pointcut, MethodMatcher {
+
+        private final Pointcut target;
+
+        StaticPointcut(Pointcut target) {
+            this.target = target;
+        }
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return target.getClassFilter();
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return target.getMethodMatcher().matches(method, targetClass);
+        }
+
+        @Override
+        public boolean isRuntime() {
+            return false;
+        }
+
+        //isRuntime() 이 false 라 스프링은 부르지 않지만, 직접 부르는 쪽을 위해 정적 매칭과 같은 답
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, Object... args) {
+            return matches(method, targetClass);
+        }
+    }
+
+    private static class StaticBindingInterceptor implements MethodInterceptor {
+
+        //미리 확정하지 못한 메서드 표시
+        private static final BindingPlan DYNAMIC = new BindingPlan(Collections.emptyList());
+
+        private final MethodInterceptor target;
+        private final BindingAnalyzer analyzer;
+        private final AspectJExpressionPointcut pointcut;
+        private final String expression;
+        private final Class<?> targetClass;
+        private final Object proxy;
+        private final Map<Method, BindingPlan> plans = new ConcurrentHashMap<>();
+
+        StaticBindingInterceptor(MethodInterceptor target, BindingAnalyzer analyzer,
+                                 AspectJExpressionPointcut pointcut, Class<?> targetClass, Object proxy) {
+            this.target = target;
+            this.analyzer = analyzer;
+            this.pointcut = pointcut;
+            this.expression = pointcut.getExpression();
+            this.targetClass = targetClass;
+            this.proxy = proxy;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            BindingPlan plan = planOf(invocation.getMethod());
+            if (plan == DYNAMIC) {
+                if (!pointcut.matches(invocation.getMethod(), targetClass, invocation.getArguments())) {
+                    return invocation.proceed();
+                }
+                return target.invoke(invocation);
+            }
+
+            plan.bind(invocation, expression);
+            return target.invoke(invocation);
+        }
+
+        private BindingPlan planOf(Method method) {
+            BindingPlan plan = plans.get(method);
+            if (plan == null) {
+                plan = plans.computeIfAbsent(method, key -> {
+                    BindingPlan created = analyzer.plan(key, targetClass, proxy);
+                    return created != null ? created : DYNAMIC;
+                });
+            }
+            return plan;
+        }
+    }
+}
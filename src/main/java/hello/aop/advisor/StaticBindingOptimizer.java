@@ -0,0 +1,152 @@
+package hello.aop.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.InstantiationModelAwarePointcutAdvisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.adapter.GlobalAdvisorAdapterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * args(), this(), target(), @target(), @within(), @annotation() 바인딩을 프록시 생성 시점에 미리 풀어두는
+ *
+ * ParameterTest 의 어드바이스들은 포인트컷이 동적이라 호출마다 AspectJ 로 다시 매칭하고 파라미터를 꺼낸다.
+ * 그런데 대부분은 메서드 시그니처만 봐도 답이 정해져 있다.
+ * ex) hello(String param) 에 args(arg,..) 는 항상 첫 번째 인자, target(obj) 는 항상 그 빈
+ *
+ * 이런 메서드는 StaticBindingAdvisor 로 바꿔서 동적 검사 없이 바로 바인딩 하고,
+ * ArgsTest 처럼 실제 값의 타입을 봐야 하는 경우나 ThisTargetTest 의 JDK 프록시에 this(구현 클래스) 같은 경우는
+ * 원래대로 동적 검사를 한다.
+ *
+ * 사용할 때만 @Import(StaticBindingOptimizer.class) 로 등록
+ * PointcutProfiler 와 같은 이유로 Ordered 를 구현하지 않고, 싱글톤 생성이 끝난 뒤 한 번 더 훑는다.
+ *
+ * 참고
+ * - 대상이 바뀔 수 있는 프록시(HotSwappableTargetSource 등)는 건드리지 않는다.
+ * - AdvisorSwitchboard 가 감싼 어드바이저는 포인트컷이 AspectJ 표현식이 아니라서 바꾸지 않는다. 같이 쓰지 않는다.
+ * - PointcutProfiler 와 같이 쓰면 먼저 실행된 쪽이 감싼다.
+ * */
+@Slf4j
+public class StaticBindingOptimizer implements BeanPostProcessor, SmartInitializingSingleton, BeanFactoryAware {
+
+    //어드바이저 -> 분석 결과, 같은 어드바이저는 여러 프록시가 공유하므로 한 번만 분석
+    private final Map<Advisor, Optional<BindingAnalyzer>> analyzers = new IdentityHashMap<>();
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof Advised) {
+            optimize((Advised) bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (bean instanceof Advised) {
+                optimize((Advised) bean);
+            }
+        }
+    }
+
+    /**
+     * 프록시의 동적 어드바이저를 바꾼다.
+     * @return 바꾼 어드바이저 수
+     * */
+    public int optimize(Advised advised) {
+        if (advised.isFrozen() || !advised.getTargetSource().isStatic()) {
+            return 0;
+        }
+
+        Class<?> targetClass = advised.getTargetSource().getTargetClass();
+        if (targetClass == null) {
+            return 0;
+        }
+
+        List<Method> methods = methodsOf(advised, targetClass);
+        int replaced = 0;
+        for (Advisor advisor : advised.getAdvisors()) {
+            BindingAnalyzer analyzer = analyzerOf(advisor);
+            if (analyzer == null) {
+                continue;
+            }
+
+            MethodInterceptor interceptor = GlobalAdvisorAdapterRegistry.getInstance().getInterceptors(advisor)[0];
+            StaticBindingAdvisor replacement =
+                    new StaticBindingAdvisor((PointcutAdvisor) advisor, interceptor, analyzer, targetClass, advised);
+
+            //하나도 확정하지 못하면 한 번 더 감쌀 이유가 없다
+            if (replacement.prepare(methods) == 0) {
+                continue;
+            }
+            advised.replaceAdvisor(advisor, replacement);
+            replaced++;
+        }
+
+        if (replaced > 0) {
+            log.debug("[static binding] {} advisors={}", targetClass.getSimpleName(), replaced);
+        }
+        return replaced;
+    }
+
+    private BindingAnalyzer analyzerOf(Advisor advisor) {
+        if (!(advisor instanceof PointcutAdvisor)
+                || !(advisor.getAdvice() instanceof AbstractAspectJAdvice)
+                || !(((PointcutAdvisor) advisor).getPointcut() instanceof AspectJExpressionPointcut)) {
+            return null;
+        }
+        //perthis 같은 지연 생성 애스펙트는 제외
+        if (advisor instanceof InstantiationModelAwarePointcutAdvisor
+                && ((InstantiationModelAwarePointcutAdvisor) advisor).isLazy()) {
+            return null;
+        }
+
+        AspectJExpressionPointcut pointcut = (AspectJExpressionPointcut) ((PointcutAdvisor) advisor).getPointcut();
+        if (!pointcut.isRuntime()) {
+            return null;
+        }
+
+        synchronized (analyzers) {
+            return analyzers.computeIfAbsent(advisor, key -> {
+                Class<?> aspectClass = ((AbstractAspectJAdvice) key.getAdvice()).getAspectJAdviceMethod().getDeclaringClass();
+                return Optional.ofNullable(BindingAnalyzer.of(pointcut, aspectClass, beanFactory));
+            }).orElse(null);
+        }
+    }
+
+    //프록시로 호출될 수 있는 메서드, 여기서 빠진 메서드는 첫 호출 때 분석한다
+    private List<Method> methodsOf(Advised advised, Class<?> targetClass) {
+        List<Method> methods = new ArrayList<>(Arrays.asList(ReflectionUtils.getUniqueDeclaredMethods(targetClass)));
+        for (Class<?> proxiedInterface : advised.getProxiedInterfaces()) {
+            methods.addAll(Arrays.asList(proxiedInterface.getMethods()));
+        }
+        methods.removeIf(method -> method.getDeclaringClass() == Object.class);
+        return methods;
+    }
+}
@@ -0,0 +1,168 @@
+package hello.aop.advisor;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AdvisorSwitchboard 가 프록시를 만들 때 원래 어드바이저 자리에 한 번 넣어두는 어드바이저
+ *
+ * 체인에는 항상 들어있고, 호출할 때 지금 상태(State)를 보고 어드바이스를 실행할지 정한다.
+ * 상태는 바꾸지 않는 객체로 만들어서 volatile 필드 하나로 통째로 바꾼다.
+ * 그래서 끄기, 켜기, 포인트컷 교체가 프록시의 어드바이저 목록이나 체인 캐시를 건드리지 않는다.
+ *
+ * 체인에는 원래 포인트컷이 정적으로 걸던 메서드에만 들어간다. 상관없는 메서드는 이 어드바이저를 거치지 않는다.
+ * 그래서 포인트컷을 교체할 때 원래보다 넓힐 수는 없다. (AdvisorSwitchboard 가 막는다)
+ * 들어간 메서드에서는 꺼져 있어도 호출마다 동적 검사 한 번(상태 volatile 읽기, 캐시 조회)은 한다.
+ * 어드바이저 목록에서 빼지 않는 대신 치르는 비용
+ *
+ * 지금 포인트컷의 정적 매칭 결과는 상태마다 (대상 클래스, 메서드) 별로 캐시한다. 포인트컷을 바꾸면 새 상태와 함께 새 캐시
+ * args(arg,..) 처럼 원래 동적인 포인트컷은 지금 포인트컷에 그대로 위임하므로 파라미터 바인딩도 그대로 동작한다.
+ * */
+class SwitchableAdvisor implements PointcutAdvisor, Ordered {
+
+    private final Advisor original;
+    private final Pointcut originalPointcut;
+    private final Pointcut pointcut = new SwitchPointcut();
+
+    private volatile State state;
+
+    SwitchableAdvisor(Advisor original, State state) {
+        this.original = original;
+        this.originalPointcut = ((PointcutAdvisor) original).getPointcut();
+        this.state = state;
+    }
+
+    Advisor getOriginal() {
+        return original;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return original.getAdvice();
+    }
+
+    @Override
+    public boolean isPerInstance() {
+        return original.isPerInstance();
+    }
+
+    @Override
+    public int getOrder() {
+        return original instanceof Ordered ? ((Ordered) original).getOrder() : Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public String toString() {
+        return "SwitchableAdvisor: " + original;
+    }
+
+    /** 켜짐 여부와 지금 포인트컷, 만든 뒤에는 바꾸지 않는다 */
+    static final class State {
+
+        private final boolean enabled;
+        private final String expression;
+        private final Pointcut pointcut;
+        private final boolean runtime;
+
+        //대상 클래스 -> 메서드 -> 정적 매칭 결과
+        private final Map<Class<?>, Map<Method, Boolean>> matches = new ConcurrentHashMap<>();
+
+        State(boolean enabled, String expression, Pointcut pointcut) {
+            this.enabled = enabled;
+            this.expression = expression;
+            this.pointcut = pointcut;
+            this.runtime = pointcut.getMethodMatcher().isRuntime();
+        }
+
+        boolean isEnabled() {
+            return enabled;
+        }
+
+        String getExpression() {
+            return expression;
+        }
+
+        Pointcut getPointcut() {
+            return pointcut;
+        }
+
+        State withEnabled(boolean enabled) {
+            return new State(enabled, expression, pointcut);
+        }
+
+        boolean matches(Method method, Class<?> targetClass, Object[] args) {
+            if (!enabled) {
+                return false;
+            }
+            Map<Method, Boolean> byMethod = matches.get(targetClass);
+            if (byMethod == null) {
+                byMethod = matches.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+            }
+            Boolean matched = byMethod.get(method);
+            if (matched == null) {
+                matched = pointcut.getClassFilter().matches(targetClass)
+                        && pointcut.getMethodMatcher().matches(method, targetClass);
+                byMethod.put(method, matched);
+            }
+            if (!matched) {
+                return false;
+            }
+            return !runtime || pointcut.getMethodMatcher().matches(method, targetClass, args);
+        }
+    }
+
+    /**
+     * 정적으로는 원래 포인트컷이 거는 메서드에만 붙고, 호출할 때 지금 상태로 판단한다.
+     * 교체한 포인트컷은 원래보다 좁거나 같으므로 빠지는 메서드가 없다.
+     * */
+    private class SwitchPointcut implements Pointcut, MethodMatcher {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return originalPointcut.getClassFilter();
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return originalPointcut.getMethodMatcher().matches(method, targetClass);
+        }
+
+        @Override
+        public boolean isRuntime() {
+            return true;
+        }
+
+        //호출마다 실행되는 부분
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, Object... args) {
+            return state.matches(method, targetClass, args);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package hello.aop.exam;
 
+import hello.aop.exam.annotation.RateLimit;
 import hello.aop.exam.annotation.Retry;
 import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.retry.RetryableException;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -23,15 +26,20 @@ public class ExamRepository {
      * 기본값 변경, 원래 3이였음
      *
      * 이 메서드에서 문제가 발생하면 4번 재시도
+     *
+     * 몰려오는 요청은 초당 200번, 한 번에 50번까지만 받는다 (RateLimitAspect)
      */
     @Trace
     @Retry(value = 4)
+    @RateLimit(permits = 200, burst = 50)
     public String save(String itemId) {
+        //진입점(@Timeout) 데드라인이 이미 지났으면 저장하지 않는다
+        DeadlineContext.check("ExamRepository.save");
         seq++;
 
-        //5로 나누어 떨어지면 예외 발생
+        //5로 나누어 떨어지면 예외 발생, 재시도하면 성공하는 실패라 스택 없는 예외로
         if (seq % 5 == 0) {
-            throw new IllegalStateException("예외 발생");
+            throw new RetryableException("예외 발생");
         }
 
         return "ok";
@@ -1,5 +1,6 @@
 package hello.aop.exam;
 
+import hello.aop.exam.annotation.Timeout;
 import hello.aop.exam.annotation.Trace;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,9 @@ public class ExamService {
     private final ExamRepository examRepository;
 
     //메서드 호출 정보를 AOP를 사용해서 로그로 남길 수 있다.
+    //진입점, 재시도를 포함해서 이 시간 안에 끝나야 한다 (TimeoutAspect)
     @Trace
+    @Timeout(1000)
     public void request(String itemId) {
         examRepository.save(itemId);
     }
@@ -0,0 +1,26 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @AdaptiveLimit 가 붙은 메서드는 동시에 실행되는 호출 수를 응답 시간을 보고 스스로 조절한다.
+ * 한도를 넘는 호출은 maxWaitMillis 만큼 기다리고, 그래도 자리가 없으면 LimitExceededException
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdaptiveLimit {
+
+    int initialLimit() default 20;
+
+    int minLimit() default 1;
+
+    int maxLimit() default 200;
+
+    //0 이면 기다리지 않고 바로 거절
+    long maxWaitMillis() default 0;
+}
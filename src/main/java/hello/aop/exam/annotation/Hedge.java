@@ -0,0 +1,29 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Hedge 가 붙은 메서드는 첫 호출이 늦어지면 같은 호출을 한 번 더 보내고 먼저 성공한 결과를 쓴다.
+ * 여러 번 호출해도 결과가 같은 조회 메서드에만 붙여야 한다.
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedge {
+
+    //최근 응답 시간의 이 백분위를 넘으면 한 번 더 보낸다
+    double percentile() default 95;
+
+    //응답 시간이 충분히 쌓이기 전에 쓰는 대기 시간
+    long initialDelayMillis() default 50;
+
+    //너무 짧게 기다리지 않도록
+    long minDelayMillis() default 1;
+
+    //전체 호출 중 추가 호출을 보낼 수 있는 비율(%), 느려진 서버에 부하를 두 배로 주지 않도록
+    int maxPercent() default 10;
+}
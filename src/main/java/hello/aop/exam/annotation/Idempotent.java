@@ -0,0 +1,25 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Idempotent 가 붙은 메서드는 windowMillis 안에 같은 키로 다시 호출되면 실행하지 않고 처음 결과를 돌려준다.
+ * 클라이언트가 재시도해도 주문이 두 번 생기지 않도록
+ *
+ * key 는 인수로 만든 SpEL 표현식, 비어 있으면 인수 전체
+ * 키가 null 이면 호출하지 않고 IllegalArgumentException
+ * 예외로 끝난 호출은 기록하지 않는다. 다시 시도할 수 있어야 하므로
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    String key() default "";
+
+    long windowMillis() default 60_000;
+}
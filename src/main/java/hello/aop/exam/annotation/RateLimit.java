@@ -0,0 +1,31 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @RateLimit 이 붙은 메서드는 periodMillis 마다 permits 번까지만 호출할 수 있다.
+ * 넘으면 기다리지 않고 RateLimitExceededException
+ *
+ * key 에 인수로 만든 SpEL 표현식을 주면 키마다 따로 센다.
+ * ex) @RateLimit(permits = 10, key = "#itemId")
+ * 키가 null 이면 호출하지 않고 IllegalArgumentException
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    int permits();
+
+    long periodMillis() default 1000;
+
+    //한 번에 몰려도 허용하는 호출 수, 0 이면 permits 와 같다
+    int burst() default 0;
+
+    //비어 있으면 메서드 전체에 한도 하나
+    String key() default "";
+}
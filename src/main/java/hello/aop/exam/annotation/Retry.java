@@ -1,11 +1,16 @@
 package hello.aop.exam.annotation;
 
+import hello.aop.exam.retry.ResultPredicate;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /** @Retry 애노테이션이 있으면 예외가 발생했을 때 다시 시도해서 문제를 복구
+ *
+ * 다시 해도 안 될 예외까지 재시도하면 시도 횟수와 시간만 버리므로 재시도할 예외를 고를 수 있다.
+ * ex) @Retry(value = 4, include = IllegalStateException.class, exclude = DeadlineExceededException.class)
  *
  * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
  * */
@@ -15,4 +20,14 @@ public @interface Retry {
 
     //이 애노테이션에는 재시도 횟수로 사용할 값이 있다. 기본값으로 3
     int value() default 3;
+
+    //이 예외(하위 타입 포함)만 재시도, 비어 있으면 모든 Exception
+    //Error 는 재시도하지 않으므로 Exception 하위 타입만 받는다
+    Class<? extends Exception>[] include() default {};
+
+    //이 예외(하위 타입 포함)는 재시도하지 않고 바로 던진다, include 보다 우선
+    Class<? extends Exception>[] exclude() default {};
+
+    //예외 없이 끝나도 이 중 하나가 true 면 재시도, 마지막 시도의 결과는 그대로 반환
+    Class<? extends ResultPredicate>[] retryOnResult() default {};
 }
@@ -0,0 +1,27 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @SerializeOn 이 붙은 메서드는 key 가 같은 호출끼리 한 번에 하나씩 실행된다.
+ * key 가 다른 호출은 (스트라이프가 겹치지 않으면) 동시에 실행된다.
+ * ex) @SerializeOn(key = "#itemId")
+ *
+ * fair = true 면 기다린 순서대로 실행, 처리량은 조금 떨어진다
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SerializeOn {
+
+    String key();
+
+    boolean fair() default false;
+
+    //락 개수, 2의 거듭제곱으로 올림
+    int stripes() default 256;
+}
@@ -0,0 +1,24 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * SlowCallAspect 의 느린 호출 기준을 메서드마다 따로 정할 때
+ * 기본 대상 패키지 밖의 메서드도 이걸 붙이면 잰다.
+ * 붙이지 않으면 slowcall.threshold-millis, 그것도 0 이면 최근 응답 시간의 slowcall.percentile 백분위
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SlowCall {
+
+    //이 시간을 넘으면 느린 호출, 0 이면 백분위로
+    long thresholdMillis() default 0;
+
+    //thresholdMillis 가 0 일 때 쓰는 백분위
+    double percentile() default 99;
+}
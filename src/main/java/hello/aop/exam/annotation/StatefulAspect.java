@@ -0,0 +1,20 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 실행하면 공유 상태나 바깥에 남는 기록이 바뀌는 애스펙트
+ * ex) 한도, 중복 제거, 락, 통계, 저널, JFR 이벤트
+ *
+ * ProxyWarmup 은 이 애노테이션이 붙은 애스펙트를 대역 프록시에 넣지 않는다.
+ * 워밍업 호출이 실제 트래픽의 한도를 쓰거나 통계, 기록에 섞이면 안 되므로
+ *
+ * @Target(ElementType.TYPE) @Aspect 클래스에 붙일 수 있는
+ * */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatefulAspect {
+}
@@ -0,0 +1,21 @@
+package hello.aop.exam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Timeout 이 붙은 메서드는 호출 시점부터 value 밀리초 안에 끝나야 한다.
+ * 이 시간(데드라인)은 안에서 호출하는 메서드, 실행기로 넘긴 작업까지 이어진다. (DeadlineContext)
+ * 이미 더 짧은 데드라인 안에서 호출되면 짧은 쪽을 따른다.
+ *
+ * @Target(ElementType.METHOD) 메서드에 붙일 수 있는
+ * */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+
+    //밀리초
+    long value();
+}
@@ -0,0 +1,82 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.AdaptiveLimit;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.limit.GradientLimiter;
+import hello.aop.exam.limit.LimitExceededException;
+import hello.aop.jfr.LimitDecisionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @AdaptiveLimit 어드바이저, 고정 크기 벌크헤드 대신 응답 시간을 보고 동시 실행 수를 조절하는
+ *
+ * 메서드마다 GradientLimiter 하나, 자리를 얻으면 실행하고 끝나면 응답 시간을 알려준다.
+ * 자리가 없으면 maxWaitMillis 동안 기다리고 그래도 없으면 LimitExceededException
+ *
+ * 한도, 실행 중인 호출 수, 거절 비율은 GET /admin/limits
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+public class AdaptiveLimitAspect {
+
+    //메서드 -> 리미터
+    private final Map<Method, GradientLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(adaptiveLimit)")
+    public Object doLimit(ProceedingJoinPoint joinPoint, AdaptiveLimit adaptiveLimit) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        GradientLimiter limiter = limiters.get(method);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(method, key -> new GradientLimiter(joinPoint.getSignature().toShortString(),
+                    adaptiveLimit.initialLimit(), adaptiveLimit.minLimit(), adaptiveLimit.maxLimit()));
+        }
+
+        boolean acquired = limiter.acquire(TimeUnit.MILLISECONDS.toNanos(adaptiveLimit.maxWaitMillis()));
+
+        //JFR 녹화 중일 때만
+        LimitDecisionEvent event = new LimitDecisionEvent();
+        if (event.isEnabled()) {
+            event.limiter = "adaptive";
+            event.signature = limiter.getName();
+            event.accepted = acquired;
+            event.limit = limiter.getLimit();
+            event.inFlight = limiter.getInFlight();
+            event.commit();
+        }
+
+        if (!acquired) {
+            log.debug("[limit] {} 거절 limit={}", limiter.getName(), limiter.getLimit());
+            throw new LimitExceededException("동시 실행 한도 초과: " + limiter.getName() + " limit=" + limiter.getLimit());
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            limiter.release(System.nanoTime() - start, success);
+        }
+    }
+
+    /** 이름 순서 */
+    public List<GradientLimiter> limiters() {
+        List<GradientLimiter> result = new ArrayList<>(limiters.values());
+        result.sort(Comparator.comparing(GradientLimiter::getName));
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package hello.aop.exam.aop;
+
+/**
+ * 같은 메서드에 같이 붙는 애스펙트들의 실행 순서, 숫자가 작을수록 바깥
+ *
+ * ex) @Timeout @Idempotent @SerializeOn 을 모두 붙인 메서드
+ * Timeout -> Idempotent -> SerializeOn -> 메서드
+ * - Timeout 이 가장 바깥이어야 안쪽의 락 대기, 중복 호출 결과 대기까지 데드라인에 들어간다.
+ * - Idempotent 가 SerializeOn 바깥이어야 이미 처리한 키는 락을 잡지 않고 바로 돌려준다.
+ * - Hedge 는 그 안쪽, Hedge 안쪽 어드바이스는 시도마다 따로 실행된다.
+ *
+ * SlowCallAspect 는 이 애스펙트들까지 포함한 시간을 재야 하므로 Ordered.HIGHEST_PRECEDENCE
+ * 순서가 없는 애스펙트(@Retry 등)는 Ordered.LOWEST_PRECEDENCE 라서 이것들보다 안쪽
+ * */
+public final class AspectOrder {
+
+    public static final int TIMEOUT = 100;
+    public static final int IDEMPOTENT = 200;
+    public static final int SERIALIZE_ON = 300;
+    public static final int HEDGE = 400;
+
+    private AspectOrder() {
+    }
+}
@@ -0,0 +1,80 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.calltree.CallNode;
+import hello.aop.exam.calltree.CallTreeRecorder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService -> OrderRepository, ExamService -> ExamRepository 호출 경로를 호출 트리로 모으는
+ * 외부 프로파일러 없이 어디서 시간을 쓰는지 보려고
+ *
+ * 스레드별 트리는 calltree.publish-millis 마다 넘기고, 같은 주기로 합친다.
+ * 플레임 그래프용 collapsed stack 은 GET /admin/calltree?metric=time|count
+ * */
+@Aspect
+@StatefulAspect
+public class CallTreeAspect implements DisposableBean {
+
+    private final CallTreeRecorder recorder;
+    private final ScheduledExecutorService merger;
+
+    //메서드 -> 프레임 이름, 매번 시그니처 문자열을 만들지 않도록
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    public CallTreeAspect(@Value("${calltree.publish-millis:1000}") long publishMillis) {
+        this.recorder = new CallTreeRecorder(publishMillis, TimeUnit.MILLISECONDS);
+        this.merger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "calltree-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(publishMillis, 100);
+        merger.scheduleWithFixedDelay(recorder::merge, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Around("hello.aop.order.aop.Pointcuts.orderAndExam()")
+    public Object doRecord(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = names.get(method);
+        if (name == null) {
+            name = names.computeIfAbsent(method, key -> joinPoint.getSignature().toShortString());
+        }
+
+        CallTreeRecorder.Frame frame = recorder.enter(name);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            recorder.exit(frame);
+        }
+    }
+
+    public CallNode snapshot() {
+        return recorder.snapshot();
+    }
+
+    public String collapsed(String metric) {
+        return recorder.collapsed(metric);
+    }
+
+    public void reset() {
+        recorder.reset();
+    }
+
+    @Override
+    public void destroy() {
+        merger.shutdownNow();
+    }
+}
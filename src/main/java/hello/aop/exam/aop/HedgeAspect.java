@@ -0,0 +1,268 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Hedge;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.latency.LatencyWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Hedge 어드바이저, 느린 호출 하나가 p99 를 끌어올리는 걸 막는
+ *
+ * 첫 번째 호출을 실행기에 보내고 최근 응답 시간의 백분위(@Hedge percentile) 만큼 기다린다.
+ * 그때까지 응답이 없으면 같은 호출을 한 번 더 보내고 먼저 성공한 결과를 반환, 나머지는 interrupt 로 취소한다.
+ *
+ * 추가 호출은 전체 호출의 maxPercent 까지만 보낸다.
+ * 한도를 다 쓴 상태에서는 실행기를 거치지 않고 호출한 스레드에서 그대로 실행한다.
+ *
+ * 실행기로 넘기는 호출에도 지금 데드라인(@Timeout)을 같이 넘긴다.
+ *
+ * 같은 호출을 두 번 진행해야 하므로 MethodInvocation 을 복제해서 실행하고,
+ * 다른 스레드에서도 뒤쪽 어드바이스가 JoinPoint 를 찾을 수 있게 ExposeInvocationInterceptor 를 거쳐 실행한다.
+ * invocableClone() 은 userAttributes 를 원본과 같이 쓰므로, 그대로 두면 두 시도가 HashMap 하나에
+ * 동시에 쓰고 뒤쪽 어드바이스가 캐시한 JoinPoint, 인자 바인딩(JoinPointMatch)을 서로 가져간다.
+ * 그래서 시도마다 자기 userAttributes 를 가진 AttemptInvocation 으로 감싸서 실행한다.
+ *
+ * 실행기 스레드 수는 application.properties
+ * hedge.threads=16
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+@Order(AspectOrder.HEDGE)
+public class HedgeAspect implements DisposableBean {
+
+    private final ExecutorService executor;
+
+    //메서드 -> 응답 시간, 호출 수
+    private final Map<Method, HedgeState> states = new ConcurrentHashMap<>();
+
+    public HedgeAspect(@Value("${hedge.threads:16}") int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "hedge-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Around("@annotation(hedge)")
+    public Object doHedge(ProceedingJoinPoint joinPoint, Hedge hedge) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        HedgeState state = states.get(method);
+        if (state == null) {
+            state = states.computeIfAbsent(method, key -> new HedgeState());
+        }
+        state.calls.increment();
+
+        //추가 호출을 보낼 수 없으면 실행기를 거칠 이유가 없다
+        if (!state.canHedge(hedge)) {
+            long start = System.nanoTime();
+            Object result = joinPoint.proceed();
+            state.latency.record(System.nanoTime() - start);
+            return result;
+        }
+
+        MethodInvocation invocation = ExposeInvocationInterceptor.currentInvocation();
+        CompletionService<Object> completion = new ExecutorCompletionService<>(DeadlineContext.wrap(executor));
+        Future<Object> primary = completion.submit(attempt(invocation, state));
+        Future<Object> hedged = null;
+        try {
+            Future<Object> done = completion.poll(state.delayNanos(hedge), TimeUnit.NANOSECONDS);
+            if (done == null && state.tryHedge(hedge)) {
+                log.info("[hedge] {} 추가 호출", joinPoint.getSignature());
+                hedged = completion.submit(attempt(invocation, state));
+            }
+            if (done == null) {
+                done = completion.take();
+            }
+
+            try {
+                return done.get();
+            } catch (ExecutionException e) {
+                //먼저 끝난 쪽이 실패해도 다른 쪽이 아직 진행 중이면 기다린다
+                if (hedged == null) {
+                    throw e.getCause();
+                }
+                try {
+                    return completion.take().get();
+                } catch (ExecutionException second) {
+                    throw e.getCause();
+                }
+            }
+        } finally {
+            primary.cancel(true);
+            if (hedged != null) {
+                hedged.cancel(true);
+            }
+        }
+    }
+
+    private Callable<Object> attempt(MethodInvocation invocation, HedgeState state) {
+        MethodInvocation clone = new AttemptInvocation(((ProxyMethodInvocation) invocation).invocableClone());
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return ExposeInvocationInterceptor.INSTANCE.invoke(clone);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            } finally {
+                //취소된 쪽은 응답 시간에 넣지 않는다
+                if (!Thread.currentThread().isInterrupted()) {
+                    state.latency.record(System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    /** 메서드별 추가 호출 수 */
+    public long hedgeCount(Method method) {
+        HedgeState state = states.get(method);
+        return state == null ? 0 : state.hedges.sum();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 시도 하나의 MethodInvocation, 진행은 복제본에 맡기고 userAttributes 만 따로 가진다.
+     * ExposeInvocationInterceptor 가 이걸 currentInvocation 으로 노출하므로
+     * 뒤쪽 어드바이스의 JoinPoint, 인자 바인딩은 시도마다 따로 만들어지고 한 스레드에서만 쓰인다.
+     * */
+    private static class AttemptInvocation implements ProxyMethodInvocation {
+
+        private final ProxyMethodInvocation delegate;
+        private final Map<String, Object> userAttributes;
+
+        AttemptInvocation(MethodInvocation delegate) {
+            this(delegate, new HashMap<>());
+        }
+
+        //@Around 가 proceed 할 때 만드는 복제본은 원래처럼 같은 시도의 userAttributes 를 같이 쓴다
+        private AttemptInvocation(MethodInvocation delegate, Map<String, Object> userAttributes) {
+            this.delegate = (ProxyMethodInvocation) delegate;
+            this.userAttributes = userAttributes;
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            return delegate.proceed();
+        }
+
+        @Override
+        public MethodInvocation invocableClone() {
+            return new AttemptInvocation(delegate.invocableClone(), userAttributes);
+        }
+
+        @Override
+        public MethodInvocation invocableClone(Object... arguments) {
+            return new AttemptInvocation(delegate.invocableClone(arguments), userAttributes);
+        }
+
+        @Override
+        public void setUserAttribute(String key, Object value) {
+            if (value != null) {
+                userAttributes.put(key, value);
+            } else {
+                userAttributes.remove(key);
+            }
+        }
+
+        @Override
+        public Object getUserAttribute(String key) {
+            return userAttributes.get(key);
+        }
+
+        @Override
+        public Object getProxy() {
+            return delegate.getProxy();
+        }
+
+        @Override
+        public void setArguments(Object... arguments) {
+            delegate.setArguments(arguments);
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return delegate.getArguments();
+        }
+
+        @Override
+        public Method getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public Object getThis() {
+            return delegate.getThis();
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return delegate.getStaticPart();
+        }
+    }
+
+    private static class HedgeState {
+
+        //이 정도는 쌓여야 백분위를 믿는다
+        private static final int MIN_SAMPLES = 20;
+
+        private final LatencyWindow latency = new LatencyWindow(1024);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+
+        boolean canHedge(Hedge hedge) {
+            return hedges.sum() < calls.sum() * hedge.maxPercent() / 100.0;
+        }
+
+        //동시에 여러 호출이 한도를 넘기지 않도록 올린 다음 다시 확인
+        boolean tryHedge(Hedge hedge) {
+            hedges.increment();
+            if (hedges.sum() <= calls.sum() * hedge.maxPercent() / 100.0) {
+                return true;
+            }
+            hedges.decrement();
+            return false;
+        }
+
+        long delayNanos(Hedge hedge) {
+            long observed = latency.count() < MIN_SAMPLES
+                    ? TimeUnit.MILLISECONDS.toNanos(hedge.initialDelayMillis())
+                    : latency.percentile(hedge.percentile());
+            return Math.max(observed, TimeUnit.MILLISECONDS.toNanos(hedge.minDelayMillis()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Idempotent;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.idempotent.IdempotencyStore;
+import hello.aop.exam.key.KeyExpressionResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Idempotent 어드바이저, 같은 키로 다시 들어온 호출은 처음 결과를 돌려준다
+ *
+ * 끝난 호출은 메서드마다 IdempotencyStore 에 window 동안 남긴다.
+ * 아직 실행 중인 호출과 같은 키가 들어오면 같이 실행하지 않고 그 결과를 기다린다.
+ * 실행 중인 호출은 동시 실행 수만큼이라 일반 맵으로 충분하다.
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+@Order(AspectOrder.IDEMPOTENT)
+public class IdempotentAspect {
+
+    //윈도우를 몇 틱으로 나눌지
+    private static final int TICKS = 32;
+
+    private final KeyExpressionResolver keyResolver = new KeyExpressionResolver();
+
+    //메서드 -> 저장소
+    private final Map<Method, Dedup> dedups = new ConcurrentHashMap<>();
+
+    @Around("@annotation(idempotent)")
+    public Object doIdempotent(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Dedup dedup = dedups.get(method);
+        if (dedup == null) {
+            dedup = dedups.computeIfAbsent(method, m -> new Dedup(idempotent.windowMillis()));
+        }
+
+        Object key = idempotent.key().isEmpty()
+                ? Arrays.asList(joinPoint.getArgs())
+                : keyResolver.resolve(joinPoint, idempotent.key());
+        if (key == null) {
+            //모든 호출이 한 키로 모여서 첫 호출의 결과를 돌려받게 된다
+            throw new IllegalArgumentException("@Idempotent key 가 null 입니다: " + idempotent.key()
+                    + " " + joinPoint.getSignature().toShortString());
+        }
+        long fingerprint = IdempotencyStore.fingerprint(key);
+
+        Object stored = dedup.store.get(fingerprint);
+        if (stored != IdempotencyStore.MISSING) {
+            log.info("[idempotent] {} key={} 중복 호출, 저장된 결과 반환", joinPoint.getSignature().toShortString(), key);
+            return stored;
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = dedup.running.putIfAbsent(fingerprint, mine);
+        if (running != null) {
+            log.info("[idempotent] {} key={} 실행 중인 호출 결과를 기다림", joinPoint.getSignature().toShortString(), key);
+            try {
+                return running.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            //get 과 putIfAbsent 사이에 먼저 끝난 호출이 있을 수 있다
+            stored = dedup.store.get(fingerprint);
+            if (stored != IdempotencyStore.MISSING) {
+                mine.complete(stored);
+                return stored;
+            }
+
+            Object result;
+            try {
+                result = joinPoint.proceed();
+            } catch (Throwable e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            dedup.store.put(fingerprint, result);
+            mine.complete(result);
+            return result;
+        } finally {
+            dedup.running.remove(fingerprint, mine);
+        }
+    }
+
+    private static class Dedup {
+
+        private final IdempotencyStore store;
+        private final Map<Long, CompletableFuture<Object>> running = new ConcurrentHashMap<>();
+
+        Dedup(long windowMillis) {
+            this.store = new IdempotencyStore(windowMillis, TimeUnit.MILLISECONDS, TICKS);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.key.KeyExpressionResolver;
+import hello.aop.exam.ratelimit.KeyedTokenBuckets;
+import hello.aop.exam.ratelimit.RateLimitExceededException;
+import hello.aop.exam.ratelimit.TokenBucket;
+import hello.aop.jfr.LimitDecisionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @RateLimit 어드바이저, 순간적으로 몰리는 호출을 막는
+ *
+ * 메서드마다 TokenBucket 하나, key 가 있으면 메서드마다 KeyedTokenBuckets 하나
+ * 토큰이 없으면 기다리지 않고 RateLimitExceededException
+ *
+ * 키별 버킷은 rate-limit.max-keys 개까지, rate-limit.idle-millis 동안 호출이 없던 키부터 정리한다.
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+public class RateLimitAspect {
+
+    private final KeyExpressionResolver keyResolver = new KeyExpressionResolver();
+
+    //메서드 -> 버킷 (key 없음)
+    private final Map<Method, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    //메서드 -> 키별 버킷
+    private final Map<Method, KeyedTokenBuckets> keyedBuckets = new ConcurrentHashMap<>();
+
+    private final int maxKeys;
+    private final long idleMillis;
+
+    public RateLimitAspect(@Value("${rate-limit.max-keys:10000}") int maxKeys,
+                           @Value("${rate-limit.idle-millis:60000}") long idleMillis) {
+        this.maxKeys = maxKeys;
+        this.idleMillis = idleMillis;
+    }
+
+    @Around("@annotation(rateLimit)")
+    public Object doRateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+
+        boolean acquired;
+        Object key = null;
+        if (rateLimit.key().isEmpty()) {
+            TokenBucket bucket = buckets.get(method);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(method, m -> bucket(rateLimit));
+            }
+            acquired = bucket.tryAcquire();
+        } else {
+            KeyedTokenBuckets keyed = keyedBuckets.get(method);
+            if (keyed == null) {
+                keyed = keyedBuckets.computeIfAbsent(method,
+                        m -> new KeyedTokenBuckets(() -> bucket(rateLimit), maxKeys, idleMillis, TimeUnit.MILLISECONDS));
+            }
+            key = keyResolver.resolve(joinPoint, rateLimit.key());
+            if (key == null) {
+                //ConcurrentHashMap 은 null 키를 받지 않는다. 한 버킷으로 몰아서 세지도 않는다
+                throw new IllegalArgumentException("@RateLimit key 가 null 입니다: " + rateLimit.key()
+                        + " " + joinPoint.getSignature().toShortString());
+            }
+            acquired = keyed.tryAcquire(key);
+        }
+
+        //JFR 녹화 중일 때만
+        LimitDecisionEvent event = new LimitDecisionEvent();
+        if (event.isEnabled()) {
+            event.limiter = "rate";
+            event.signature = joinPoint.getSignature().toShortString();
+            event.key = key != null ? String.valueOf(key) : null;
+            event.accepted = acquired;
+            event.limit = rateLimit.permits();
+            event.commit();
+        }
+
+        if (!acquired) {
+            log.debug("[rate-limit] {} key={} 거절", joinPoint.getSignature().toShortString(), key);
+            throw new RateLimitExceededException("호출 한도 초과: " + joinPoint.getSignature().toShortString()
+                    + (key != null ? " key=" + key : "") + " " + rateLimit.permits() + "/" + rateLimit.periodMillis() + "ms");
+        }
+        return joinPoint.proceed();
+    }
+
+    private static TokenBucket bucket(RateLimit rateLimit) {
+        int burst = rateLimit.burst() > 0 ? rateLimit.burst() : rateLimit.permits();
+        return new TokenBucket(rateLimit.permits(), rateLimit.periodMillis(), TimeUnit.MILLISECONDS, burst);
+    }
+}
@@ -0,0 +1,61 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.resource.ResourceMeter;
+import hello.aop.exam.resource.ResourceStats;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * hello.aop.order, hello.aop.exam 호출마다 CPU 시간과 할당 바이트를 메서드별로 모으는
+ *
+ * 벽시계 시간으로는 기다린 건지 CPU 를 쓴 건지, 가비지를 얼마나 만들었는지 알 수 없다.
+ * resource.sample-rate 비율의 호출만 잰다. (기본 0.1)
+ *
+ * 많이 쓰는 순서는 GET /admin/resources?sort=cpu|alloc&limit=10
+ * */
+@Aspect
+@StatefulAspect
+public class ResourceAccountingAspect {
+
+    private final ResourceMeter meter;
+
+    //메서드 -> 통계, 호출마다 시그니처 문자열을 만들지 않도록
+    private final Map<Method, ResourceStats> stats = new ConcurrentHashMap<>();
+
+    public ResourceAccountingAspect(@Value("${resource.sample-rate:0.1}") double sampleRate) {
+        this.meter = new ResourceMeter(sampleRate);
+    }
+
+    @Around("hello.aop.order.aop.Pointcuts.orderAndExam()")
+    public Object doAccount(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ResourceStats stats = this.stats.get(method);
+        if (stats == null) {
+            stats = this.stats.computeIfAbsent(method, key -> meter.stats(joinPoint.getSignature().toShortString()));
+        }
+        if (!meter.sample(stats)) {
+            return joinPoint.proceed();
+        }
+
+        long cpu = meter.cpuNanos();
+        long allocated = meter.allocatedBytes();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            meter.record(stats, cpu, allocated);
+        }
+    }
+
+    public List<ResourceStats> top(String sort, int limit) {
+        return meter.top(sort, limit);
+    }
+}
@@ -1,16 +1,35 @@
 package hello.aop.exam.aop;
 
 import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.exam.retry.RetryCounter;
+import hello.aop.exam.retry.RetryPolicy;
+import hello.aop.jfr.RetryAttemptEvent;
+import hello.aop.render.ArgumentRenderer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** 어드바이저 생성*/
 @Slf4j
 @Aspect
+@RequiredArgsConstructor
 public class RetryAspect {
 
+    //결과가 클 수 있으므로 길이 제한해서, 로그가 실제로 출력될 때만 문자열로
+    private final ArgumentRenderer argumentRenderer;
+
+    //메서드 -> @Retry 판단표, 애노테이션은 메서드마다 한 번만 읽는다
+    private final Map<Method, RetryPolicy> policies = new ConcurrentHashMap<>();
+
     /**
      * 얘는 @Around 써야함, 재시도 할 때 내가 언제 조인포인트에 프로시드를 호출할지 결정해야 하기 때문
      * Retry retry를 받으므로 "@annotation(retry)
@@ -27,19 +46,60 @@ public class RetryAspect {
         /** 어노테이션의 값을 꺼냄 */
         int maxRetry = retry.value();
 
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RetryPolicy policy = policies.get(method);
+        if (policy == null) {
+            policy = policies.computeIfAbsent(method, key -> RetryPolicy.of(retry));
+        }
+
         Exception exceptionHolder = null;
 
         for (int retryCount = 1; retryCount <= maxRetry; retryCount++) {
 
+            //데드라인이 지났으면 더 시도해도 의미가 없다, 호출한 쪽은 이미 떠났다
+            //첫 시도도 마찬가지, 시그니처 문자열은 지났을 때만 만든다
+            if (retryCount == 1) {
+                if (DeadlineContext.isExpired()) {
+                    throw new DeadlineExceededException("데드라인이 지나서 호출하지 않음: " + joinPoint.getSignature().toShortString());
+                }
+            } else {
+                DeadlineContext.checkRetry(joinPoint.getSignature().toShortString(), retryCount - 1, exceptionHolder);
+                RetryCounter.increment();
+            }
+
+            //실패한 시도는 JFR 이벤트로, 녹화 중이 아니면 shouldCommit() 이 false 라 값을 채우지 않는다
+            RetryAttemptEvent event = new RetryAttemptEvent();
+            event.begin();
             try {
                 //몇번 재시도 했는지, @Retry 어노테이션의 값 최대 재시도 값 출력
                 log.info("[retry] try count={}/{}", retryCount, maxRetry);
 
-                return joinPoint.proceed();
+                Object result = joinPoint.proceed();
+
+                //결과를 보고 다시 할지, 마지막 시도면 그대로 반환
+                if (retryCount < maxRetry && policy.retryOnResult(result)) {
+                    log.info("[retry] 결과로 재시도 result={}", argumentRenderer.lazy(result));
+                    continue;
+                }
+                return result;
             } catch (Exception e) {
 
+                //다시 해도 안 될 예외는 바로 던진다, 판단은 예외 클래스마다 한 번만 계산해서 기억
+                if (!policy.isRetryable(e)) {
+                    throw e;
+                }
+
                 /** 예외가 터지면 터진 예외 담아두기 */
                 exceptionHolder = e;
+
+                if (event.shouldCommit()) {
+                    event.signature = joinPoint.getSignature().toShortString();
+                    event.attempt = retryCount;
+                    event.maxAttempts = maxRetry;
+                    event.exceptionType = e.getClass().getName();
+                    event.exceptionMessage = e.getMessage();
+                    event.commit();
+                }
             }
         }
 
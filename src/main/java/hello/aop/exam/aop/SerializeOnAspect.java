@@ -0,0 +1,65 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.SerializeOn;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.deadline.Deadline;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.exam.key.KeyExpressionResolver;
+import hello.aop.exam.serialize.StripedLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @SerializeOn 어드바이저, 같은 키의 호출이 섞이지 않도록
+ *
+ * 메서드마다 StripedLocks 하나, 키로 고른 락을 잡고 실행한다.
+ * @Timeout 안에서 호출되면 남은 시간까지만 기다리고, 못 잡으면 DeadlineExceededException
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+@Order(AspectOrder.SERIALIZE_ON)
+public class SerializeOnAspect {
+
+    private final KeyExpressionResolver keyResolver = new KeyExpressionResolver();
+
+    //메서드 -> 락
+    private final Map<Method, StripedLocks> locks = new ConcurrentHashMap<>();
+
+    @Around("@annotation(serializeOn)")
+    public Object doSerialize(ProceedingJoinPoint joinPoint, SerializeOn serializeOn) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        StripedLocks striped = locks.get(method);
+        if (striped == null) {
+            striped = locks.computeIfAbsent(method, m -> new StripedLocks(serializeOn.stripes(), serializeOn.fair()));
+        }
+
+        Object key = keyResolver.resolve(joinPoint, serializeOn.key());
+        ReentrantLock lock = striped.lockFor(key);
+
+        Deadline deadline = DeadlineContext.current();
+        if (deadline == null) {
+            lock.lockInterruptibly();
+        } else if (!lock.tryLock(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+            throw new DeadlineExceededException("락 대기 중 시간 초과: " + joinPoint.getSignature().toShortString()
+                    + " key=" + key + " " + deadline);
+        }
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
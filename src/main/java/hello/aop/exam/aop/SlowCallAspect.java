@@ -0,0 +1,146 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.SlowCall;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.latency.LatencyWindow;
+import hello.aop.exam.retry.RetryCounter;
+import hello.aop.exam.slowcall.SlowCallRecord;
+import hello.aop.exam.slowcall.SlowCallRing;
+import hello.aop.exam.slowcall.SpanBuffer;
+import hello.aop.render.ArgumentRenderer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 느린 호출만 자세히 남기는
+ *
+ * 모든 호출은 시간만 재서 메서드별 LatencyWindow 에 넣고, 안쪽 호출은 SpanBuffer 에 이름과 시간만 남긴다.
+ * 기준을 넘은 호출만 인수, 스레드 이름, 재시도 수, 안쪽 호출을 모아서 SlowCallRing 에 넣는다.
+ *
+ * 대상: hello.aop.order, ExamService, ExamRepository 그리고 @SlowCall 을 붙인 메서드
+ * 기준: @SlowCall(thresholdMillis) > slowcall.threshold-millis > 최근 응답 시간의 백분위
+ * 백분위는 slowcall.min-samples 개가 쌓이기 전에는 쓰지 않는다.
+ *
+ * 같은 빈의 다른 애스펙트(@Retry 등)까지 포함한 시간을 재도록 가장 바깥에서 실행
+ * 최근 느린 호출은 GET /admin/slowcalls
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SlowCallAspect {
+
+    private final ArgumentRenderer argumentRenderer;
+    private final SlowCallRing ring;
+    private final long defaultThresholdNanos;
+    private final double defaultPercentile;
+    private final int minSamples;
+
+    //메서드 -> 기준, 응답 시간
+    private final Map<Method, MethodState> states = new ConcurrentHashMap<>();
+
+    public SlowCallAspect(ArgumentRenderer argumentRenderer,
+                          @Value("${slowcall.capacity:256}") int capacity,
+                          @Value("${slowcall.threshold-millis:0}") long thresholdMillis,
+                          @Value("${slowcall.percentile:99}") double percentile,
+                          @Value("${slowcall.min-samples:100}") int minSamples) {
+        this.argumentRenderer = argumentRenderer;
+        this.ring = new SlowCallRing(capacity);
+        this.defaultThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.defaultPercentile = percentile;
+        this.minSamples = minSamples;
+    }
+
+    //그 밖은 @SlowCall 을 붙인 메서드
+    @Around("hello.aop.order.aop.Pointcuts.orderAndExam() || @annotation(hello.aop.exam.annotation.SlowCall)")
+    public Object doCapture(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodState state = states.get(method);
+        if (state == null) {
+            state = states.computeIfAbsent(method, key -> state(joinPoint, key));
+        }
+
+        SpanBuffer spans = SpanBuffer.current();
+        long retries = RetryCounter.current();
+        long start = System.nanoTime();
+        int span = spans.enter(state.name, start);
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long end = System.nanoTime();
+            spans.exit(span, end);
+            long elapsed = end - start;
+
+            long threshold = state.threshold();
+            state.window.record(elapsed);
+            if (threshold > 0 && elapsed > threshold) {
+                capture(joinPoint, state, spans, span, elapsed, threshold, RetryCounter.current() - retries, failed);
+            }
+            spans.resetIfOutermost();
+        }
+    }
+
+    private void capture(ProceedingJoinPoint joinPoint, MethodState state, SpanBuffer spans, int span,
+                         long elapsed, long threshold, long retries, boolean failed) {
+        List<SlowCallRecord.Span> nested = spans.spans(span);
+        SlowCallRecord record = new SlowCallRecord(state.name, System.currentTimeMillis(), elapsed, threshold,
+                Thread.currentThread().getName(), argumentRenderer.render(joinPoint.getArgs()), retries, failed,
+                nested, spans.isTruncated());
+        ring.add(record);
+        log.debug("[slowcall] {}", record);
+    }
+
+    private MethodState state(ProceedingJoinPoint joinPoint, Method method) {
+        SlowCall slowCall = AnnotationUtils.findAnnotation(method, SlowCall.class);
+        long threshold = slowCall != null && slowCall.thresholdMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(slowCall.thresholdMillis()) : defaultThresholdNanos;
+        double percentile = slowCall != null ? slowCall.percentile() : defaultPercentile;
+        return new MethodState(joinPoint.getSignature().toShortString(), threshold, percentile);
+    }
+
+    /** 최근 것부터 */
+    public List<SlowCallRecord> records() {
+        return ring.records();
+    }
+
+    private class MethodState {
+
+        private final String name;
+        private final long staticThresholdNanos;
+        private final double percentile;
+        private final LatencyWindow window = new LatencyWindow(1024);
+
+        MethodState(String name, long staticThresholdNanos, double percentile) {
+            this.name = name;
+            this.staticThresholdNanos = staticThresholdNanos;
+            this.percentile = percentile;
+        }
+
+        /** 아직 기준을 정할 수 없으면 0 */
+        long threshold() {
+            if (staticThresholdNanos > 0) {
+                return staticThresholdNanos;
+            }
+            if (window.count() < minSamples) {
+                return 0;
+            }
+            return window.percentile(percentile);
+        }
+    }
+}
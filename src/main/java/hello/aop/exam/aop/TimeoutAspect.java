@@ -0,0 +1,55 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.Timeout;
+import hello.aop.exam.deadline.Deadline;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Timeout 어드바이저, 진입점에서 데드라인을 정하고 안쪽 호출로 넘기는
+ *
+ * OrderService.orderItem -> OrderRepository.save, ExamService.request -> ExamRepository.save 처럼
+ * 안쪽 호출은 DeadlineContext 로 남은 시간을 알 수 있고, RetryAspect 는 시간이 다 되면 첫 시도부터 하지 않고,
+ * OrderRepository, ExamRepository 는 저장하기 전에 DeadlineContext.check 로 확인한다.
+ *
+ * - 들어올 때 이미 데드라인이 지났으면 실행하지 않는다.
+ * - 실행 중인 스레드를 interrupt 하지 않는다. 오래 걸리는 작업은 DeadlineContext.check 로 스스로 멈춘다.
+ *   interrupt 는 FileChannel 을 닫아버리고(ClosedByInterruptException) TraceJournal 처럼 같이 쓰는 채널이 망가진다.
+ * - 데드라인이 지난 뒤 예외로 끝나면 DeadlineExceededException 으로 감싼다. 늦게라도 성공하면 결과는 그대로 반환
+ * - 바깥 데드라인이 더 이르면 바깥을 따른다.
+ * */
+@Slf4j
+@Aspect
+@Order(AspectOrder.TIMEOUT)
+public class TimeoutAspect {
+
+    @Around("@annotation(timeout)")
+    public Object doTimeout(ProceedingJoinPoint joinPoint, Timeout timeout) throws Throwable {
+        Deadline own = Deadline.after(timeout.value(), TimeUnit.MILLISECONDS);
+        Deadline deadline = own.earlier(DeadlineContext.current());
+        if (deadline.isExpired()) {
+            throw new DeadlineExceededException("데드라인이 지나서 호출하지 않음: " + joinPoint.getSignature().toShortString());
+        }
+
+        try (DeadlineContext.Scope scope = DeadlineContext.open(deadline)) {
+            try {
+                return joinPoint.proceed();
+            } catch (DeadlineExceededException e) {
+                throw e;
+            } catch (Throwable e) {
+                if (deadline == own && deadline.isExpired()) {
+                    log.info("[timeout] {} {}ms 초과", joinPoint.getSignature(), timeout.value());
+                    throw new DeadlineExceededException("데드라인 초과: " + joinPoint.getSignature().toShortString(), e);
+                }
+                throw e;
+            }
+        }
+    }
+}
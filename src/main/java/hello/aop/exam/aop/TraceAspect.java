@@ -1,5 +1,9 @@
 package hello.aop.exam.aop;
 
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.jfr.TracedInvocationEvent;
+import hello.aop.render.ArgumentRenderer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -8,8 +12,13 @@ import org.aspectj.lang.annotation.Before;
 /** 어드바이저 생성,*/
 @Slf4j
 @Aspect
+@StatefulAspect
+@RequiredArgsConstructor
 public class TraceAspect {
 
+    //큰 인수도 길이 제한해서, 로그가 실제로 출력될 때만 문자열로
+    private final ArgumentRenderer argumentRenderer;
+
     /**
      * @Trace가 있는 메서드에는 이 어드바이스가 적용되는
      * 애노테이션을 씀, @Trace의 경로를 같이 적어줌
@@ -27,6 +36,14 @@ public class TraceAspect {
         Object[] args = joinPoint.getArgs();
 
         //메서드 시그니처와 메서드 파라미터로 들어온 값 로그로 출력
-        log.info("[trace] {} args={}", joinPoint.getSignature(), args);
+        log.info("[trace] {} args={}", joinPoint.getSignature(), argumentRenderer.lazy(args));
+
+        //JFR 녹화 중이고 이 이벤트가 켜져 있을 때만 값을 채운다, 꺼져 있으면 isEnabled() 확인 비용뿐
+        TracedInvocationEvent event = new TracedInvocationEvent();
+        if (event.isEnabled()) {
+            event.signature = joinPoint.getSignature().toShortString();
+            event.arguments = argumentRenderer.render(args);
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,74 @@
+package hello.aop.exam.aop;
+
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.journal.TraceJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Trace 호출을 텍스트 로그 대신 바이너리 저널(TraceJournal)에 모두 남기는 어드바이저
+ *
+ * 장애 분석용으로 모든 호출을 남기고 싶은데 로그 문자열을 만드는 비용은 싫을 때
+ * 호출마다 하는 일은 nanoTime 두 번과 레코드 쓰기뿐, 시그니처 문자열은 메서드마다 처음 한 번만 만든다.
+ *
+ * 저장 위치와 크기는 application.properties
+ * trace.journal.dir=build/trace-journal
+ * trace.journal.segment-size=16777216
+ * trace.journal.max-segments=8
+ *
+ * 읽을 때는 TraceJournalReader
+ * */
+@Slf4j
+@Aspect
+@StatefulAspect
+public class TraceJournalAspect implements DisposableBean {
+
+    private final TraceJournal journal;
+
+    //메서드 -> 저널 메서드 id
+    private final Map<Method, Integer> methodIds = new ConcurrentHashMap<>();
+
+    public TraceJournalAspect(@Value("${trace.journal.dir:build/trace-journal}") String directory,
+                              @Value("${trace.journal.segment-size:16777216}") int segmentSize,
+                              @Value("${trace.journal.max-segments:8}") int maxSegments) {
+        this.journal = new TraceJournal(Paths.get(directory), segmentSize, maxSegments);
+    }
+
+    @Around("@annotation(hello.aop.exam.annotation.Trace)")
+    public Object doJournal(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Integer methodId = methodIds.get(method);
+        if (methodId == null) {
+            methodId = methodIds.computeIfAbsent(method, key -> journal.methodId(joinPoint.getSignature().toLongString()));
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            journal.append(methodId, Thread.currentThread().getId(), start, System.nanoTime(), success);
+        }
+    }
+
+    public TraceJournal getJournal() {
+        return journal;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        journal.close();
+    }
+}
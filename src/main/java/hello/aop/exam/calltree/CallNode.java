@@ -0,0 +1,88 @@
+package hello.aop.exam.calltree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 호출 트리의 노드 하나, 루트부터 같은 경로로 들어온 호출을 합친 것
+ *
+ * total: 이 노드에서 보낸 시간 (안쪽 호출 포함)
+ * self: total 에서 안쪽 어드바이스 대상 호출 시간을 뺀 것
+ *
+ * 동기화하지 않는다. 스레드별 트리는 그 스레드만, 합친 트리는 CallTreeRecorder 락 안에서만 고친다.
+ * */
+public class CallNode {
+
+    private final String name;
+    private final Map<String, CallNode> children = new HashMap<>();
+
+    long count;
+    long totalNanos;
+    long childNanos;
+
+    CallNode(String name) {
+        this.name = name;
+    }
+
+    CallNode child(String name) {
+        CallNode child = children.get(name);
+        if (child == null) {
+            child = new CallNode(name);
+            children.put(name, child);
+        }
+        return child;
+    }
+
+    /** other 를 이 노드에 더한다, 같은 이름의 자식끼리 재귀로 */
+    void merge(CallNode other) {
+        count += other.count;
+        totalNanos += other.totalNanos;
+        childNanos += other.childNanos;
+        for (CallNode otherChild : other.children.values()) {
+            child(otherChild.name).merge(otherChild);
+        }
+    }
+
+    /** 다른 스레드에 넘겨줄 복사본 */
+    CallNode copy() {
+        CallNode copy = new CallNode(name);
+        copy.merge(this);
+        return copy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getSelfNanos() {
+        return totalNanos - childNanos;
+    }
+
+    /** 시간이 큰 순서 */
+    public List<CallNode> getChildren() {
+        List<CallNode> result = new ArrayList<>(children.values());
+        result.sort(Comparator.comparingLong(CallNode::getTotalNanos).reversed().thenComparing(CallNode::getName));
+        return result;
+    }
+
+    Collection<CallNode> children() {
+        return children.values();
+    }
+
+    @Override
+    public String toString() {
+        return name + " count=" + count + " total=" + totalNanos + "ns self=" + getSelfNanos() + "ns";
+    }
+}
@@ -0,0 +1,132 @@
+package hello.aop.exam.calltree;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 어드바이스 대상 호출 경로를 호출 트리로 모으는
+ *
+ * 호출 경로에서는 스레드마다 자기 트리만 고친다. 락도 CAS 도 없다.
+ * 가장 바깥 호출이 끝났을 때 마지막으로 넘긴 뒤 publishNanos 가 지났으면
+ * 그동안 모은 트리를 큐에 넘기고 새 트리로 시작한다.
+ * merge() 는 큐에 쌓인 트리를 합친 트리에 더한다. CallTreeAspect 가 주기적으로, 그리고 읽기 전에 부른다.
+ *
+ * 한동안 호출이 없는 스레드가 들고 있는 값은 그 스레드의 다음 호출이 끝날 때 넘어온다.
+ * */
+public class CallTreeRecorder {
+
+    private static final String ROOT = "root";
+
+    private final long publishNanos;
+    private final Queue<CallNode> published = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadTree> trees = ThreadLocal.withInitial(ThreadTree::new);
+
+    //합친 트리, this 락 안에서만
+    private CallNode merged = new CallNode(ROOT);
+
+    public CallTreeRecorder(long publishInterval, TimeUnit unit) {
+        this.publishNanos = unit.toNanos(publishInterval);
+    }
+
+    /** 호출 시작, 돌려준 값을 exit() 에 넘긴다 */
+    public Frame enter(String name) {
+        ThreadTree tree = trees.get();
+        CallNode parent = tree.cursor;
+        tree.cursor = parent.child(name);
+        return new Frame(tree, parent, System.nanoTime());
+    }
+
+    public void exit(Frame frame) {
+        long elapsed = System.nanoTime() - frame.start;
+        ThreadTree tree = frame.tree;
+        CallNode node = tree.cursor;
+        node.count++;
+        node.totalNanos += elapsed;
+        frame.parent.childNanos += elapsed;
+        tree.cursor = frame.parent;
+
+        if (frame.parent == tree.root) {
+            long now = System.nanoTime();
+            if (now - tree.publishedAt >= publishNanos) {
+                published.add(tree.root);
+                tree.reset(now);
+            }
+        }
+    }
+
+    /** 넘어온 스레드별 트리를 합친다 */
+    public synchronized void merge() {
+        CallNode tree;
+        while ((tree = published.poll()) != null) {
+            for (CallNode child : tree.children()) {
+                merged.child(child.getName()).merge(child);
+            }
+        }
+    }
+
+    /** 합친 트리의 복사본, 루트는 이름만 있는 가짜 노드 */
+    public synchronized CallNode snapshot() {
+        merge();
+        return merged.copy();
+    }
+
+    public synchronized void reset() {
+        merge();
+        merged = new CallNode(ROOT);
+    }
+
+    /**
+     * 플레임 그래프용 collapsed stack 형식
+     * 한 줄에 "바깥;안쪽;... 값", 값은 metric 이 count 면 호출 수, 아니면 self 시간(µs)
+     * 값이 0 인 줄은 뺀다.
+     *
+     * 플레임 그래프는 줄의 값을 그 경로의 self 로 보고 부모 폭에 더하므로 그림은 time 으로 그린다.
+     * count 는 경로별 호출 수를 그대로 보여주는 용도
+     * */
+    public String collapsed(String metric) {
+        StringBuilder out = new StringBuilder();
+        boolean count = "count".equals(metric);
+        for (CallNode child : snapshot().getChildren()) {
+            appendCollapsed(out, child, child.getName(), count);
+        }
+        return out.toString();
+    }
+
+    private void appendCollapsed(StringBuilder out, CallNode node, String path, boolean count) {
+        long value = count ? node.getCount() : TimeUnit.NANOSECONDS.toMicros(node.getSelfNanos());
+        if (value > 0) {
+            out.append(path).append(' ').append(value).append('\n');
+        }
+        for (CallNode child : node.getChildren()) {
+            appendCollapsed(out, child, path + ';' + child.getName(), count);
+        }
+    }
+
+    /** 진행 중인 호출 하나, 스레드 트리와 부모 노드, 시작 시각 */
+    public static final class Frame {
+
+        private final ThreadTree tree;
+        private final CallNode parent;
+        private final long start;
+
+        private Frame(ThreadTree tree, CallNode parent, long start) {
+            this.tree = tree;
+            this.parent = parent;
+            this.start = start;
+        }
+    }
+
+    private static final class ThreadTree {
+
+        private CallNode root = new CallNode(ROOT);
+        private CallNode cursor = root;
+        private long publishedAt = System.nanoTime();
+
+        private void reset(long now) {
+            root = new CallNode(ROOT);
+            cursor = root;
+            publishedAt = now;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hello.aop.exam.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이 시각까지 끝나야 하는 시점, System.nanoTime() 기준
+ * 값이 바뀌지 않으므로 스레드끼리 그대로 넘겨도 된다.
+ * */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /** 더 이른 쪽, other 가 null 이면 this */
+    public Deadline earlier(Deadline other) {
+        if (other == null) {
+            return this;
+        }
+        return deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline(remaining=" + TimeUnit.NANOSECONDS.toMillis(remainingNanos()) + "ms)";
+    }
+}
@@ -0,0 +1,117 @@
+package hello.aop.exam.deadline;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 지금 스레드의 데드라인
+ *
+ * @Timeout 진입점에서 열고(TimeoutAspect) 안쪽 호출은 current() 로 남은 시간을 본다.
+ * 스레드 로컬이라 실행기로 넘긴 작업에는 이어지지 않으므로 wrap 으로 감싸서 넘긴다.
+ * 감싼 작업은 실행될 때 이미 데드라인이 지났으면 시작하지 않는다.
+ * */
+public final class DeadlineContext {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private DeadlineContext() {
+    }
+
+    /** 없으면 null */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public static boolean isExpired() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * 오래 걸리는 작업 중간중간 호출, 데드라인이 지났으면 DeadlineExceededException
+     * TimeoutAspect 는 스레드를 interrupt 하지 않으므로 작업이 스스로 확인해야 멈춘다.
+     * */
+    public static void check(String what) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("데드라인 초과: " + what);
+        }
+    }
+
+    /**
+     * 데드라인을 설정하고 이전 값으로 되돌리는 Scope 반환
+     * try (DeadlineContext.Scope scope = DeadlineContext.open(deadline)) { ... }
+     * */
+    public static Scope open(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return new Scope(previous);
+    }
+
+    /**
+     * 재시도 전에 호출, 데드라인이 지났으면 더 시도하지 않고 마지막 예외를 원인으로 던진다.
+     * RetryAspect, 생성된 데코레이터가 같이 쓴다.
+     * */
+    public static void checkRetry(String signature, int attempts, Exception last) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("데드라인이 지나서 재시도 중단: " + signature + " attempts=" + attempts, last);
+        }
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            checkStart(deadline);
+            try (Scope scope = open(deadline)) {
+                task.run();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            checkStart(deadline);
+            try (Scope scope = open(deadline)) {
+                return task.call();
+            }
+        };
+    }
+
+    /** 넘기는 작업마다 넘기는 시점의 데드라인을 같이 넘기는 실행기 */
+    public static Executor wrap(Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    //큐에서 기다리다 이미 늦었으면 시작할 이유가 없다
+    private static void checkStart(Deadline deadline) {
+        if (deadline.isExpired()) {
+            throw new DeadlineExceededException("데드라인이 지나서 작업을 시작하지 않음");
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
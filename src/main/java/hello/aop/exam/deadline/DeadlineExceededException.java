@@ -0,0 +1,13 @@
+package hello.aop.exam.deadline;
+
+/** 데드라인이 지나서 더 진행하지 않는 호출 */
+public class DeadlineExceededException extends IllegalStateException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
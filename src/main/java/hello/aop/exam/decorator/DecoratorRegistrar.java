@@ -0,0 +1,94 @@
+package hello.aop.exam.decorator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * aop.decorator.enabled=true 이면 @Trace, @Retry 가 붙은 빈을 생성된 데코레이터로 바꿔서 등록하는
+ *
+ * 빈 정의의 클래스만 데코레이터(하위 클래스)로 바꾸므로 빈 이름, 타입으로 주입받는 쪽은 그대로다.
+ * 데코레이터의 메서드에는 @Trace, @Retry 가 없어서 TraceAspect, RetryAspect 를 같이 등록해도 프록시가 생기지 않는다.
+ *
+ * 데코레이터 목록은 aop-processor 의 DecoratorProcessor 가 만든 META-INF/aop-decorators.index
+ * */
+@Slf4j
+@Component
+public class DecoratorRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware, BeanClassLoaderAware {
+
+    public static final String LOCATION = "META-INF/aop-decorators.index";
+
+    private Environment environment;
+    private ClassLoader classLoader;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        if (!environment.getProperty("aop.decorator.enabled", Boolean.class, false)) {
+            return;
+        }
+
+        Map<String, String> decorators = decorators();
+        for (String beanName : registry.getBeanDefinitionNames()) {
+            BeanDefinition definition = registry.getBeanDefinition(beanName);
+            String decorator = decorators.get(definition.getBeanClassName());
+            if (decorator != null) {
+                definition.setBeanClassName(decorator);
+                log.info("[decorator] {} -> {}", beanName, decorator);
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+
+    //원래 클래스 -> 데코레이터
+    private Map<String, String> decorators() {
+        Map<String, String> result = new HashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] tokens = line.trim().split(" ");
+                        if (tokens.length == 2) {
+                            result.put(tokens[0], tokens[1]);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package hello.aop.exam.decorator;
+
+import hello.aop.exam.retry.RetryCounter;
+import hello.aop.jfr.RetryAttemptEvent;
+import hello.aop.jfr.TracedInvocationEvent;
+import hello.aop.render.ArgumentRenderer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 생성된 데코레이터(ExamService_Decorator 등)가 호출하는 공통 로직
+ * TraceAspect, RetryAspect 와 같은 로그를 남긴다.
+ *
+ * 데코레이터는 리플렉션, JoinPoint 없이 시그니처 문자열과 인수만 넘긴다.
+ * 메서드가 작아서 호출하는 쪽에 인라인 된다.
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DecoratorSupport {
+
+    private final ArgumentRenderer argumentRenderer;
+
+    public void trace(String signature, Object[] args) {
+        if (log.isInfoEnabled()) {
+            log.info("[trace] {} args={}", signature, argumentRenderer.lazy(args));
+        }
+
+        TracedInvocationEvent event = new TracedInvocationEvent();
+        if (event.isEnabled()) {
+            event.signature = signature;
+            event.arguments = argumentRenderer.render(args);
+            event.commit();
+        }
+    }
+
+    public void retry(String signature, int maxRetry) {
+        log.info("[retry] {} retry={}", signature, maxRetry);
+    }
+
+    /** 시도 시작, 실패하면 failed() 로 넘겨줄 JFR 이벤트를 돌려준다 */
+    public RetryAttemptEvent attempt(int retryCount, int maxRetry) {
+        log.info("[retry] try count={}/{}", retryCount, maxRetry);
+        if (retryCount > 1) {
+            RetryCounter.increment();
+        }
+        RetryAttemptEvent event = new RetryAttemptEvent();
+        event.begin();
+        return event;
+    }
+
+    public void failed(RetryAttemptEvent event, String signature, int retryCount, int maxRetry, Exception e) {
+        if (event.shouldCommit()) {
+            event.signature = signature;
+            event.attempt = retryCount;
+            event.maxAttempts = maxRetry;
+            event.exceptionType = e.getClass().getName();
+            event.exceptionMessage = e.getMessage();
+            event.commit();
+        }
+    }
+
+    /**
+     * 재시도를 다 쓰면 마지막 예외를 그대로 던진다.
+     * 메서드에 선언된 체크 예외도 감싸지 않고 던지기 위해 제네릭으로 컴파일러 검사를 피한다.
+     * */
+    @SuppressWarnings("unchecked")
+    public static <T extends Throwable> RuntimeException rethrow(Throwable throwable) throws T {
+        throw (T) throwable;
+    }
+}
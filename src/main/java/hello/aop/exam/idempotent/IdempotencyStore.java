@@ -0,0 +1,329 @@
+package hello.aop.exam.idempotent;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 끝난 호출의 결과를 window 동안 기억하는 저장소
+ *
+ * 키 수백만 개를 들고 있어야 해서 Map<Object, 결과> 처럼 키마다 엔트리, 박싱 객체를 만들지 않는다.
+ * - 키는 64비트 지문(fingerprint)으로만 기억한다. 키 객체는 저장하지 않는다.
+ * - 슬롯은 long[] 지문 + int[] 만료 틱 + Object[] 결과, 열린 주소법(선형 탐사)
+ * - 만료는 타이머 휠, 틱마다 그 틱에 만료되는 지문만 지운다. 전체를 훑지 않는다.
+ *
+ * 지문 충돌 확률은 키 n 개일 때 대략 n^2 / 2^65, 백만 개에서 3 * 10^-8 정도라 무시한다.
+ *
+ * 락은 세그먼트마다 하나, 지문의 상위 비트로 세그먼트를 고른다.
+ * */
+public class IdempotencyStore {
+
+    /** 결과가 없을 때 get 이 돌려주는 값 */
+    public static final Object MISSING = new Object();
+
+    //null 결과를 저장할 때 대신 쓰는 값
+    private static final Object NULL = new Object();
+
+    private static final int SEGMENTS = 16;
+
+    //FNV-1a 64비트
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long start = System.nanoTime();
+    private final long tickNanos;
+
+    /**
+     * @param window 결과를 기억하는 시간
+     * @param ticks  window 를 몇 틱으로 나눌지, 결과는 window 이상 window + 한 틱 미만 동안 남는다
+     * */
+    public IdempotencyStore(long window, TimeUnit unit, int ticks) {
+        this.tickNanos = Math.max(1, unit.toNanos(window) / ticks);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(ticks);
+        }
+    }
+
+    public Object get(Object key) {
+        return get(fingerprint(key));
+    }
+
+    public Object get(long fingerprint) {
+        Object result = segment(fingerprint).get(fingerprint, tick());
+        return result == NULL ? null : result;
+    }
+
+    public void put(Object key, Object result) {
+        put(fingerprint(key), result);
+    }
+
+    public void put(long fingerprint, Object result) {
+        segment(fingerprint).put(fingerprint, result == null ? NULL : result, tick());
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /** 배열이 차지하는 바이트 수 (압축 oops 기준, 결과 객체 자체는 제외) */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 키 -> 0 이 아닌 64비트 지문, 키의 내용과 타입을 FNV-1a 로 접고 비트를 섞는다
+     *
+     * equals 가 같은 키는 같은 지문이 나와야 하므로 toString 을 쓰지 않는다.
+     * (toString 을 재정의하지 않은 객체는 같은 값도 매번 다르고, "1" 과 1 은 같아진다)
+     * - 문자열, 숫자, Boolean, Character, enum: 타입 + 값
+     * - List, 배열: 순서대로 원소마다, Set, Map: 순서 없이 원소 지문의 합
+     * - 그 밖의 객체: 타입 + hashCode(), 이런 키는 32비트 만큼만 구분되므로 충돌이 더 잦다
+     * */
+    public static long fingerprint(Object key) {
+        long hash = mix(fold(OFFSET, key));
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long fold(long hash, Object value) {
+        if (value == null) {
+            return step(hash, 0);
+        }
+        //ArrayList, Arrays.asList 처럼 구현이 달라도 equals 는 같으므로 클래스 이름 대신 L, S, M 으로
+        //앞에서 접은 값(hash)에 이어서 접는다. 처음부터 다시 접으면 컬렉션 앞의 인수가 지문에서 빠진다
+        if (value instanceof List) {
+            hash = step(hash, 'L');
+            for (Object element : (List<?>) value) {
+                hash = fold(hash, element);
+            }
+            return step(hash, ((List<?>) value).size());
+        }
+        //Set, Map 은 순서와 상관없이 같아야 하므로 원소마다 따로 접어서 더한 값을 이어서 접는다
+        if (value instanceof Set) {
+            long sum = 0;
+            for (Object element : (Set<?>) value) {
+                sum += mix(fold(OFFSET, element));
+            }
+            return step(step(hash, 'S'), sum);
+        }
+        if (value instanceof Map) {
+            long sum = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sum += mix(fold(fold(OFFSET, entry.getKey()), entry.getValue()));
+            }
+            return step(step(hash, 'M'), sum);
+        }
+        hash = step(hash, value.getClass().getName().hashCode());
+
+        if (value instanceof String) {
+            String string = (String) value;
+            for (int i = 0; i < string.length(); i++) {
+                hash = step(hash, string.charAt(i));
+            }
+            return step(hash, string.length());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return step(hash, ((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return step(hash, Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        if (value instanceof Boolean) {
+            return step(hash, (Boolean) value ? 1 : 2);
+        }
+        if (value instanceof Character) {
+            return step(hash, (Character) value);
+        }
+        if (value instanceof Enum) {
+            return fold(hash, ((Enum<?>) value).name());
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                hash = fold(hash, Array.get(value, i));
+            }
+            return step(hash, length);
+        }
+        return step(hash, value.hashCode());
+    }
+
+    private static long step(long hash, long value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private Segment segment(long fingerprint) {
+        return segments[(int) (fingerprint >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private int tick() {
+        return (int) ((System.nanoTime() - start) / tickNanos);
+    }
+
+    private static final class Segment {
+
+        private final int windowTicks;
+
+        private long[] fingerprints = new long[64];
+        private int[] expiries = new int[64];
+        private Object[] results = new Object[64];
+        private int size;
+
+        //타이머 휠, 슬롯마다 그 틱에 만료되는 지문 목록
+        private final long[][] wheel;
+        private final int[] wheelCounts;
+        private int lastTick;
+
+        Segment(int windowTicks) {
+            this.windowTicks = windowTicks;
+            this.wheel = new long[windowTicks + 1][];
+            this.wheelCounts = new int[windowTicks + 1];
+        }
+
+        synchronized Object get(long fingerprint, int now) {
+            expire(now);
+            int slot = find(fingerprint);
+            if (slot < 0 || expiries[slot] - now <= 0) {
+                return MISSING;
+            }
+            return results[slot];
+        }
+
+        synchronized void put(long fingerprint, Object result, int now) {
+            expire(now);
+            int expiry = now + windowTicks;
+            int slot = find(fingerprint);
+            if (slot < 0) {
+                if (size + 1 > fingerprints.length >> 1) {
+                    resize(fingerprints.length << 1);
+                }
+                slot = ~find(fingerprint);
+                fingerprints[slot] = fingerprint;
+                size++;
+            }
+            expiries[slot] = expiry;
+            results[slot] = result;
+            schedule(fingerprint, expiry);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long memoryBytes() {
+            long bytes = (long) fingerprints.length * (Long.BYTES + Integer.BYTES + Integer.BYTES);
+            for (int i = 0; i < wheel.length; i++) {
+                if (wheel[i] != null) {
+                    bytes += (long) wheel[i].length * Long.BYTES;
+                }
+            }
+            return bytes;
+        }
+
+        /** 있으면 슬롯 번호, 없으면 ~(넣을 빈 슬롯 번호) */
+        private int find(long fingerprint) {
+            int mask = fingerprints.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (true) {
+                long current = fingerprints[slot];
+                if (current == fingerprint) {
+                    return slot;
+                }
+                if (current == 0) {
+                    return ~slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void schedule(long fingerprint, int expiry) {
+            int index = Math.floorMod(expiry, wheel.length);
+            long[] bucket = wheel[index];
+            int count = wheelCounts[index];
+            if (bucket == null) {
+                bucket = wheel[index] = new long[16];
+            } else if (count == bucket.length) {
+                bucket = wheel[index] = Arrays.copyOf(bucket, count << 1);
+            }
+            bucket[count] = fingerprint;
+            wheelCounts[index] = count + 1;
+        }
+
+        /** 지난 틱들의 휠 슬롯을 돌면서 만료된 지문을 지운다, 한 바퀴 넘게 지났으면 한 바퀴만 */
+        private void expire(int now) {
+            int steps = Math.min(now - lastTick, wheel.length);
+            for (int i = 0; i < steps; i++) {
+                int index = Math.floorMod(lastTick + 1 + i, wheel.length);
+                long[] bucket = wheel[index];
+                for (int j = 0; j < wheelCounts[index]; j++) {
+                    int slot = find(bucket[j]);
+                    //같은 지문이 나중에 다시 저장됐으면 아직 살아있다
+                    if (slot >= 0 && expiries[slot] - now <= 0) {
+                        remove(slot);
+                    }
+                }
+                wheelCounts[index] = 0;
+            }
+            if (now - lastTick > 0) {
+                lastTick = now;
+            }
+        }
+
+        /** 툼스톤 없이 뒤쪽 엔트리를 당겨 채운다 (backward shift) */
+        private void remove(int slot) {
+            int mask = fingerprints.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (fingerprints[next] != 0) {
+                int home = (int) fingerprints[next] & mask;
+                //next 의 원래 자리가 (hole, next] 밖이면 hole 로 당긴다
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    fingerprints[hole] = fingerprints[next];
+                    expiries[hole] = expiries[next];
+                    results[hole] = results[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            fingerprints[hole] = 0;
+            results[hole] = null;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldFingerprints = fingerprints;
+            int[] oldExpiries = expiries;
+            Object[] oldResults = results;
+            fingerprints = new long[capacity];
+            expiries = new int[capacity];
+            results = new Object[capacity];
+            for (int i = 0; i < oldFingerprints.length; i++) {
+                if (oldFingerprints[i] != 0) {
+                    int slot = ~find(oldFingerprints[i]);
+                    fingerprints[slot] = oldFingerprints[i];
+                    expiries[slot] = oldExpiries[i];
+                    results[slot] = oldResults[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hello.aop.exam.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 메서드 시그니처 <-> 메서드 id
+ *
+ * 레코드에는 4바이트 id 만 남기고 시그니처 문자열은 처음 한 번만 사전 파일에 추가한다.
+ * 다시 띄워도 기존 사전을 읽어서 같은 id 를 이어서 쓴다.
+ * */
+class MethodDictionary implements AutoCloseable {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final FileChannel channel;
+
+    MethodDictionary(Path directory) {
+        Path file = directory.resolve(TraceJournalFormat.DICTIONARY_FILE);
+        try {
+            ids.putAll(read(file));
+            channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int idOf(String signature) {
+        Integer id = ids.get(signature);
+        if (id != null) {
+            return id;
+        }
+        return register(signature);
+    }
+
+    //새 메서드는 드물게 생기므로 여기만 동기화
+    private synchronized int register(String signature) {
+        Integer id = ids.get(signature);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = ids.size() + 1;
+        try {
+            channel.write(ByteBuffer.wrap((newId + "\t" + signature + "\n").getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ids.put(signature, newId);
+        return newId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** 사전 파일 읽기, 리더에서도 사용 */
+    static Map<String, Integer> read(Path file) throws IOException {
+        Map<String, Integer> result = new ConcurrentHashMap<>();
+        if (!Files.exists(file)) {
+            return result;
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                result.put(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)));
+            }
+        }
+        return result;
+    }
+}
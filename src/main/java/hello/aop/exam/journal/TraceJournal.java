@@ -0,0 +1,183 @@
+package hello.aop.exam.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static hello.aop.exam.journal.TraceJournalFormat.*;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 메모리 맵 파일에 고정 크기 바이너리 트레이스 레코드를 남기는 저널
+ *
+ * 텍스트 로그처럼 문자열을 만들지 않고, 레코드 하나는 맵핑된 버퍼에 long, int 몇 개를 쓰는 것으로 끝난다.
+ * 파일에 쓰는 건 OS 페이지 캐시가 알아서 하므로 프로세스가 죽어도 이미 쓴 레코드는 남는다.
+ *
+ * 세그먼트 하나가 차면 다음 파일을 만들고(rolling), maxSegments 개를 넘으면 오래된 파일부터 지운다.
+ * 레코드 자리는 AtomicInteger 로 나눠 갖기 때문에 쓰는 쪽은 락이 없다. 세그먼트를 바꿀 때만 동기화.
+ *
+ * 읽기는 TraceJournalReader
+ * */
+@Slf4j
+public class TraceJournal implements AutoCloseable {
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    private final MethodDictionary dictionary;
+
+    private volatile Segment current;
+    private volatile boolean closed;
+
+    /**
+     * @param segmentSize 세그먼트 파일 하나의 크기(바이트)
+     * @param maxSegments 남겨둘 세그먼트 파일 수
+     * */
+    public TraceJournal(Path directory, int segmentSize, int maxSegments) {
+        if (segmentSize < HEADER_SIZE + RECORD_SIZE) {
+            throw new IllegalArgumentException("segmentSize 가 너무 작습니다: " + segmentSize);
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments 는 1 이상이어야 합니다: " + maxSegments);
+        }
+
+        this.directory = directory;
+        this.recordsPerSegment = (segmentSize - HEADER_SIZE) / RECORD_SIZE;
+        this.maxSegments = maxSegments;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.dictionary = new MethodDictionary(directory);
+        this.current = openSegment(lastSequence() + 1);
+    }
+
+    public int methodId(String signature) {
+        return dictionary.idOf(signature);
+    }
+
+    /**
+     * 레코드 하나 추가
+     * @param success 정상 종료면 true, 예외면 false
+     * */
+    public void append(int methodId, long threadId, long startNanos, long endNanos, boolean success) {
+        if (closed) {
+            return;
+        }
+
+        Segment segment = current;
+        int slot = segment.next.getAndIncrement();
+        while (slot >= recordsPerSegment) {
+            segment = roll(segment);
+            slot = segment.next.getAndIncrement();
+        }
+
+        int offset = HEADER_SIZE + slot * RECORD_SIZE;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putLong(offset + THREAD_OFFSET, threadId);
+        buffer.putLong(offset + START_OFFSET, startNanos);
+        buffer.putLong(offset + END_OFFSET, endNanos);
+        buffer.putInt(offset + METHOD_OFFSET, methodId);
+
+        //결과를 마지막에 써야 리더가 덜 쓴 레코드를 건너뛸 수 있다
+        buffer.putInt(offset + OUTCOME_OFFSET, success ? OUTCOME_OK : OUTCOME_ERROR);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        current.buffer.force();
+        dictionary.close();
+    }
+
+    /** 가득 찬 세그먼트를 먼저 본 스레드 하나만 새 파일을 만든다 */
+    private synchronized Segment roll(Segment full) {
+        if (current != full) {
+            return current;
+        }
+
+        Segment next = openSegment(full.sequence + 1);
+        current = next;
+        deleteOldSegments(next.sequence);
+        return next;
+    }
+
+    private Segment openSegment(int sequence) {
+        Path file = directory.resolve(segmentName(sequence));
+        long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+
+        //채널을 닫아도 맵핑은 유효하다
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putLong(16, System.currentTimeMillis());
+            buffer.putLong(24, System.nanoTime());
+
+            log.info("[journal] open segment {}", file);
+            return new Segment(sequence, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteOldSegments(int latest) {
+        for (Path file : segments(directory)) {
+            if (sequenceOf(file.getFileName().toString()) <= latest - maxSegments) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("[journal] 세그먼트 삭제 실패 {}", file, e);
+                }
+            }
+        }
+    }
+
+    private int lastSequence() {
+        return segments(directory).stream()
+                .mapToInt(file -> sequenceOf(file.getFileName().toString()))
+                .max()
+                .orElse(-1);
+    }
+
+    /** 세그먼트 파일 목록, 순번 순서 */
+    static List<Path> segments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> isSegment(file.getFileName().toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Segment {
+
+        private final int sequence;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Segment(int sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package hello.aop.exam.journal;
+
+/**
+ * 트레이스 저널 파일 레이아웃
+ *
+ * 세그먼트 파일(trace-00000.jnl)
+ *  헤더 32바이트
+ *   0  int  MAGIC
+ *   4  int  VERSION
+ *   8  int  RECORD_SIZE
+ *   12 int  (예약)
+ *   16 long 파일을 만든 시각 epoch millis
+ *   24 long 파일을 만든 시각 System.nanoTime(), nanoTime 을 실제 시각으로 바꿀 때 사용
+ *
+ *  레코드 32바이트 고정
+ *   0  long 스레드 id
+ *   8  long 시작 nanoTime
+ *   16 long 종료 nanoTime
+ *   24 int  메서드 id, methods.dict 에서 시그니처를 찾는다
+ *   28 int  결과, 마지막에 기록한다. 0 이면 아직 안 쓴 자리(또는 쓰다가 죽은 자리)
+ *
+ * 메서드 사전 파일(methods.dict)
+ *  한 줄에 "id\t시그니처"
+ * */
+final class TraceJournalFormat {
+
+    static final int MAGIC = 0x54524A31; //"TRJ1"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+
+    static final int THREAD_OFFSET = 0;
+    static final int START_OFFSET = 8;
+    static final int END_OFFSET = 16;
+    static final int METHOD_OFFSET = 24;
+    static final int OUTCOME_OFFSET = 28;
+
+    static final int OUTCOME_EMPTY = 0;
+    static final int OUTCOME_OK = 1;
+    static final int OUTCOME_ERROR = 2;
+
+    static final String SEGMENT_PREFIX = "trace-";
+    static final String SEGMENT_SUFFIX = ".jnl";
+    static final String DICTIONARY_FILE = "methods.dict";
+
+    private TraceJournalFormat() {
+    }
+
+    static String segmentName(int sequence) {
+        return String.format("%s%05d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static boolean isSegment(String fileName) {
+        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+    }
+
+    static int sequenceOf(String fileName) {
+        return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,181 @@
+package hello.aop.exam.journal;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static hello.aop.exam.journal.TraceJournalFormat.*;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * 트레이스 저널 오프라인 리더
+ *
+ * 사용법
+ * java -cp aop.jar hello.aop.exam.journal.TraceJournalReader <저널 디렉토리> [옵션]
+ *
+ *  --method=문자열     시그니처에 문자열이 들어간 것만
+ *  --thread=id        스레드 id
+ *  --outcome=ok|error 결과
+ *  --min-micros=N     N 마이크로초 이상 걸린 것만
+ *  --limit=N          앞에서 N 개만 출력
+ *  --aggregate        레코드 대신 메서드별 집계(호출 수, 에러 수, 평균, 최대, 합계) 출력
+ * */
+public class TraceJournalReader {
+
+    private final Path directory;
+
+    public TraceJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /** 모든 세그먼트의 레코드를 순서대로 읽는다. 결과가 0 인(덜 쓴) 레코드는 건너뛴다 */
+    public List<TraceRecord> read(Predicate<TraceRecord> filter) throws IOException {
+        Map<Integer, String> signatures = new HashMap<>();
+        MethodDictionary.read(directory.resolve(DICTIONARY_FILE))
+                .forEach((signature, id) -> signatures.put(id, signature));
+
+        List<TraceRecord> result = new ArrayList<>();
+        for (Path segment : TraceJournal.segments(directory)) {
+            readSegment(segment, signatures, filter, result);
+        }
+        return result;
+    }
+
+    private void readSegment(Path segment, Map<Integer, String> signatures,
+                             Predicate<TraceRecord> filter, List<TraceRecord> result) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("트레이스 저널 파일이 아닙니다: " + segment);
+            }
+
+            int recordSize = buffer.getInt(8);
+            long createdMillis = buffer.getLong(16);
+            long createdNanos = buffer.getLong(24);
+
+            for (int offset = HEADER_SIZE; offset + recordSize <= buffer.limit(); offset += recordSize) {
+                int outcome = buffer.getInt(offset + OUTCOME_OFFSET);
+                if (outcome == OUTCOME_EMPTY) {
+                    continue;
+                }
+
+                int methodId = buffer.getInt(offset + METHOD_OFFSET);
+                long startNanos = buffer.getLong(offset + START_OFFSET);
+                long endNanos = buffer.getLong(offset + END_OFFSET);
+
+                TraceRecord record = new TraceRecord(
+                        methodId,
+                        signatures.getOrDefault(methodId, "#" + methodId),
+                        buffer.getLong(offset + THREAD_OFFSET),
+                        Instant.ofEpochMilli(createdMillis).plusNanos(startNanos - createdNanos),
+                        endNanos - startNanos,
+                        outcome == OUTCOME_OK);
+
+                if (filter.test(record)) {
+                    result.add(record);
+                }
+            }
+        }
+    }
+
+    /** 메서드별 집계, 합계 시간이 큰 순서 */
+    public static List<Aggregate> aggregate(List<TraceRecord> records) {
+        Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+        for (TraceRecord record : records) {
+            aggregates.computeIfAbsent(record.getSignature(), Aggregate::new).add(record);
+        }
+
+        List<Aggregate> result = new ArrayList<>(aggregates.values());
+        result.sort(Comparator.comparingLong(Aggregate::getTotalNanos).reversed());
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TraceJournalReader <dir> [--method=..] [--thread=..] [--outcome=ok|error]"
+                    + " [--min-micros=..] [--limit=..] [--aggregate]");
+            System.exit(1);
+        }
+        run(args, System.out);
+    }
+
+    static void run(String[] args, PrintStream out) throws IOException {
+        Predicate<TraceRecord> filter = record -> true;
+        boolean aggregate = false;
+        int limit = Integer.MAX_VALUE;
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+
+            if (arg.startsWith("--method=")) {
+                filter = filter.and(record -> record.getSignature().contains(value));
+            } else if (arg.startsWith("--thread=")) {
+                long threadId = Long.parseLong(value);
+                filter = filter.and(record -> record.getThreadId() == threadId);
+            } else if (arg.startsWith("--outcome=")) {
+                boolean success = "ok".equalsIgnoreCase(value);
+                filter = filter.and(record -> record.isSuccess() == success);
+            } else if (arg.startsWith("--min-micros=")) {
+                long minNanos = Long.parseLong(value) * 1_000;
+                filter = filter.and(record -> record.getDurationNanos() >= minNanos);
+            } else if (arg.startsWith("--limit=")) {
+                limit = Integer.parseInt(value);
+            } else if (arg.equals("--aggregate")) {
+                aggregate = true;
+            } else {
+                throw new IllegalArgumentException("알 수 없는 옵션: " + arg);
+            }
+        }
+
+        List<TraceRecord> records = new TraceJournalReader(Paths.get(args[0])).read(filter);
+
+        if (aggregate) {
+            out.printf("%8s %8s %12s %12s %14s  %s%n", "count", "errors", "avg(us)", "max(us)", "total(us)", "method");
+            for (Aggregate each : aggregate(records)) {
+                out.printf("%8d %8d %12d %12d %14d  %s%n", each.getCount(), each.getErrors(),
+                        each.getTotalNanos() / each.getCount() / 1_000, each.getMaxNanos() / 1_000,
+                        each.getTotalNanos() / 1_000, each.getSignature());
+            }
+            return;
+        }
+
+        records.stream().limit(limit).forEach(out::println);
+    }
+
+    @Getter
+    public static class Aggregate {
+
+        private final String signature;
+        private long count;
+        private long errors;
+        private long totalNanos;
+        private long maxNanos;
+
+        Aggregate(String signature) {
+            this.signature = signature;
+        }
+
+        void add(TraceRecord record) {
+            count++;
+            if (!record.isSuccess()) {
+                errors++;
+            }
+            totalNanos += record.getDurationNanos();
+            maxNanos = Math.max(maxNanos, record.getDurationNanos());
+        }
+    }
+}
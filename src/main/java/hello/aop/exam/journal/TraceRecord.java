@@ -0,0 +1,27 @@
+package hello.aop.exam.journal;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+/** 저널에서 읽은 레코드 하나 */
+@Getter
+@RequiredArgsConstructor
+public class TraceRecord {
+
+    private final int methodId;
+    private final String signature;
+    private final long threadId;
+
+    //실제 시각으로 바꾼 시작 시각
+    private final Instant start;
+    private final long durationNanos;
+    private final boolean success;
+
+    @Override
+    public String toString() {
+        return start + " thread=" + threadId + " " + (success ? "ok" : "error")
+                + " " + durationNanos / 1_000 + "us " + signature;
+    }
+}
@@ -0,0 +1,41 @@
+package hello.aop.exam.key;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 애노테이션의 key 표현식(SpEL)으로 호출 인수에서 키를 만드는
+ *
+ * 파라미터 이름(#itemId) 또는 위치(#p0, #a0)로 인수를 쓸 수 있고 루트 객체는 타겟
+ * ex) "#itemId", "#p0 + ':' + #p1", "#order.memberId"
+ *
+ * 표현식은 처음 한 번만 파싱하고 이후에는 캐시를 사용한다.
+ * */
+public class KeyExpressionResolver {
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    //표현식 문자열 -> 파싱된 표현식
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public Object resolve(ProceedingJoinPoint joinPoint, String expression) {
+        Expression parsed = expressions.get(expression);
+        if (parsed == null) {
+            parsed = expressions.computeIfAbsent(expression, parser::parseExpression);
+        }
+
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(joinPoint.getTarget(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs(), parameterNameDiscoverer);
+        return parsed.getValue(context);
+    }
+}
@@ -0,0 +1,87 @@
+package hello.aop.exam.latency;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 응답 시간 N 개로 백분위를 구하는
+ *
+ * 기록은 링 버퍼에 한 칸 쓰는 것뿐이라 호출 경로에 락이 없다.
+ * 백분위는 정렬이 필요해서 매번 구하지 않고 기록이 일정 수 이상 쌓였을 때만 다시 계산한다.
+ * 다시 계산은 CAS 로 한 스레드만 하고, 그동안 다른 스레드는 기다리지 않고 마지막으로 계산한 값을 쓴다.
+ * 정렬용 배열도 계산하는 스레드 하나만 쓰므로 한 번 만들어서 계속 쓴다.
+ * */
+public class LatencyWindow {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final int recomputeEvery;
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+
+    //recomputing 을 잡은 스레드만 쓴다
+    private final long[] sorted;
+
+    //마지막으로 계산한 백분위
+    private volatile Snapshot snapshot = new Snapshot(0, -1, 0);
+
+    public LatencyWindow(int size) {
+        this.samples = new AtomicLongArray(size);
+        this.recomputeEvery = Math.max(1, size / 8);
+        this.sorted = new long[size];
+    }
+
+    public void record(long nanos) {
+        long index = count.getAndIncrement();
+        samples.lazySet((int) (index % samples.length()), nanos);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    /** 기록이 없거나 첫 계산이 아직 끝나지 않았으면 -1 */
+    public long percentile(double percentile) {
+        long current = count.get();
+        if (current == 0) {
+            return -1;
+        }
+
+        Snapshot cached = snapshot;
+        if (cached.percentile == percentile && current - cached.count < recomputeEvery && cached.count > 0) {
+            return cached.value;
+        }
+
+        if (!recomputing.compareAndSet(false, true)) {
+            return cached.value;
+        }
+        try {
+            int size = (int) Math.min(current, samples.length());
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted, 0, size);
+
+            int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            long value = sorted[Math.max(0, Math.min(size - 1, index))];
+            snapshot = new Snapshot(current, value, percentile);
+            return value;
+        } finally {
+            recomputing.set(false);
+        }
+    }
+
+    private static class Snapshot {
+
+        private final long count;
+        private final long value;
+        private final double percentile;
+
+        Snapshot(long count, long value, double percentile) {
+            this.count = count;
+            this.value = value;
+            this.percentile = percentile;
+        }
+    }
+}
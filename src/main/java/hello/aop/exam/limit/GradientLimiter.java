@@ -0,0 +1,185 @@
+package hello.aop.exam.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 응답 시간 기울기로 동시 실행 한도를 조절하는 리미터 (Vegas, gradient 방식)
+ *
+ * 부하가 없을 때의 응답 시간(noLoadRtt)과 지금 응답 시간(rtt)을 비교해서
+ * - 지금이 훨씬 느리면 큐가 쌓이고 있다는 뜻이므로 한도를 비율만큼 줄이고 (곱셈 감소)
+ * - 비슷하면 sqrt(limit) 만큼 여유를 더해 조금씩 늘린다. (덧셈 증가)
+ *
+ * gradient = clamp(tolerance * noLoadRtt / rtt, 0.5, 1.0)
+ * newLimit = limit * gradient + sqrt(limit), 급하게 흔들리지 않도록 smoothing 으로 섞는다.
+ *
+ * noLoadRtt 는 최근 두 구간(구간당 600 개)의 최소 응답 시간이다.
+ * 저장소가 평소보다 빨라지거나 느려진 상태로 굳어지면 한 구간 뒤에 기준도 따라간다.
+ *
+ * 실행 중인 수는 AtomicInteger 를 CAS 로 올려서 자리를 얻고, 한도는 double 비트를 담은 AtomicLong 을 CAS 로 바꾼다.
+ * 그래서 자리가 있으면 얻고 돌려주는 동안 락을 잡지 않는다.
+ * 자리가 없어서 기다리는 호출만 락과 Condition 으로 잠들고, 돌려줄 때 기다리는 호출이 있으면 하나만 깨운다.
+ *
+ * 구간 최소 응답 시간도 Atomic 으로 모은다. 구간이 바뀌는 순간에 들어온 기록 몇 개는 이전 구간으로 갈 수 있는데
+ * 최소값만 쓰므로 한도 계산에는 영향이 거의 없다.
+ * */
+public class GradientLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int WINDOW = 600;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+
+    //double 비트
+    private final AtomicLong limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    //자리가 날 때까지 기다리는 호출
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    //지금 구간, 이전 구간의 최소 응답 시간
+    private final AtomicLong windowMinRtt = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong previousMinRtt = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger windowSamples = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public GradientLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    /**
+     * 자리를 얻으면 true
+     * maxWaitNanos 가 0 이면 기다리지 않는다.
+     * */
+    public boolean acquire(long maxWaitNanos) throws InterruptedException {
+        if (tryAcquire()) {
+            accepted.increment();
+            return true;
+        }
+        if (maxWaitNanos <= 0) {
+            rejected.increment();
+            return false;
+        }
+
+        long remaining = maxWaitNanos;
+        lock.lockInterruptibly();
+        //release 가 waiters 를 보기 전에 올려둬야 깨우는 신호를 놓치지 않는다
+        waiters.incrementAndGet();
+        try {
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return false;
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+        accepted.increment();
+        return true;
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 호출이 끝났을 때
+     * 예외로 끝난 호출은 응답 시간이 정상 처리 시간을 나타내지 않으므로 한도 계산에 넣지 않는다.
+     * */
+    public void release(long rttNanos, boolean success) {
+        int current = inFlight.getAndDecrement();
+        if (success) {
+            update(rttNanos, current);
+        }
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtEnd) {
+        long rtt = Math.max(1, rttNanos);
+        windowMinRtt.accumulateAndGet(rtt, Math::min);
+        if (windowSamples.incrementAndGet() == WINDOW) {
+            previousMinRtt.set(windowMinRtt.getAndSet(Long.MAX_VALUE));
+            windowSamples.set(0);
+        }
+        long noLoadRtt = Math.min(windowMinRtt.get(), previousMinRtt.get());
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * noLoadRtt / rtt));
+
+        while (true) {
+            long bits = limit.get();
+            double current = Double.longBitsToDouble(bits);
+            double newLimit = current * gradient + Math.sqrt(current);
+            newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+            //한도의 절반도 쓰지 않고 있으면 늘릴 근거가 없다
+            if (newLimit > current && inFlightAtEnd < current / 2) {
+                return;
+            }
+            newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            if (limit.compareAndSet(bits, Double.doubleToLongBits(newLimit))) {
+                return;
+            }
+        }
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limit.get());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public double getRejectionRate() {
+        long rejectedCount = rejected.sum();
+        long total = accepted.sum() + rejectedCount;
+        return total == 0 ? 0 : (double) rejectedCount / total;
+    }
+}
@@ -0,0 +1,9 @@
+package hello.aop.exam.limit;
+
+/** 동시 실행 한도를 넘어서 거절된 호출 */
+public class LimitExceededException extends IllegalStateException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
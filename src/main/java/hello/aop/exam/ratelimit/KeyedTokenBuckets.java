@@ -0,0 +1,70 @@
+package hello.aop.exam.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 키마다 TokenBucket 하나, 크기가 정해진 맵
+ *
+ * 키 수가 maxKeys 에 닿으면 새 키를 넣는 스레드 하나가 맵을 훑어서 한동안(idle) 호출이 없던 버킷을 지운다.
+ * 한동안 호출이 없던 버킷은 가득 찬 상태라 지워도 한도 계산이 달라지지 않는다.
+ * 그래도 자리가 모자라면 아무 버킷이나 지운다. 이때 지워진 키는 버스트만큼 한 번 더 허용될 수 있다.
+ *
+ * 다른 스레드가 정리 중이면 기다리지 않고 넘어가므로 얻는 경로에는 여전히 락이 없다.
+ * */
+public class KeyedTokenBuckets {
+
+    private final Map<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final Supplier<TokenBucket> factory;
+    private final int maxKeys;
+    private final long idleNanos;
+
+    public KeyedTokenBuckets(Supplier<TokenBucket> factory, int maxKeys, long idle, TimeUnit unit) {
+        this.factory = factory;
+        this.maxKeys = maxKeys;
+        this.idleNanos = unit.toNanos(idle);
+    }
+
+    public boolean tryAcquire(Object key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evict();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> factory.get());
+        }
+        return bucket.tryAcquire();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+
+            //목표는 90% 까지, 매번 정리하지 않도록 여유를 둔다
+            int target = maxKeys - Math.max(1, maxKeys / 10);
+            if (buckets.size() > target) {
+                buckets.values().removeIf(bucket -> bucket.isFull(now));
+            }
+            Iterator<TokenBucket> iterator = buckets.values().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package hello.aop.exam.ratelimit;
+
+/** 호출 한도를 넘어서 거절된 호출 */
+public class RateLimitExceededException extends IllegalStateException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
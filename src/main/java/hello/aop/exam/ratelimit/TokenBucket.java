@@ -0,0 +1,57 @@
+package hello.aop.exam.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 락 없는 토큰 버킷 (GCRA)
+ *
+ * 토큰 수를 따로 세지 않고 "다음 호출이 이론상 도착해야 하는 시각(tat)" 하나만 AtomicLong 에 둔다.
+ * 호출 하나는 tat 를 interval(period / permits) 만큼 뒤로 민다.
+ * tat 가 지금보다 burst 만큼 이상 앞서 있으면 토큰이 없는 것
+ *
+ * 얻는 쪽은 CAS 한 번, 실패하면 다시 읽고 시도할 뿐 락이나 대기가 없다.
+ * tat 가 지금보다 과거면 버킷이 가득 찬 상태라 새로 만든 버킷과 같다. (KeyedTokenBuckets 가 이걸 보고 지운다)
+ * */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong tat;
+
+    public TokenBucket(int permits, long period, TimeUnit unit, int burst) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits 는 1 이상: " + permits);
+        }
+        this.intervalNanos = Math.max(1, unit.toNanos(period) / permits);
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long now) {
+        while (true) {
+            long current = tat.get();
+            long base = current - now > 0 ? current : now;
+            if (base - now > toleranceNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /** 지금 가득 차 있는지, 이 상태의 버킷은 버려도 다음 호출에 차이가 없다 */
+    boolean isFull(long now) {
+        return tat.get() - now <= 0;
+    }
+
+    /** 마지막 호출 이후 idleNanos 이상 지났는지 */
+    boolean isIdle(long now, long idleNanos) {
+        return now - tat.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,87 @@
+package hello.aop.exam.resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 현재 스레드의 CPU 시간, 할당 바이트를 호출 앞뒤로 재서 이름별로 모으는
+ *
+ * ThreadMXBean 호출 자체가 수백 ns 라 모든 호출을 재면 측정이 비용이 된다.
+ * sampleRate 비율의 호출만 재고 나머지는 호출 수만 센다.
+ *
+ * 할당 바이트는 com.sun.management.ThreadMXBean 이 있는 JVM 에서만 잰다. 없으면 0
+ * */
+@Slf4j
+public class ResourceMeter {
+
+    private final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations;
+    private final boolean cpuSupported;
+    private final double sampleRate;
+
+    //이름 -> 통계
+    private final Map<String, ResourceStats> stats = new ConcurrentHashMap<>();
+
+    public ResourceMeter(double sampleRate) {
+        this.sampleRate = sampleRate;
+        this.cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+        if (cpuSupported && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+
+        com.sun.management.ThreadMXBean allocations = null;
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            allocations = (com.sun.management.ThreadMXBean) threads;
+            if (!allocations.isThreadAllocatedMemoryEnabled()) {
+                allocations.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.allocations = allocations;
+        log.info("[resource] sampleRate={} cpu={} allocation={}", sampleRate, cpuSupported, allocations != null);
+    }
+
+    public ResourceStats stats(String name) {
+        ResourceStats result = stats.get(name);
+        if (result == null) {
+            result = stats.computeIfAbsent(name, ResourceStats::new);
+        }
+        return result;
+    }
+
+    /** 이번 호출을 잴지, 재지 않는 호출도 호출 수는 센다 */
+    public boolean sample(ResourceStats target) {
+        target.recordCall();
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public long cpuNanos() {
+        return cpuSupported ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    public long allocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    public void record(ResourceStats target, long cpuBefore, long allocatedBefore) {
+        target.recordSample(cpuNanos() - cpuBefore, allocatedBytes() - allocatedBefore);
+    }
+
+    /** sort 가 "alloc" 이면 할당 바이트, 아니면 CPU 시간 추정치가 큰 순서로 limit 개 */
+    public List<ResourceStats> top(String sort, int limit) {
+        Comparator<ResourceStats> comparator = "alloc".equals(sort)
+                ? Comparator.comparingLong(ResourceStats::getEstimatedAllocatedBytes)
+                : Comparator.comparingLong(ResourceStats::getEstimatedCpuNanos);
+
+        List<ResourceStats> result = new ArrayList<>(stats.values());
+        result.sort(comparator.reversed().thenComparing(ResourceStats::getName));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+}
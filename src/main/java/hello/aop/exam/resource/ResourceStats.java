@@ -0,0 +1,81 @@
+package hello.aop.exam.resource;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메서드 하나가 쓴 CPU 시간과 할당 바이트
+ *
+ * 샘플링한 호출만 재므로 합계는 샘플 합계, 전체 추정치는 평균 * 전체 호출 수
+ * 안쪽 호출까지 포함한 값 (OrderService 값에 OrderRepository 값이 들어 있다)
+ *
+ * 여러 스레드에서 동시에 올리므로 LongAdder, 셀이 스레드별로 나뉘어 있어서 경합이 적다
+ * */
+public class ResourceStats {
+
+    private final String name;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public ResourceStats(String name) {
+        this.name = name;
+    }
+
+    void recordCall() {
+        calls.increment();
+    }
+
+    void recordSample(long cpuNanos, long allocatedBytes) {
+        sampled.increment();
+        this.cpuNanos.add(cpuNanos);
+        this.allocatedBytes.add(allocatedBytes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    //샘플 한 번 평균
+    public long getAvgCpuNanos() {
+        long count = getSampled();
+        return count == 0 ? 0 : getCpuNanos() / count;
+    }
+
+    public long getAvgAllocatedBytes() {
+        long count = getSampled();
+        return count == 0 ? 0 : getAllocatedBytes() / count;
+    }
+
+    //전체 호출로 환산한 추정치
+    public long getEstimatedCpuNanos() {
+        return getAvgCpuNanos() * getCalls();
+    }
+
+    public long getEstimatedAllocatedBytes() {
+        return getAvgAllocatedBytes() * getCalls();
+    }
+
+    @Override
+    public String toString() {
+        return name + " calls=" + getCalls() + " sampled=" + getSampled()
+                + " cpu=" + getAvgCpuNanos() + "ns alloc=" + getAvgAllocatedBytes() + "B";
+    }
+}
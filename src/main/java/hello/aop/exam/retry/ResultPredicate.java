@@ -0,0 +1,10 @@
+package hello.aop.exam.retry;
+
+/**
+ * @Retry(retryOnResult = ...) 결과를 보고 다시 시도할지 정하는
+ * 메서드마다 한 번 만들어서 계속 쓰므로 상태 없이, 인수 없는 생성자로
+ * */
+public interface ResultPredicate {
+
+    boolean shouldRetry(Object result);
+}
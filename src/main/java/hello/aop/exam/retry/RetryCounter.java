@@ -0,0 +1,24 @@
+package hello.aop.exam.retry;
+
+/**
+ * 지금 스레드에서 재시도가 몇 번 있었는지 세는
+ *
+ * RetryAspect 와 데코레이터가 재시도할 때마다 올리고, 바깥에서는 호출 전후 값의 차이로
+ * 그 호출 안에서 있었던 재시도 수를 안다. (SlowCallAspect)
+ * 스레드 하나에서만 읽고 쓰므로 배열 한 칸짜리 ThreadLocal
+ * */
+public final class RetryCounter {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private RetryCounter() {
+    }
+
+    public static void increment() {
+        COUNT.get()[0]++;
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,93 @@
+package hello.aop.exam.retry;
+
+import hello.aop.exam.annotation.Retry;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 메서드 하나의 @Retry 판단표
+ *
+ * 애노테이션은 메서드마다 한 번만 읽고, 예외를 재시도할지는 예외 클래스마다 한 번만 계산해서 기억한다.
+ * 하위 타입 검사(isAssignableFrom)를 매번 include, exclude 전체에 하지 않고 실패 경로에서는 맵 조회 한 번
+ * 예외 클래스는 몇 개 안 되므로 표가 커지지 않는다.
+ *
+ * RetryAspect 와 생성된 데코레이터가 같이 쓴다.
+ * */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Class<? extends Exception>[] include;
+    private final Class<? extends Exception>[] exclude;
+    private final ResultPredicate[] resultPredicates;
+
+    //예외 클래스 -> 재시도 여부
+    private final Map<Class<?>, Boolean> decisions = new ConcurrentHashMap<>();
+
+    private RetryPolicy(Retry retry) {
+        this.maxAttempts = retry.value();
+        this.include = retry.include();
+        this.exclude = retry.exclude();
+        Class<? extends ResultPredicate>[] predicateTypes = retry.retryOnResult();
+        this.resultPredicates = new ResultPredicate[predicateTypes.length];
+        for (int i = 0; i < predicateTypes.length; i++) {
+            resultPredicates[i] = BeanUtils.instantiateClass(predicateTypes[i]);
+        }
+    }
+
+    public static RetryPolicy of(Retry retry) {
+        return new RetryPolicy(retry);
+    }
+
+    /** 생성된 데코레이터용, 원래 클래스의 메서드에서 @Retry 를 찾는다 */
+    public static RetryPolicy forMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getDeclaredMethod(name, parameterTypes);
+            return of(AnnotationUtils.findAnnotation(method, Retry.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("@Retry 메서드를 찾을 수 없음: " + type.getName() + "." + name, e);
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(Throwable throwable) {
+        Class<?> type = throwable.getClass();
+        Boolean decision = decisions.get(type);
+        if (decision == null) {
+            decision = decisions.computeIfAbsent(type, this::classify);
+        }
+        return decision;
+    }
+
+    public boolean retryOnResult(Object result) {
+        for (ResultPredicate predicate : resultPredicates) {
+            if (predicate.shouldRetry(result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean classify(Class<?> type) {
+        for (Class<? extends Exception> excluded : exclude) {
+            if (excluded.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        if (include.length == 0) {
+            return Exception.class.isAssignableFrom(type);
+        }
+        for (Class<? extends Exception> included : include) {
+            if (included.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
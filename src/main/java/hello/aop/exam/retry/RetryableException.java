@@ -0,0 +1,23 @@
+package hello.aop.exam.retry;
+
+/**
+ * 다시 시도하면 성공할 수 있는 실패, 스택 트레이스를 남기지 않는
+ *
+ * 재시도나 롤백처럼 예외를 흐름 제어로 쓰는 곳에서는 예외가 자주 만들어지는데
+ * 비용 대부분은 생성자에서 스택을 채우는 fillInStackTrace() 에서 나온다. (스택이 깊을수록 비싸다)
+ * 어디서 던졌는지는 메시지와 RetryAspect 로그, JFR 이벤트로 충분하므로 스택을 채우지 않는다.
+ *
+ * IllegalStateException 을 상속해서 기존에 잡던 코드는 그대로 동작한다.
+ * 원인 예외를 추적해야 하는 실패에는 쓰지 않는다.
+ * */
+public class RetryableException extends IllegalStateException {
+
+    public RetryableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
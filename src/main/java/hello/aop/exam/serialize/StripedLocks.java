@@ -0,0 +1,40 @@
+package hello.aop.exam.serialize;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 고정 개수의 락, 키의 해시로 락 하나를 고른다
+ *
+ * 키마다 락을 만들면 락을 언제 지울지가 문제가 되고, 락 하나를 쓰면 서로 다른 키도 줄을 선다.
+ * 락 개수를 고정하면 메모리는 일정하고, 다른 키가 같은 락에 걸릴 확률은 1 / 락 개수
+ *
+ * 한 스레드가 서로 다른 키의 락을 중첩해서 잡으면 다른 스레드와 교착될 수 있다.
+ * 같은 락을 다시 잡는 것은 ReentrantLock 이라 괜찮다.
+ * */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes, boolean fair) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(fair);
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        //해시 하위 비트가 몰려도 고르게 퍼지도록 섞는다
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return locks[hash & mask];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
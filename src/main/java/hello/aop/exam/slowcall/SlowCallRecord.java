@@ -0,0 +1,120 @@
+package hello.aop.exam.slowcall;
+
+import java.util.List;
+
+/**
+ * 느린 호출 하나, 그때의 인수, 스레드, 재시도 수, 안쪽 호출
+ * */
+public class SlowCallRecord {
+
+    private final String signature;
+    private final long timestamp;
+    private final long durationNanos;
+    private final long thresholdNanos;
+    private final String thread;
+    private final String arguments;
+    private final long retries;
+    private final boolean failed;
+    private final List<Span> spans;
+    private final boolean truncated;
+
+    public SlowCallRecord(String signature, long timestamp, long durationNanos, long thresholdNanos, String thread,
+                          String arguments, long retries, boolean failed, List<Span> spans, boolean truncated) {
+        this.signature = signature;
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.thresholdNanos = thresholdNanos;
+        this.thread = thread;
+        this.arguments = arguments;
+        this.retries = retries;
+        this.failed = failed;
+        this.spans = spans;
+        this.truncated = truncated;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    //끝난 시각 (epoch millis)
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public String getArguments() {
+        return arguments;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    //첫 번째가 이 호출 자신
+    public List<Span> getSpans() {
+        return spans;
+    }
+
+    //안쪽 호출이 너무 많아서 다 남기지 못했는지
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public String toString() {
+        return signature + " " + durationNanos / 1000 + "µs > " + thresholdNanos / 1000 + "µs thread=" + thread
+                + " args=" + arguments + " retries=" + retries + " spans=" + spans;
+    }
+
+    /** 안쪽 호출 하나, 시작은 바깥 호출 시작부터의 시간 */
+    public static class Span {
+
+        private final String name;
+        private final int depth;
+        private final long offsetNanos;
+        private final long durationNanos;
+
+        public Span(String name, int depth, long offsetNanos, long durationNanos) {
+            this.name = name;
+            this.depth = depth;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "  ".repeat(depth) + name + " +" + offsetNanos / 1000 + "µs " + durationNanos / 1000 + "µs";
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package hello.aop.exam.slowcall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 최근 느린 호출 N 개, 꽉 차면 오래된 것부터 덮어쓴다
+ * 쓰기는 칸 번호 하나 얻고 한 칸 쓰는 것뿐
+ * */
+public class SlowCallRing {
+
+    private final AtomicReferenceArray<SlowCallRecord> records;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowCallRing(int capacity) {
+        this.records = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(SlowCallRecord record) {
+        long index = sequence.getAndIncrement();
+        records.set((int) (index % records.length()), record);
+    }
+
+    /** 최근 것부터 */
+    public List<SlowCallRecord> records() {
+        long last = sequence.get();
+        int size = (int) Math.min(last, records.length());
+        List<SlowCallRecord> result = new ArrayList<>(size);
+        for (long i = last - 1; i >= last - size; i--) {
+            SlowCallRecord record = records.get((int) (i % records.length()));
+            if (record != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    //지금까지 잡힌 느린 호출 수, 덮어쓴 것 포함
+    public long total() {
+        return sequence.get();
+    }
+}
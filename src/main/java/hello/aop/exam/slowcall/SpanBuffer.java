@@ -0,0 +1,91 @@
+package hello.aop.exam.slowcall;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 스레드별로 지금 진행 중인 가장 바깥 호출 아래의 호출들을 남겨두는 버퍼
+ *
+ * 느린 호출인지는 끝나야 알 수 있어서 안쪽 호출 기록은 항상 남겨야 한다.
+ * 미리 잡은 배열에 이름, 시작, 끝, 깊이만 쓰므로 호출마다 객체를 만들지 않는다.
+ * 가장 바깥 호출이 끝나면 비운다. 배열이 차면 그 뒤 호출은 남기지 않는다.
+ * */
+public final class SpanBuffer {
+
+    private static final ThreadLocal<SpanBuffer> BUFFERS = ThreadLocal.withInitial(() -> new SpanBuffer(64));
+
+    private final String[] names;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] depths;
+    private int size;
+    private int depth;
+    private boolean truncated;
+
+    private SpanBuffer(int capacity) {
+        this.names = new String[capacity];
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.depths = new int[capacity];
+    }
+
+    public static SpanBuffer current() {
+        return BUFFERS.get();
+    }
+
+    /** 호출 시작, 돌려준 번호를 exit() 에 넘긴다. 배열이 찼으면 -1 */
+    public int enter(String name, long start) {
+        int index = -1;
+        if (size < names.length) {
+            index = size++;
+            names[index] = name;
+            starts[index] = start;
+            ends[index] = -1;
+            depths[index] = depth;
+        } else {
+            truncated = true;
+        }
+        depth++;
+        return index;
+    }
+
+    public void exit(int index, long end) {
+        if (index >= 0) {
+            ends[index] = end;
+        }
+        depth--;
+    }
+
+    /** 가장 바깥 호출이 끝났으면 비운다 */
+    public void resetIfOutermost() {
+        if (depth == 0) {
+            for (int i = 0; i < size; i++) {
+                names[i] = null;
+            }
+            size = 0;
+            truncated = false;
+        }
+    }
+
+    /** index 호출과 그 안쪽 호출들, 시작 시각은 index 호출 기준 */
+    public List<SlowCallRecord.Span> spans(int index) {
+        List<SlowCallRecord.Span> result = new ArrayList<>();
+        if (index < 0) {
+            return result;
+        }
+        long origin = starts[index];
+        int baseDepth = depths[index];
+        for (int i = index; i < size; i++) {
+            if (i > index && depths[i] <= baseDepth) {
+                break;
+            }
+            long duration = ends[i] < 0 ? -1 : ends[i] - starts[i];
+            result.add(new SlowCallRecord.Span(names[i], depths[i] - baseDepth, starts[i] - origin, duration));
+        }
+        return result;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,29 @@
+package hello.aop.importer;
+
+import lombok.Getter;
+
+/**
+ * 파일 가져오기 결과
+ * readerBlockedMillis 는 큐가 차서 읽기 스레드가 기다린 시간, 0 보다 크면 워커가 병목
+ * */
+@Getter
+public class ImportResult {
+
+    private final long rows;
+    private final long failedRows;
+    private final long bytes;
+    private final long elapsedMillis;
+    private final long readerBlockedMillis;
+
+    ImportResult(long rows, long failedRows, long bytes, long elapsedMillis, long readerBlockedMillis) {
+        this.rows = rows;
+        this.failedRows = failedRows;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.readerBlockedMillis = readerBlockedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : rows;
+    }
+}
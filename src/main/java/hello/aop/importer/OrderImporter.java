@@ -0,0 +1,264 @@
+package hello.aop.importer;
+
+import hello.aop.order.BatchResult;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * 한 줄에 상품 id 하나인 큰 파일을 읽어서 주문으로 넣는
+ *
+ * 읽기 스레드 하나가 FileChannel 로 order-import.buffer-bytes 씩 읽고
+ * 완전한 줄만 order-import.batch-size 줄씩 byte[] 로 모아서 큐에 넣는다.
+ * 읽기 스레드는 줄마다 String 을 만들지 않는다. 문자열로 바꾸는 건 워커가 나눠서 한다.
+ * 메모리 매핑은 2GB 넘는 파일을 여러 번 나눠 매핑해야 하고 다 읽을 때까지 페이지 캐시를 잡고 있어서 쓰지 않았다.
+ *
+ * 큐는 order-import.queue-capacity 묶음으로 제한한다. 워커가 느리면 읽기가 멈추므로 (백프레셔)
+ * 파일이 아무리 커도 메모리에는 큐 크기만큼만 올라온다.
+ * 워커 order-import.workers 개가 묶음을 OrderService.orderItems 로 넘긴다. 어드바이스는 묶음마다 한 번
+ *
+ * order-import.progress-millis 마다 처리한 줄 수, 초당 줄 수, 큐 상태를 로그로 남긴다.
+ * 빈 줄은 건너뛰고 줄 끝의 \r 은 뗀다.
+ * */
+@Slf4j
+@Component
+public class OrderImporter {
+
+    //읽기가 끝났다는 표시, 워커마다 하나씩
+    private static final byte[] END = new byte[0];
+
+    private final OrderService orderService;
+    private final int workers;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int bufferBytes;
+    private final long progressNanos;
+
+    public OrderImporter(OrderService orderService,
+                         @Value("${order-import.workers:4}") int workers,
+                         @Value("${order-import.batch-size:500}") int batchSize,
+                         @Value("${order-import.queue-capacity:16}") int queueCapacity,
+                         @Value("${order-import.buffer-bytes:65536}") int bufferBytes,
+                         @Value("${order-import.progress-millis:1000}") long progressMillis) {
+        this.orderService = orderService;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.bufferBytes = bufferBytes;
+        this.progressNanos = TimeUnit.MILLISECONDS.toNanos(progressMillis);
+    }
+
+    public ImportResult importFile(Path file) throws IOException, InterruptedException {
+        BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(queueCapacity);
+        LongAdder rows = new LongAdder();
+        LongAdder failedRows = new LongAdder();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> work(queue, rows, failedRows));
+        }
+
+        Progress progress = new Progress(System.nanoTime());
+        long bytes;
+        try {
+            bytes = read(file, queue, rows, progress);
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        ImportResult result = new ImportResult(rows.sum(), failedRows.sum(), bytes,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - progress.start),
+                TimeUnit.NANOSECONDS.toMillis(progress.blockedNanos));
+        log.info("[import] done {} rows={} failed={} {}ms {} rows/s blocked={}ms", file, result.getRows(),
+                result.getFailedRows(), result.getElapsedMillis(), (long) result.getRowsPerSecond(),
+                result.getReaderBlockedMillis());
+        return result;
+    }
+
+    /**
+     * 완전한 줄만 모아서 batch-size 줄이 되면 큐에 넣는다.
+     * 덜 읽은 마지막 줄은 버퍼 앞으로 당겨서 다음 읽기에 잇는다.
+     * */
+    private long read(Path file, BlockingQueue<byte[]> queue, LongAdder rows, Progress progress)
+            throws IOException, InterruptedException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferBytes);
+        Batch batch = new Batch(bufferBytes);
+        long bytes = 0;
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            while (true) {
+                int read = channel.read(buffer);
+                if (read > 0) {
+                    bytes += read;
+                }
+                buffer.flip();
+
+                int cut = buffer.position();
+                for (int i = buffer.position(); i < buffer.limit(); i++) {
+                    if (buffer.get(i) != '\n') {
+                        continue;
+                    }
+                    cut = i + 1;
+                    if (++batch.lines == batchSize) {
+                        batch.append(buffer, cut);
+                        offer(queue, batch.take(), rows, progress);
+                    }
+                }
+                batch.append(buffer, cut);
+
+                if (read < 0) {
+                    //마지막 줄에 줄바꿈이 없는 경우
+                    batch.append(buffer, buffer.limit());
+                    if (batch.size > 0) {
+                        offer(queue, batch.take(), rows, progress);
+                    }
+                    return bytes;
+                }
+                if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                    throw new IllegalStateException("order-import.buffer-bytes(" + bufferBytes + ") 보다 긴 줄: " + file);
+                }
+                buffer.compact();
+            }
+        }
+    }
+
+    private void offer(BlockingQueue<byte[]> queue, byte[] chunk, LongAdder rows, Progress progress)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        //큐가 차 있으면 기다리는 동안에도 진행 상황을 남긴다
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            report(queue, rows, progress);
+        }
+        progress.blockedNanos += System.nanoTime() - start;
+        report(queue, rows, progress);
+    }
+
+    private void report(BlockingQueue<byte[]> queue, LongAdder rows, Progress progress) {
+        long now = System.nanoTime();
+        if (now - progress.lastReport < progressNanos) {
+            return;
+        }
+        long current = rows.sum();
+        double rate = (current - progress.lastRows) * 1e9 / (now - progress.lastReport);
+        log.info("[import] rows={} {} rows/s queue={}/{}", current, (long) rate, queue.size(), queueCapacity);
+        progress.lastReport = now;
+        progress.lastRows = current;
+    }
+
+    private void work(BlockingQueue<byte[]> queue, LongAdder rows, LongAdder failedRows) {
+        try {
+            while (true) {
+                byte[] chunk = queue.take();
+                if (chunk == END) {
+                    return;
+                }
+
+                List<String> itemIds = lines(chunk);
+                if (itemIds.isEmpty()) {
+                    continue;
+                }
+                try {
+                    BatchResult result = orderService.orderItems(itemIds);
+                    failedRows.add(result.getFailed().size());
+                } catch (RuntimeException e) {
+                    //타임아웃, 한도 초과처럼 묶음 전체가 실패
+                    log.warn("[import] batch of {} failed: {}", itemIds.size(), e.toString());
+                    failedRows.add(itemIds.size());
+                }
+                rows.add(itemIds.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static List<String> lines(byte[] chunk) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= chunk.length; i++) {
+            if (i < chunk.length && chunk[i] != '\n') {
+                continue;
+            }
+            int end = i;
+            if (end > start && chunk[end - 1] == '\r') {
+                end--;
+            }
+            if (end > start) {
+                result.add(new String(chunk, start, end - start, StandardCharsets.UTF_8));
+            }
+            start = i + 1;
+        }
+        return result;
+    }
+
+    //큐에 넣기 전까지 모으는 줄들, 읽기 스레드만 쓴다
+    private static class Batch {
+
+        private byte[] data;
+        private int size;
+        private int lines;
+
+        Batch(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        //버퍼의 position 부터 end 까지 붙이고 position 을 end 로
+        void append(ByteBuffer buffer, int end) {
+            int length = end - buffer.position();
+            if (size + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+            }
+            buffer.get(data, size, length);
+            size += length;
+        }
+
+        byte[] take() {
+            byte[] chunk = Arrays.copyOf(data, size);
+            size = 0;
+            lines = 0;
+            return chunk;
+        }
+    }
+
+    //읽기 스레드만 쓰는 상태
+    private static class Progress {
+
+        private final long start;
+        private long lastReport;
+        private long lastRows;
+        private long blockedNanos;
+
+        Progress(long start) {
+            this.start = start;
+            this.lastReport = start;
+        }
+    }
+}
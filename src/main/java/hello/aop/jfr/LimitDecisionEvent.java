@@ -0,0 +1,40 @@
+package hello.aop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 한도 판단 하나, 허용인지 거절인지 (AdaptiveLimitAspect, RateLimitAspect)
+ *
+ * 허용도 남기므로 호출이 많으면 이벤트도 많다. 거절만 보려면 읽을 때 accepted 로 거른다.
+ * */
+@Name("hello.aop.LimitDecision")
+@Label("Limit Decision")
+@Description("@AdaptiveLimit, @RateLimit 허용/거절")
+@Category({"hello.aop", "Limit"})
+@StackTrace(false)
+public class LimitDecisionEvent extends Event {
+
+    @Label("Limiter")
+    @Description("adaptive, rate")
+    public String limiter;
+
+    @Label("Signature")
+    public String signature;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Accepted")
+    public boolean accepted;
+
+    @Label("Limit")
+    public int limit;
+
+    @Label("In Flight")
+    public int inFlight;
+}
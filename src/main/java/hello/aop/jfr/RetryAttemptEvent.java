@@ -0,0 +1,35 @@
+package hello.aop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @Retry 메서드의 실패한 시도 하나 (RetryAspect)
+ * 이벤트 길이는 그 시도가 걸린 시간
+ * */
+@Name("hello.aop.RetryAttempt")
+@Label("Retry Attempt")
+@Description("@Retry 메서드의 실패한 시도")
+@Category({"hello.aop", "Retry"})
+@StackTrace(false)
+public class RetryAttemptEvent extends Event {
+
+    @Label("Signature")
+    public String signature;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Max Attempts")
+    public int maxAttempts;
+
+    @Label("Exception Type")
+    public String exceptionType;
+
+    @Label("Exception Message")
+    public String exceptionMessage;
+}
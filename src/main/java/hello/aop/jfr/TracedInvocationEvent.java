@@ -0,0 +1,27 @@
+package hello.aop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @Trace 메서드 호출 (TraceAspect)
+ *
+ * @Before 어드바이스라 길이가 없는 순간 이벤트
+ * */
+@Name("hello.aop.TracedInvocation")
+@Label("Traced Invocation")
+@Description("@Trace 가 붙은 메서드 호출")
+@Category({"hello.aop", "Trace"})
+@StackTrace(false)
+public class TracedInvocationEvent extends Event {
+
+    @Label("Signature")
+    public String signature;
+
+    @Label("Arguments")
+    public String arguments;
+}
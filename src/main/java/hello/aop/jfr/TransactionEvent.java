@@ -0,0 +1,28 @@
+package hello.aop.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 트랜잭션 시작부터 커밋 또는 롤백까지 (AspectV5Order.TxAspect)
+ * */
+@Name("hello.aop.Transaction")
+@Label("Transaction")
+@Description("TxAspect 트랜잭션 경계")
+@Category({"hello.aop", "Transaction"})
+@StackTrace(false)
+public class TransactionEvent extends Event {
+
+    @Label("Signature")
+    public String signature;
+
+    @Label("Committed")
+    public boolean committed;
+
+    @Label("Exception Type")
+    public String exceptionType;
+}
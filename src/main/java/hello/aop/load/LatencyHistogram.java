@@ -0,0 +1,76 @@
+package hello.aop.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 나노초 지연 히스토그램, 값마다 오차 1/64 이내
+ *
+ * LatencyWindow 처럼 최근 N 개만 보면 부하 테스트 전체의 꼬리 지연이 잘려나가므로 모든 기록을 센다.
+ * 값을 저장하지 않고 로그-선형 버킷의 개수만 센다. 128 미만은 그대로, 그 위는 2배 구간마다 64 칸.
+ * 기록은 배열 한 칸 증가라 여러 스레드가 락 없이 기록한다.
+ * */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    //2^45 나노초 (약 9시간) 위는 맨 끝 칸
+    private static final int MAX_SHIFT = 45 - SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS * (MAX_SHIFT + 2));
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /** 버킷의 위쪽 경계, 기록이 없으면 0 */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int index(long value) {
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = Math.min(MAX_SHIFT, Math.max(0, highestBit - SUB_BUCKET_BITS));
+        long subBucket = Math.min(2 * SUB_BUCKETS - 1, value >> shift);
+        return (int) (shift * SUB_BUCKETS + subBucket);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
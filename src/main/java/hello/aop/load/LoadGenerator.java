@@ -0,0 +1,275 @@
+package hello.aop.load;
+
+import hello.aop.AopApplication;
+import hello.aop.exam.ExamService;
+import hello.aop.member.MemberService;
+import hello.aop.order.OrderService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 열린 루프(open-loop) 부하 생성기
+ *
+ * ExamTest 처럼 for 문으로 부르면 앞 호출이 끝나야 다음 호출을 보내므로 느려질수록 요청도 덜 보내서
+ * 느린 구간이 결과에서 빠진다. (coordinated omission)
+ * 여기서는 요청마다 보낼 시각을 rate 로 미리 정해두고, 워커가 밀려 있어도 그 시각에 큐에 넣는다.
+ * 지연은 예정 시각부터 재므로 밀려서 기다린 시간도 들어간다.
+ *
+ * 사용법
+ * java -cp aop.jar hello.aop.load.LoadGenerator [옵션]
+ *
+ *  --rate=N              초당 요청 수, 모든 메서드 합계 (기본 200)
+ *  --concurrency=N       워커 스레드 수 (기본 4)
+ *  --duration-millis=N   요청을 보내는 시간 (기본 10000)
+ *  --drain-millis=N      끝난 뒤 남은 요청을 기다리는 시간, 지나면 버린다 (기본 5000)
+ *                        버린 요청도 버린 시각까지의 지연으로 기록한다. 빼면 가장 밀린 요청이 결과에서 빠진다
+ *  --mix=order:1,exam:1,member:1  메서드별 비율
+ *  --failure-ratio=R     실패시킬 요청 비율 0~1, orderItem 은 "ex" 로 부른다 (기본 0)
+ *  --aspects=클래스,..    같이 등록할 @Aspect 클래스 ex) hello.aop.exam.aop.TraceAspect
+ *  --json=파일            JSON 결과를 파일로, 없으면 표 다음에 출력
+ *  --seed=N              메서드, 실패 선택 난수 시드 (기본 1)
+ *
+ * 애스펙트 로그가 결과를 가리지 않도록 hello.aop 로그는 기본 WARN (--logging.level.hello.aop=INFO 로 바꿀 수 있다)
+ * */
+public class LoadGenerator {
+
+    private final double rate;
+    private final int concurrency;
+    private final long durationMillis;
+    private final long drainMillis;
+    private final double failureRatio;
+    private final long seed;
+    private final List<LoadTarget> targets;
+
+    public LoadGenerator(double rate, int concurrency, long durationMillis, long drainMillis,
+                         double failureRatio, long seed, List<LoadTarget> targets) {
+        if (rate <= 0 || concurrency <= 0 || durationMillis <= 0) {
+            throw new IllegalArgumentException("rate, concurrency, duration 은 0 보다 커야 합니다");
+        }
+        if (targets.stream().mapToInt(LoadTarget::getWeight).sum() <= 0) {
+            throw new IllegalArgumentException("비율이 0 보다 큰 메서드가 없습니다");
+        }
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.durationMillis = durationMillis;
+        this.drainMillis = drainMillis;
+        this.failureRatio = failureRatio;
+        this.seed = seed;
+        this.targets = targets;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        List<Stats> stats = new ArrayList<>();
+        int[] cumulative = new int[targets.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            stats.add(new Stats());
+            totalWeight += targets.get(i).getWeight();
+            cumulative[i] = totalWeight;
+        }
+
+        //큐는 제한하지 않는다. 워커가 밀리면 큐에서 기다린 시간까지 지연으로 잡혀야 하므로
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "load-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.prestartAllCoreThreads();
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * periodNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int index = pick(cumulative, random.nextInt(totalWeight));
+            boolean fail = failureRatio > 0 && random.nextDouble() < failureRatio;
+            executor.execute(new Request(targets.get(index).getCall(), stats.get(index), sequence, intended, fail));
+        }
+
+        executor.shutdown();
+        long dropped = 0;
+        if (!executor.awaitTermination(drainMillis, TimeUnit.MILLISECONDS)) {
+            List<Runnable> pending = executor.shutdownNow();
+            long now = System.nanoTime();
+            for (Runnable request : pending) {
+                ((Request) request).drop(now);
+            }
+            dropped = pending.size();
+            executor.awaitTermination(drainMillis, TimeUnit.MILLISECONDS);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double elapsedSeconds = elapsedNanos / 1e9;
+        List<LoadReport.MethodReport> methods = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            Stats stat = stats.get(i);
+            methods.add(new LoadReport.MethodReport(targets.get(i).getName(), stat.errors.sum(), stat.dropped.sum(),
+                    elapsedSeconds, stat.latency, stat.service));
+        }
+        return new LoadReport(rate, concurrency, durationMillis, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                dropped, methods);
+    }
+
+    private static int pick(int[] cumulative, int value) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    private static class Stats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+    }
+
+    private static class Request implements Runnable {
+
+        private final LoadTarget.Call call;
+        private final Stats stats;
+        private final long sequence;
+        private final long intended;
+        private final boolean fail;
+
+        Request(LoadTarget.Call call, Stats stats, long sequence, long intended, boolean fail) {
+            this.call = call;
+            this.stats = stats;
+            this.sequence = sequence;
+            this.intended = intended;
+            this.fail = fail;
+        }
+
+        @Override
+        public void run() {
+            long begin = System.nanoTime();
+            try {
+                call.call(sequence, fail);
+            } catch (Exception e) {
+                stats.errors.increment();
+            }
+            long done = System.nanoTime();
+            stats.latency.record(done - intended);
+            stats.service.record(done - begin);
+        }
+
+        //출발하지 못한 요청, 버린 시각까지 기다린 것으로 친다
+        void drop(long now) {
+            stats.latency.record(now - intended);
+            stats.dropped.increment();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(args, System.out);
+    }
+
+    static void run(String[] args, PrintStream out) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--logging.")) {
+                springArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("알 수 없는 옵션: " + arg);
+            }
+        }
+
+        List<Class<?>> sources = new ArrayList<>();
+        sources.add(AopApplication.class);
+        for (String aspect : StringUtils.commaDelimitedListToStringArray(options.getOrDefault("aspects", ""))) {
+            sources.add(ClassUtils.forName(aspect.trim(), LoadGenerator.class.getClassLoader()));
+        }
+
+        SpringApplication application = new SpringApplication(sources.toArray(new Class<?>[0]));
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(Map.of("logging.level.hello.aop", "WARN"));
+
+        try (ConfigurableApplicationContext context = application.run(springArgs.toArray(new String[0]))) {
+            LoadGenerator generator = new LoadGenerator(
+                    Double.parseDouble(options.getOrDefault("rate", "200")),
+                    Integer.parseInt(options.getOrDefault("concurrency", "4")),
+                    Long.parseLong(options.getOrDefault("duration-millis", "10000")),
+                    Long.parseLong(options.getOrDefault("drain-millis", "5000")),
+                    Double.parseDouble(options.getOrDefault("failure-ratio", "0")),
+                    Long.parseLong(options.getOrDefault("seed", "1")),
+                    targets(context, options.getOrDefault("mix", "order:1,exam:1,member:1")));
+
+            LoadReport report = generator.run();
+            out.print(report.toText());
+
+            String json = options.get("json");
+            if (json == null) {
+                out.println(report.toJson());
+            } else {
+                Files.write(Paths.get(json), report.toJson().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * 이름:비율 목록으로 부를 메서드를 만든다.
+     * - order: OrderService.orderItem, 상품 id 는 요청마다 다르다. 실패는 "ex"
+     * - exam: ExamService.request, 저장소가 다섯 번에 한 번 스스로 실패한다. fail 은 무시
+     * - member: MemberService.hello, 실패시킬 수 없다
+     * */
+    static List<LoadTarget> targets(ConfigurableApplicationContext context, String mix) {
+        List<LoadTarget> result = new ArrayList<>();
+        for (String entry : StringUtils.commaDelimitedListToStringArray(mix)) {
+            String[] pair = entry.trim().split(":");
+            String name = pair[0];
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+
+            if (name.equals("order")) {
+                OrderService orderService = context.getBean(OrderService.class);
+                result.add(new LoadTarget(name, weight,
+                        (sequence, fail) -> orderService.orderItem(fail ? "ex" : "item-" + sequence)));
+            } else if (name.equals("exam")) {
+                ExamService examService = context.getBean(ExamService.class);
+                result.add(new LoadTarget(name, weight, (sequence, fail) -> examService.request("data " + sequence)));
+            } else if (name.equals("member")) {
+                MemberService memberService = context.getBean(MemberService.class);
+                result.add(new LoadTarget(name, weight, (sequence, fail) -> memberService.hello("param")));
+            } else {
+                throw new IllegalArgumentException("알 수 없는 메서드: " + name + " (order, exam, member)");
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package hello.aop.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 부하 테스트 결과, 메서드별 처리량과 지연 백분위
+ *
+ * latency 는 요청을 보냈어야 할 시각(예정 시각)부터 잰 시간이다.
+ * 앞 요청이 밀려서 늦게 출발한 요청도 밀린 만큼 느리게 기록된다. (coordinated omission 보정)
+ * service 는 실제로 메서드를 부른 시각부터 잰 시간, 둘의 차이가 대기 시간
+ * 버린 요청(dropped)은 latency 와 count 에는 들어가고 처리량과 service 에는 들어가지 않는다.
+ * */
+@Getter
+public class LoadReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final double targetRate;
+    private final int concurrency;
+    private final long durationMillis;
+    private final long elapsedMillis;
+    //끝날 때까지 출발하지 못하고 버린 요청
+    private final long dropped;
+    private final List<MethodReport> methods;
+
+    LoadReport(double targetRate, int concurrency, long durationMillis, long elapsedMillis, long dropped,
+               List<MethodReport> methods) {
+        this.targetRate = targetRate;
+        this.concurrency = concurrency;
+        this.durationMillis = durationMillis;
+        this.elapsedMillis = elapsedMillis;
+        this.dropped = dropped;
+        this.methods = methods;
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "rate=%.1f/s concurrency=%d duration=%dms elapsed=%dms dropped=%d%n",
+                targetRate, concurrency, durationMillis, elapsedMillis, dropped));
+        sb.append(String.format(Locale.ROOT, "%-10s %8s %7s %7s %9s %9s %9s %9s %9s %9s %11s%n",
+                "method", "count", "errors", "dropped", "req/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)",
+                "svc p99(us)"));
+        for (MethodReport method : methods) {
+            sb.append(String.format(Locale.ROOT, "%-10s %8d %7d %7d %9.1f %9d %9d %9d %9d %9d %11d%n",
+                    method.name, method.count, method.errors, method.dropped, method.throughput, method.p50Micros,
+                    method.p90Micros, method.p99Micros, method.p999Micros, method.maxMicros,
+                    method.serviceP99Micros));
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    public static class MethodReport {
+
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final long dropped;
+        private final double throughput;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+        private final long serviceP99Micros;
+
+        MethodReport(String name, long errors, long dropped, double elapsedSeconds, LatencyHistogram latency,
+                     LatencyHistogram service) {
+            this.name = name;
+            this.count = latency.count();
+            this.errors = errors;
+            this.dropped = dropped;
+            this.throughput = elapsedSeconds > 0 ? (count - dropped) / elapsedSeconds : 0;
+            this.p50Micros = latency.percentile(50) / 1_000;
+            this.p90Micros = latency.percentile(90) / 1_000;
+            this.p99Micros = latency.percentile(99) / 1_000;
+            this.p999Micros = latency.percentile(99.9) / 1_000;
+            this.maxMicros = latency.max() / 1_000;
+            this.serviceP99Micros = service.percentile(99) / 1_000;
+        }
+    }
+}
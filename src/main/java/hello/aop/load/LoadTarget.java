@@ -0,0 +1,31 @@
+package hello.aop.load;
+
+import lombok.Getter;
+
+/**
+ * 부하를 줄 메서드 하나
+ * weight 비율로 골라서 부르고, fail 이면 실패하는 인수로 부른다. 실패시킬 수 없는 메서드는 fail 을 무시한다.
+ * */
+@Getter
+public class LoadTarget {
+
+    private final String name;
+    private final int weight;
+    private final Call call;
+
+    public LoadTarget(String name, int weight, Call call) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight 는 0 이상: " + name + "=" + weight);
+        }
+        this.name = name;
+        this.weight = weight;
+        this.call = call;
+    }
+
+    @FunctionalInterface
+    public interface Call {
+
+        /** @param sequence 몇 번째 요청인지, 인수를 요청마다 다르게 만들 때 */
+        void call(long sequence, boolean fail) throws Exception;
+    }
+}
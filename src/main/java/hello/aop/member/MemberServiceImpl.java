@@ -1,5 +1,6 @@
 package hello.aop.member;
 
+import hello.aop.exam.annotation.Hedge;
 import hello.aop.member.annotation.ClassAop;
 import hello.aop.member.annotation.MethodAop;
 import org.springframework.stereotype.Component;
@@ -11,7 +12,9 @@ import org.springframework.stereotype.Component;
 public class MemberServiceImpl implements MemberService {
 
     //만들어준 aop적용, 메서드에 붙이는
+    //조회라서 여러 번 호출해도 결과가 같으므로 느릴 때 한 번 더 보내도 된다 (HedgeAspect)
     @Override
+    @Hedge
     @MethodAop("test value")
     public String hello(String param) {
         return "ok";
@@ -0,0 +1,55 @@
+package hello.aop.order;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 여러 건을 한 번에 처리한 결과
+ * 한 건이 실패해도 나머지는 계속 처리하고, 실패한 건은 몇 번째 건인지와 예외를 남긴다.
+ * */
+public class BatchResult {
+
+    private final List<String> succeeded = new ArrayList<>();
+    private final List<Failure> failed = new ArrayList<>();
+
+    void success(String itemId) {
+        succeeded.add(itemId);
+    }
+
+    void failure(int index, String itemId, RuntimeException e) {
+        failed.add(new Failure(index, itemId, e));
+    }
+
+    public List<String> getSucceeded() {
+        return Collections.unmodifiableList(succeeded);
+    }
+
+    public List<Failure> getFailed() {
+        return Collections.unmodifiableList(failed);
+    }
+
+    public int size() {
+        return succeeded.size() + failed.size();
+    }
+
+    public boolean isAllSucceeded() {
+        return failed.isEmpty();
+    }
+
+    @Getter
+    public static class Failure {
+
+        private final int index;
+        private final String itemId;
+        private final RuntimeException exception;
+
+        Failure(int index, String itemId, RuntimeException exception) {
+            this.index = index;
+            this.itemId = itemId;
+            this.exception = exception;
+        }
+    }
+}
@@ -1,17 +1,60 @@
 package hello.aop.order;
+
+import hello.aop.exam.annotation.AdaptiveLimit;
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.retry.RetryableException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Slf4j
 @Repository
 public class OrderRepository {
+
+    //저장소가 느려지면 동시 실행 수를 줄여서 버틴다 (AdaptiveLimitAspect)
+    @AdaptiveLimit
+    //같은 상품으로 몰리는 주문은 상품마다 초당 100번까지 (RateLimitAspect)
+    @RateLimit(permits = 100, key = "#itemId")
     public String save(String itemId) {
 
         log.info("[orderRepository] 실행");
+        return store(itemId);
+    }
+
+    /**
+     * 여러 건을 어드바이스 한 번으로 저장
+     * save() 를 건마다 부르면 건마다 로그, 트랜잭션, 한도 어드바이스를 다 지나가므로
+     * 트랜잭션 하나, 동시 실행 한 칸으로 묶는다. 실패한 건은 결과에 남기고 나머지는 계속 저장한다.
+     *
+     * @RateLimit 의 상품별 한도는 건마다 걸 수 없어서 붙이지 않는다.
+     * */
+    @AdaptiveLimit
+    public BatchResult saveAll(List<String> itemIds) {
+
+        log.info("[orderRepository] saveAll {}건", itemIds.size());
+
+        BatchResult result = new BatchResult();
+        for (int i = 0; i < itemIds.size(); i++) {
+            String itemId = itemIds.get(i);
+            try {
+                store(itemId);
+                result.success(itemId);
+            } catch (RuntimeException e) {
+                result.failure(i, itemId, e);
+            }
+        }
+        return result;
+    }
 
-        //저장 로직
+    //저장 로직, 내부 호출이라 어드바이스가 적용되지 않는다
+    //진입점(@Timeout) 데드라인이 이미 지났으면 저장하지 않는다, saveAll 에서는 남은 건이 실패로 남는다
+    private String store(String itemId) {
+        DeadlineContext.check("OrderRepository.save");
         if (itemId.equals("ex")) {
-            throw new IllegalStateException("예외 발생!");
+            //TxAspect 가 롤백하고 감싸지 않고 그대로 다시 던진다, 호출한 쪽이 다시 시도할 실패라 스택 없는 예외로
+            throw new RetryableException("예외 발생!");
         }
         return "ok";
     }
@@ -1,8 +1,12 @@
 package hello.aop.order;
 
+import hello.aop.exam.annotation.SerializeOn;
+import hello.aop.exam.annotation.Timeout;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Slf4j
 @Service
 public class OrderService {
@@ -14,9 +18,24 @@ public class OrderService {
         this.orderRepository = orderRepository;
     }
 
+    //진입점, 안쪽 저장까지 이 시간 안에 끝나야 한다 (TimeoutAspect)
+    @Timeout(1000)
+    //같은 상품의 주문끼리는 섞이지 않게 (SerializeOnAspect)
+    @SerializeOn(key = "#itemId")
     public void orderItem(String itemId) {
         log.info("[orderService] 실행");
 
         orderRepository.save(itemId);
     }
+
+    /**
+     * 여러 주문을 한 번에, 서비스와 저장소 어드바이스를 배치마다 한 번씩만 지나간다.
+     * 상품마다 따로 묶어야 하는 @SerializeOn 은 배치에는 붙이지 않는다.
+     * */
+    @Timeout(1000)
+    public BatchResult orderItems(List<String> itemIds) {
+        log.info("[orderService] 실행 {}건", itemIds.size());
+
+        return orderRepository.saveAll(itemIds);
+    }
 }
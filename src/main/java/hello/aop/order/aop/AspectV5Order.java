@@ -1,4 +1,6 @@
 package hello.aop.order.aop;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.jfr.TransactionEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -35,24 +37,34 @@ public class AspectV5Order {
     /** 트랜잭션 로그를 먼저 남기도록 순서 지정*/
     @Aspect
     @Order(1)
+    @StatefulAspect
     public static class TxAspect {
 
         @Around("hello.aop.order.aop.Pointcuts.orderAndService()")
         public Object doTransaction(ProceedingJoinPoint joinPoint) throws Throwable {
+            //트랜잭션 경계를 JFR 이벤트로, 녹화 중이 아니면 값을 채우지 않는다
+            TransactionEvent event = new TransactionEvent();
+            event.begin();
             try {
 
                 log.info("[트랜잭션 시작] {}", joinPoint.getSignature());
                 Object result = joinPoint.proceed();
                 log.info("[트랜잭션 커밋] {}", joinPoint.getSignature());
+                event.committed = true;
 
                 return result;
             } catch (Exception e) {
 
                 log.info("[트랜잭션 롤백] {}", joinPoint.getSignature());
+                event.exceptionType = e.getClass().getName();
                 throw e;
             } finally {
 
                 log.info("[리소스 릴리즈] {}", joinPoint.getSignature());
+                if (event.shouldCommit()) {
+                    event.signature = joinPoint.getSignature().toShortString();
+                    event.commit();
+                }
             }
         }
     }
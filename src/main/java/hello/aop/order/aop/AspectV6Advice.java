@@ -1,4 +1,6 @@
 package hello.aop.order.aop;
+import hello.aop.render.ArgumentRenderer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -32,8 +34,12 @@ import org.aspectj.lang.annotation.*;
  * */
 @Slf4j
 @Aspect
+@RequiredArgsConstructor
 public class AspectV6Advice {
 
+    //반환값 전체를 toString() 하지 않게, 길이 제한해서 출력될 때만 문자열로
+    private final ArgumentRenderer argumentRenderer;
+
     /**
      * @Around
      * 모든 어드바이스는 org.aspectj.lang.JoinPoint 를 첫번째 파라미터에 사용할 수 있다.
@@ -126,7 +132,7 @@ public class AspectV6Advice {
     @AfterReturning(value = "hello.aop.order.aop.Pointcuts.orderAndService()",
             returning = "result")
     public void doReturn(JoinPoint joinPoint, Object result) {
-        log.info("[return] {} return={}", joinPoint.getSignature(), result);
+        log.info("[return] {} return={}", joinPoint.getSignature(), argumentRenderer.lazy(result));
     }
 
     /**
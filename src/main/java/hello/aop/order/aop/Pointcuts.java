@@ -18,4 +18,9 @@ public class Pointcuts {
     //allOrder && allService
     @Pointcut("allOrder() && allService()")
     public void orderAndService(){}
+
+    //hello.aop.order 전체와 ExamService, ExamRepository
+    //hello.aop.exam 은 하위 패키지(애스펙트, 인프라)까지 걸면 애스펙트가 자기 자신을 감싸므로 바로 아래 클래스만
+    @Pointcut("allOrder() || execution(* hello.aop.exam.*.*(..))")
+    public void orderAndExam(){}
 }
@@ -0,0 +1,161 @@
+package hello.aop.pipeline;
+
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.order.BatchResult;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문을 단계별 큐로 나눠서 처리하는 (SEDA) OrderService.orderItem 의 비동기 버전
+ *
+ * orderItem 은 요청 스레드에서 검증, 로그, 트랜잭션, 저장을 다 한다.
+ * submit 은 첫 단계 큐에 넣고 바로 CompletableFuture 를 돌려준다.
+ *
+ * validate -> persist -> notify
+ * - validate: 빈 상품 id 는 IllegalArgumentException 으로 끝낸다
+ * - persist: 묶음을 OrderService.orderItems 로 저장, 트랜잭션과 어드바이스는 묶음마다 한 번.
+ *            건별 실패는 그 건의 future 만 실패시킨다
+ * - notify: 완료 로그를 남기고 future 를 완료
+ *
+ * 단계마다 order.pipeline.capacity 크기의 큐와 스레드 풀이 있고, 쌓인 만큼 order.pipeline.batch-size 까지 묶어서 처리한다.
+ * 뒤 단계가 밀리면 앞 단계는 기다리고, 첫 단계 큐가 order.pipeline.offer-millis 동안 꽉 차 있으면 PipelineFullException
+ * 단계별 큐 길이, 대기/처리 시간은 stats(), GET /admin/pipeline
+ * 빈이 내려가면 앞 단계부터 멈추고, 끝나지 않은 주문은 CancellationException 으로 끝낸다. 저장까지 끝난 주문은 완료
+ *
+ * 호출한 쪽에 @Timeout 데드라인이 있으면 들고 가서 단계마다 지났는지 보고 DeadlineExceededException 으로 끝낸다.
+ * 상품 하나 단위로 묶는 @SerializeOn 은 적용되지 않는다.
+ *
+ * order.pipeline.enabled=true 일 때만 등록
+ * */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order.pipeline.enabled", havingValue = "true")
+public class OrderPipeline implements DisposableBean {
+
+    private final OrderService orderService;
+    private final long offerMillis;
+
+    private final Stage validate;
+    private final Stage persist;
+    private final Stage notify;
+
+    public OrderPipeline(OrderService orderService,
+                         @Value("${order.pipeline.capacity:1024}") int capacity,
+                         @Value("${order.pipeline.batch-size:64}") int batchSize,
+                         @Value("${order.pipeline.offer-millis:100}") long offerMillis,
+                         @Value("${order.pipeline.validate-threads:1}") int validateThreads,
+                         @Value("${order.pipeline.persist-threads:2}") int persistThreads,
+                         @Value("${order.pipeline.notify-threads:1}") int notifyThreads) {
+        this.orderService = orderService;
+        this.offerMillis = offerMillis;
+        //뒤 단계부터 만들어야 앞 단계가 넘길 곳이 있다
+        this.notify = new Stage("notify", capacity, notifyThreads, batchSize, this::notify);
+        this.persist = new Stage("persist", capacity, persistThreads, batchSize, this::persist);
+        this.validate = new Stage("validate", capacity, validateThreads, batchSize, this::validate);
+    }
+
+    public CompletableFuture<Void> submit(String itemId) {
+        OrderTask task = new OrderTask(itemId, DeadlineContext.current());
+        try {
+            if (!validate.offer(task, offerMillis, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new PipelineFullException("주문 큐가 가득 찼습니다: " + itemId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return task.future;
+    }
+
+    public List<StageStats> stats() {
+        return List.of(validate.stats(), persist.stats(), notify.stats());
+    }
+
+    private void validate(List<OrderTask> batch) throws InterruptedException {
+        for (OrderTask task : batch) {
+            if (expired(task, "validate")) {
+                continue;
+            }
+            if (task.itemId == null || task.itemId.isBlank()) {
+                task.future.completeExceptionally(new IllegalArgumentException("상품 id 가 비어 있습니다"));
+                continue;
+            }
+            if (!persist.put(task)) {
+                task.future.completeExceptionally(new CancellationException("파이프라인 종료: " + task.itemId));
+            }
+        }
+    }
+
+    private void persist(List<OrderTask> batch) {
+        List<OrderTask> tasks = new ArrayList<>(batch.size());
+        List<String> itemIds = new ArrayList<>(batch.size());
+        for (OrderTask task : batch) {
+            if (!expired(task, "persist")) {
+                tasks.add(task);
+                itemIds.add(task.itemId);
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        BatchResult result = orderService.orderItems(itemIds);
+        boolean[] failed = new boolean[tasks.size()];
+        for (BatchResult.Failure failure : result.getFailed()) {
+            failed[failure.getIndex()] = true;
+            tasks.get(failure.getIndex()).future.completeExceptionally(failure.getException());
+        }
+        //여기부터는 저장이 끝난 건이라 notify 로 못 넘기면 바로 완료한다
+        boolean interrupted = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (failed[i]) {
+                continue;
+            }
+            OrderTask task = tasks.get(i);
+            try {
+                if (interrupted || !notify.put(task)) {
+                    task.future.complete(null);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                task.future.complete(null);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notify(List<OrderTask> batch) {
+        log.info("[notify] 주문 완료 {}건", batch.size());
+        for (OrderTask task : batch) {
+            task.future.complete(null);
+        }
+    }
+
+    private boolean expired(OrderTask task, String stage) {
+        if (task.deadline == null || !task.deadline.isExpired()) {
+            return false;
+        }
+        task.future.completeExceptionally(new DeadlineExceededException(stage + " 전에 데드라인 초과: " + task.itemId));
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        validate.shutdown();
+        persist.shutdown();
+        notify.shutdown();
+    }
+}
@@ -0,0 +1,24 @@
+package hello.aop.pipeline;
+
+import hello.aop.exam.deadline.Deadline;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 파이프라인을 지나가는 주문 하나
+ * 호출한 쪽의 데드라인(@Timeout)을 들고 다니면서 단계마다 지났는지 본다.
+ * */
+class OrderTask {
+
+    final String itemId;
+    final Deadline deadline;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    //지금 단계 큐에 들어간 시각, 한 번에 한 단계에만 있으므로 단계마다 덮어쓴다
+    volatile long enqueuedNanos;
+
+    OrderTask(String itemId, Deadline deadline) {
+        this.itemId = itemId;
+        this.deadline = deadline;
+    }
+}
@@ -0,0 +1,11 @@
+package hello.aop.pipeline;
+
+/**
+ * 파이프라인 첫 단계 큐가 order.pipeline.offer-millis 동안 꽉 차 있어서 주문을 받지 못한
+ * */
+public class PipelineFullException extends IllegalStateException {
+
+    public PipelineFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,215 @@
+package hello.aop.pipeline;
+
+import hello.aop.load.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 파이프라인 한 단계, 제한된 큐 하나와 스레드 풀 하나
+ *
+ * 스레드는 하나를 꺼낸 뒤 큐에 쌓여 있는 것을 batchSize 까지 더 꺼내서(drainTo) 한 번에 처리한다.
+ * 밀려 있을수록 묶음이 커지므로 부하가 높을 때 건당 비용이 줄어든다.
+ * 다음 단계로 넘길 때는 put 으로 기다린다. 뒤 단계가 밀리면 앞 단계도 멈춘다. (백프레셔)
+ * 이렇게 기다린 시간은 처리 시간(service)에서 빼고 blocked 로 따로 센다.
+ * 빼지 않으면 병목 앞의 단계들까지 모두 느려 보인다.
+ *
+ * 묶음 처리가 예외(Error 포함)로 끝나면 아직 다음 단계로 넘기지 않았고 끝나지도 않은 건만 실패시킨다.
+ * 이미 넘긴 건은 뒤 단계가 끝낸다. 스레드가 어떤 이유로든 빠져나오면 종료 중이 아닌 한 다시 띄운다.
+ *
+ * shutdown 하면 처리 중이던 묶음은 마저 처리하고 큐에 남은 건은 CancellationException 으로 끝낸다.
+ * 종료 뒤에 들어온 건도 바로 CancellationException
+ * 스레드를 interrupt 하지 않는다. 저장 중에 interrupt 되면 FileChannel 이 닫히는 등 처리 중인 묶음이 망가지므로
+ * 대신 큐에서 꺼내고 넣을 때 짧게 기다리면서 종료 여부를 본다.
+ * */
+@Slf4j
+class Stage {
+
+    private final String name;
+    private final BlockingQueue<OrderTask> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final Handler handler;
+    private final ExecutorService executor;
+
+    private final LatencyHistogram wait = new LatencyHistogram();
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    //종료를 기다리는 시간, 지나면 처리 중인 묶음은 두고 큐에 남은 것만 끝낸다
+    private static final long SHUTDOWN_MILLIS = 1000;
+
+    //큐에서 꺼내거나 넣을 때 종료 여부를 보는 간격
+    private static final long POLL_MILLIS = 100;
+
+    //지금 스레드가 다음 단계 put 에서 기다린 시간, 단계 스레드는 한 번에 한 묶음만 처리하므로 스레드별로 센다
+    private static final ThreadLocal<long[]> BLOCKED = ThreadLocal.withInitial(() -> new long[1]);
+
+    //지금 스레드가 처리 중인 묶음에서 다음 단계로 넘긴 건
+    private static final ThreadLocal<Set<OrderTask>> FORWARDED =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private volatile boolean closed;
+
+    Stage(String name, int capacity, int threads, int batchSize, Handler handler) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.handler = handler;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-" + name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    boolean offer(OrderTask task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            cancel(task);
+            return true;
+        }
+        task.enqueuedNanos = System.nanoTime();
+        boolean accepted = queue.offer(task, timeout, unit);
+        if (accepted && closed && queue.remove(task)) {
+            cancel(task);
+        }
+        return accepted;
+    }
+
+    /** 앞 단계 스레드가 묶음 처리 중에 넘길 때, 종료돼서 받지 못하면 false */
+    boolean put(OrderTask task) throws InterruptedException {
+        if (closed) {
+            return false;
+        }
+        long start = System.nanoTime();
+        task.enqueuedNanos = start;
+        while (!queue.offer(task, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                BLOCKED.get()[0] += System.nanoTime() - start;
+                return false;
+            }
+        }
+        BLOCKED.get()[0] += System.nanoTime() - start;
+        //shutdown 이 큐를 비운 뒤에 들어갔으면 꺼낼 스레드가 없다
+        if (closed && queue.remove(task)) {
+            return false;
+        }
+        FORWARDED.get().add(task);
+        return true;
+    }
+
+    private void drain() {
+        List<OrderTask> batch = new ArrayList<>(batchSize);
+        long[] blocked = BLOCKED.get();
+        Set<OrderTask> forwarded = FORWARDED.get();
+        try {
+            while (!closed) {
+                OrderTask first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                long start = System.nanoTime();
+                blocked[0] = 0;
+                forwarded.clear();
+                for (OrderTask task : batch) {
+                    wait.record(start - task.enqueuedNanos);
+                }
+                //마지막 단계는 처리하면서 future 를 끝내므로, 끝난 걸 본 호출자가 통계에서도 보도록 먼저 센다
+                processed.add(batch.size());
+                batches.increment();
+                try {
+                    handler.handle(batch);
+                } catch (InterruptedException e) {
+                    //finally 에서 남은 건을 CancellationException 으로 끝낸다
+                    throw e;
+                } catch (Throwable e) {
+                    //단계 처리 중 예상 못한 실패는 아직 넘기지 않은 건만 실패로
+                    log.warn("[pipeline] {} batch of {} failed: {}", name, batch.size(), e.toString());
+                    failUnforwarded(batch, forwarded, e);
+                }
+                service.record(System.nanoTime() - start - blocked[0]);
+                blockedNanos.add(blocked[0]);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            //묶음 처리 밖에서 빠져나왔으면 남은 건을 버리지 않고 끝낸다
+            failUnforwarded(batch, forwarded, new CancellationException(name + " 단계 스레드 중단"));
+            forwarded.clear();
+            if (!closed) {
+                log.warn("[pipeline] {} 스레드가 멈춰서 다시 시작", name);
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    private void failUnforwarded(List<OrderTask> batch, Set<OrderTask> forwarded, Throwable e) {
+        for (OrderTask task : batch) {
+            if (!forwarded.contains(task)) {
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void cancel(OrderTask task) {
+        task.future.completeExceptionally(new CancellationException(name + " 단계 종료: " + task.itemId));
+    }
+
+    StageStats stats() {
+        return new StageStats(name, queue.size(), capacity, processed.sum(), batches.sum(),
+                wait.percentile(50) / 1_000, wait.percentile(99) / 1_000,
+                service.percentile(50) / 1_000, service.percentile(99) / 1_000,
+                TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+    }
+
+    /**
+     * 스레드를 멈추고 남은 건을 끝낸다
+     * 앞 단계부터 차례로 불러야 앞 단계 스레드가 뒤 단계 큐에 더 넣지 않는다.
+     * */
+    void shutdown() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("[pipeline] {} {}ms 안에 멈추지 않음", name, SHUTDOWN_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<OrderTask> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::cancel);
+    }
+
+    @FunctionalInterface
+    interface Handler {
+
+        //다음 단계 큐가 차 있으면 기다리므로 InterruptedException
+        void handle(List<OrderTask> batch) throws InterruptedException;
+    }
+}
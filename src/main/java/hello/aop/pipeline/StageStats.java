@@ -0,0 +1,42 @@
+package hello.aop.pipeline;
+
+import lombok.Getter;
+
+/**
+ * 단계별 상태
+ * wait 는 건마다 큐에 들어가서 꺼내질 때까지, service 는 묶음 하나를 처리한 시간
+ * blockedMillis 는 다음 단계 큐가 차서 기다린 시간의 합, service 에는 들어가지 않는다.
+ * service 가 길고 blocked 가 적은 단계가 병목, 그 앞 단계들은 wait 와 blocked 가 늘어난다.
+ * */
+@Getter
+public class StageStats {
+
+    private final String name;
+    private final int depth;
+    private final int capacity;
+    private final long processed;
+    private final long batches;
+    private final long waitP50Micros;
+    private final long waitP99Micros;
+    private final long serviceP50Micros;
+    private final long serviceP99Micros;
+    private final long blockedMillis;
+
+    StageStats(String name, int depth, int capacity, long processed, long batches, long waitP50Micros,
+               long waitP99Micros, long serviceP50Micros, long serviceP99Micros, long blockedMillis) {
+        this.name = name;
+        this.depth = depth;
+        this.capacity = capacity;
+        this.processed = processed;
+        this.batches = batches;
+        this.waitP50Micros = waitP50Micros;
+        this.waitP99Micros = waitP99Micros;
+        this.serviceP50Micros = serviceP50Micros;
+        this.serviceP99Micros = serviceP99Micros;
+        this.blockedMillis = blockedMillis;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) processed / batches;
+    }
+}
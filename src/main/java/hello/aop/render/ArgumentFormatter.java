@@ -0,0 +1,14 @@
+package hello.aop.render;
+
+/**
+ * 타입별 출력 방식
+ * 빈으로 등록하면 ArgumentRenderer 가 가져다 쓴다. 하위 타입에도 적용된다.
+ *
+ * ex) 주문 목록은 전체 대신 개수만 남기고 싶을 때
+ * */
+public interface ArgumentFormatter<T> {
+
+    Class<T> type();
+
+    String format(T value);
+}
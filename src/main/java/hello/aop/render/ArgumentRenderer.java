@@ -0,0 +1,220 @@
+package hello.aop.render;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 로그에 남길 인수, 반환값을 길이와 깊이를 제한해서 문자열로 만드는
+ *
+ * args 배열이나 반환값을 그대로 로그에 넘기면 큰 컬렉션은 toString() 으로 전체가 문자열이 된다.
+ * 여기서는 최대 길이(maxLength), 컬렉션 최대 원소 수(maxElements), 중첩 깊이(maxDepth)까지만 만들고 나머지는 자른다.
+ * 컬렉션, 배열, Map 은 직접 순회하기 때문에 잘리는 부분은 아예 만들지 않는다.
+ *
+ * lazy() 는 toString() 할 때 만드는 객체를 돌려준다.
+ * 로그 레벨이 꺼져 있으면 slf4j 가 toString() 을 부르지 않으므로 만드는 비용도 없다.
+ *
+ * application.properties
+ * trace.render.max-length=256
+ * trace.render.max-depth=3
+ * trace.render.max-elements=20
+ * */
+@Component
+public class ArgumentRenderer {
+
+    static final String TRUNCATED = "...";
+
+    private final int maxLength;
+    private final int maxDepth;
+    private final int maxElements;
+
+    private final Map<Class<?>, ArgumentFormatter<Object>> formatters;
+
+    //타입 -> 적용할 포매터, 하위 타입 찾는 건 타입마다 한 번만
+    private final Map<Class<?>, Optional<ArgumentFormatter<Object>>> resolved = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ArgumentRenderer(@Value("${trace.render.max-length:256}") int maxLength,
+                            @Value("${trace.render.max-depth:3}") int maxDepth,
+                            @Value("${trace.render.max-elements:20}") int maxElements,
+                            ObjectProvider<ArgumentFormatter<?>> formatters) {
+        this(maxLength, maxDepth, maxElements, formatters.orderedStream().collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArgumentRenderer(int maxLength, int maxDepth, int maxElements, List<ArgumentFormatter<?>> formatters) {
+        this.maxLength = maxLength;
+        this.maxDepth = maxDepth;
+        this.maxElements = maxElements;
+        this.formatters = formatters.stream()
+                .collect(Collectors.toMap(ArgumentFormatter::type, formatter -> (ArgumentFormatter<Object>) formatter,
+                        (first, second) -> first));
+    }
+
+    /** 로그에 넘길 때 사용, 실제로 출력될 때 만든다 */
+    public Object lazy(Object value) {
+        return new Lazy(value);
+    }
+
+    public String render(Object value) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, value, 0);
+
+        if (sb.length() > maxLength) {
+            sb.setLength(maxLength);
+            sb.append(TRUNCATED);
+        }
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb, Object value, int depth) {
+        if (full(sb)) {
+            return;
+        }
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+
+        Optional<ArgumentFormatter<Object>> formatter = formatterOf(value.getClass());
+        if (formatter.isPresent()) {
+            appendLimited(sb, formatter.get().format(value));
+        } else if (value instanceof CharSequence) {
+            appendLimited(sb, (CharSequence) value);
+        } else if (value.getClass().isArray()) {
+            appendArray(sb, value, depth);
+        } else if (value instanceof Collection) {
+            appendCollection(sb, (Collection<?>) value, depth);
+        } else if (value instanceof Map) {
+            appendMap(sb, (Map<?, ?>) value, depth);
+        } else {
+            appendLimited(sb, String.valueOf(value));
+        }
+    }
+
+    private void appendArray(StringBuilder sb, Object array, int depth) {
+        int length = Array.getLength(array);
+        if (depth >= maxDepth) {
+            sb.append("[").append(length).append(" elements]");
+            return;
+        }
+
+        sb.append('[');
+        int count = Math.min(length, maxElements);
+        for (int i = 0; i < count && !full(sb); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            append(sb, Array.get(array, i), depth + 1);
+        }
+        appendRemaining(sb, length - count);
+        sb.append(']');
+    }
+
+    private void appendCollection(StringBuilder sb, Collection<?> collection, int depth) {
+        int size = collection.size();
+        if (depth >= maxDepth) {
+            sb.append("[").append(size).append(" elements]");
+            return;
+        }
+
+        sb.append('[');
+        Iterator<?> iterator = collection.iterator();
+        int count = 0;
+        while (iterator.hasNext() && count < maxElements && !full(sb)) {
+            if (count > 0) {
+                sb.append(", ");
+            }
+            append(sb, iterator.next(), depth + 1);
+            count++;
+        }
+        appendRemaining(sb, size - count);
+        sb.append(']');
+    }
+
+    private void appendMap(StringBuilder sb, Map<?, ?> map, int depth) {
+        int size = map.size();
+        if (depth >= maxDepth) {
+            sb.append("{").append(size).append(" entries}");
+            return;
+        }
+
+        sb.append('{');
+        int count = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (count >= maxElements || full(sb)) {
+                break;
+            }
+            if (count > 0) {
+                sb.append(", ");
+            }
+            append(sb, entry.getKey(), depth + 1);
+            sb.append('=');
+            append(sb, entry.getValue(), depth + 1);
+            count++;
+        }
+        appendRemaining(sb, size - count);
+        sb.append('}');
+    }
+
+    private void appendRemaining(StringBuilder sb, int remaining) {
+        if (remaining > 0) {
+            sb.append(", ...(").append(remaining).append(" more)");
+        }
+    }
+
+    //남은 길이만큼만 복사
+    private void appendLimited(StringBuilder sb, CharSequence text) {
+        int remaining = maxLength - sb.length() + 1;
+        if (remaining <= 0) {
+            return;
+        }
+        sb.append(text, 0, Math.min(text.length(), remaining));
+    }
+
+    private boolean full(StringBuilder sb) {
+        return sb.length() > maxLength;
+    }
+
+    private Optional<ArgumentFormatter<Object>> formatterOf(Class<?> type) {
+        if (formatters.isEmpty()) {
+            return Optional.empty();
+        }
+        return resolved.computeIfAbsent(type, this::findFormatter);
+    }
+
+    private Optional<ArgumentFormatter<Object>> findFormatter(Class<?> type) {
+        ArgumentFormatter<Object> exact = formatters.get(type);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        return formatters.entrySet().stream()
+                .filter(entry -> entry.getKey().isAssignableFrom(type))
+                .map(Map.Entry::getValue)
+                .findFirst();
+    }
+
+    private class Lazy {
+
+        private final Object value;
+
+        Lazy(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return render(value);
+        }
+    }
+}
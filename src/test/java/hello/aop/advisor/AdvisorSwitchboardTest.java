@@ -0,0 +1,252 @@
+package hello.aop.advisor;
+
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 재시작 없이 어드바이저 끄기, 켜기, 포인트컷 교체
+ * */
+@Slf4j
+@Import({AdvisorSwitchboard.class, AdvisorSwitchboardTest.CountAspect.class, AdvisorSwitchboardTest.BindingAspect.class,
+        AdvisorSwitchboardTest.NarrowAspect.class})
+@SpringBootTest
+class AdvisorSwitchboardTest {
+
+    @Autowired
+    AdvisorSwitchboard advisorSwitchboard;
+
+    @Autowired
+    OrderService orderService;
+
+    @BeforeEach
+    void init() {
+        CountAspect.calls.clear();
+    }
+
+    @AfterEach
+    void reset() {
+        for (AdvisorStatus status : advisorSwitchboard.advisors()) {
+            advisorSwitchboard.reset(status.getName());
+        }
+    }
+
+    @Test
+    void advisors() {
+        List<AdvisorStatus> advisors = advisorSwitchboard.advisors();
+        log.info("advisors={}", advisors);
+
+        AdvisorStatus count = find(advisors, "CountAspect.count");
+        assertThat(count.isEnabled()).isTrue();
+        //OrderService, OrderRepository
+        assertThat(count.getProxyCount()).isEqualTo(2);
+    }
+
+    @Test
+    void disableAndEnable() {
+        String name = name("CountAspect.count");
+
+        advisorSwitchboard.disable(name);
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).isEmpty();
+
+        advisorSwitchboard.enable(name);
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).containsExactly("OrderService.orderItem(..)", "OrderRepository.save(..)");
+    }
+
+    //다시 켰을 때 원래 순서 자리로 돌아가야 한다
+    @Test
+    void enableKeepsOrder() {
+        String name = name("CountAspect.count");
+
+        advisorSwitchboard.disable(name);
+        advisorSwitchboard.enable(name);
+
+        orderService.orderItem("itemA");
+        assertThat(BindingAspect.lastArg).isEqualTo("itemA");
+        assertThat(CountAspect.calls).hasSize(2);
+    }
+
+    @Test
+    void replacePointcut() {
+        String name = name("CountAspect.count");
+
+        advisorSwitchboard.replacePointcut(name, "execution(* hello.aop.order.OrderRepository.*(..))");
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).containsExactly("OrderRepository.save(..)");
+
+        CountAspect.calls.clear();
+        advisorSwitchboard.reset(name);
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).hasSize(2);
+    }
+
+    //꺼져 있는 동안 바꾼 포인트컷은 켤 때 적용
+    @Test
+    void replacePointcutWhileDisabled() {
+        String name = name("CountAspect.count");
+
+        advisorSwitchboard.disable(name);
+        advisorSwitchboard.replacePointcut(name, "execution(* hello.aop.order.OrderService.*(..))");
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).isEmpty();
+
+        advisorSwitchboard.enable(name);
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).containsExactly("OrderService.orderItem(..)");
+    }
+
+    //원래 포인트컷이 걸지 않던 메서드에는 감싼 어드바이저가 체인에 없다
+    @Test
+    void cannotWidenPointcut() {
+        String name = name("NarrowAspect.narrow");
+
+        assertThatThrownBy(() -> advisorSwitchboard.replacePointcut(name, "execution(* hello.aop.order.OrderService.*(..))"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("orderItems");
+
+        //좁히거나 같은 범위는 된다
+        advisorSwitchboard.replacePointcut(name, "execution(* hello.aop.order.OrderService.orderItem(String))");
+    }
+
+    //감싼 어드바이저는 원래 포인트컷이 걸지 않는 메서드에 붙지 않는다, 꺼져 있어도 체인에 남는 건 걸리는 메서드뿐
+    @Test
+    void unrelatedMethodsAreNotInTheChain() throws NoSuchMethodException {
+        AspectJExpressionPointcut original = new AspectJExpressionPointcut();
+        original.setExpression("execution(* hello.aop.order.OrderService.orderItem(..))");
+        Advisor advisor = new DefaultPointcutAdvisor(original, (MethodInterceptor) MethodInvocation::proceed);
+        SwitchableAdvisor switchable = new SwitchableAdvisor(advisor,
+                new SwitchableAdvisor.State(false, original.getExpression(), original));
+
+        MethodMatcher matcher = switchable.getPointcut().getMethodMatcher();
+        assertThat(matcher.matches(OrderService.class.getMethod("orderItem", String.class), OrderService.class)).isTrue();
+        assertThat(matcher.matches(OrderService.class.getMethod("orderItems", List.class), OrderService.class)).isFalse();
+    }
+
+    @Test
+    void bindingAdviceCannotReplacePointcut() {
+        String name = name("BindingAspect.logArg");
+
+        assertThatThrownBy(() -> advisorSwitchboard.replacePointcut(name, "execution(* hello.aop.order..*(..))"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalid() {
+        assertThatThrownBy(() -> advisorSwitchboard.disable("none"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> advisorSwitchboard.replacePointcut(name("CountAspect.count"), "execution(* ("))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    //호출이 계속 들어오는 중에 끄고 켜도 문제가 없어야 한다
+    @Test
+    void toggleWhileTrafficIsFlowing() throws InterruptedException {
+        String name = name("CountAspect.count");
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        orderService.orderItem("itemA");
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            advisorSwitchboard.disable(name);
+            advisorSwitchboard.enable(name);
+        }
+
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(errors).isEmpty();
+
+        //마지막 상태가 그대로 적용되어 있어야 한다
+        CountAspect.calls.clear();
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).hasSize(2);
+
+        advisorSwitchboard.disable(name);
+        CountAspect.calls.clear();
+        orderService.orderItem("itemA");
+        assertThat(CountAspect.calls).isEmpty();
+    }
+
+    private String name(String suffix) {
+        return find(advisorSwitchboard.advisors(), suffix).getName();
+    }
+
+    private AdvisorStatus find(List<AdvisorStatus> advisors, String suffix) {
+        return advisors.stream()
+                .filter(status -> status.getName().endsWith(suffix))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Aspect
+    static class CountAspect {
+
+        static final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Around("execution(* hello.aop.order..*(..))")
+        public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+            calls.add(joinPoint.getSignature().toShortString());
+            return joinPoint.proceed();
+        }
+    }
+
+    @Aspect
+    static class NarrowAspect {
+
+        @Before("execution(* hello.aop.order.OrderService.orderItem(..))")
+        public void narrow() {
+        }
+    }
+
+    @Aspect
+    static class BindingAspect {
+
+        static volatile String lastArg;
+
+        @Before("execution(* hello.aop.order..*(..)) && args(arg,..)")
+        public void logArg(String arg) {
+            lastArg = arg;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package hello.aop.advisor;
+
+import hello.aop.exam.ExamRepository;
+import hello.aop.exam.ExamService;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TraceAspect;
+import hello.aop.member.MemberServiceImpl;
+import hello.aop.member.annotation.ClassAop;
+import hello.aop.member.annotation.MethodAop;
+import hello.aop.order.OrderService;
+import hello.aop.render.ArgumentRenderer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import({TraceAspect.class, RetryAspect.class, AnnotationIndexTest.TracedBean.class})
+@SpringBootTest
+class AnnotationIndexTest {
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    TracedBean tracedBean;
+
+    @Test
+    void index() {
+        AnnotationIndex index = AnnotationIndex.load(getClass().getClassLoader());
+
+        assertThat(index).isNotNull();
+        assertThat(index.mayCarry(ExamService.class, Trace.class.getName())).isTrue();
+        assertThat(index.mayCarry(ExamRepository.class, "hello.aop.exam.annotation.Retry")).isTrue();
+        assertThat(index.mayCarry(MemberServiceImpl.class, ClassAop.class.getName())).isTrue();
+        assertThat(index.mayCarry(MemberServiceImpl.class, MethodAop.class.getName())).isTrue();
+        assertThat(index.mayCarry(OrderService.class, Trace.class.getName())).isFalse();
+
+        //부모에 붙어 있으면 후보
+        assertThat(index.mayCarry(TracedChild.class, Trace.class.getName())).isTrue();
+
+        //색인하지 않은 애노테이션은 판단하지 않는다
+        assertThat(index.mayCarry(OrderService.class, Deprecated.class.getName())).isTrue();
+    }
+
+    @Test
+    void proxyCreator() {
+        assertThat(applicationContext.getBean(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME))
+                .isInstanceOf(IndexAwareAutoProxyCreator.class);
+
+        assertThat(AopUtils.isAopProxy(examService)).isTrue();
+        assertThat(AopUtils.isAopProxy(tracedBean)).isTrue();
+        assertThat(AopUtils.isAopProxy(orderService)).isFalse();
+
+        //색인이 없을 때와 있을 때 모두 애노테이션이 있는 빈만 프록시
+        refresh(4, false);
+        refresh(4, true);
+    }
+
+    /**
+     * 빈 수천 개짜리 컨텍스트 시작 시간
+     * 애노테이션이 없는 빈은 색인만 보고 건너뛰므로 메서드 리플렉션이 없다.
+     * 시간은 로그로만, ./gradlew benchmark 로 실행
+     * */
+    @Test
+    @Tag("benchmark")
+    void startupTiming() {
+        int beans = 4000;
+
+        //워밍업
+        refresh(beans, false);
+        refresh(beans, true);
+
+        long plainNanos = Long.MAX_VALUE;
+        long indexedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            plainNanos = Math.min(plainNanos, refresh(beans, false));
+            indexedNanos = Math.min(indexedNanos, refresh(beans, true));
+        }
+
+        log.info("[startup] beans={} reflection {}ms", beans, plainNanos / 1_000_000);
+        log.info("[startup] beans={} index      {}ms", beans, indexedNanos / 1_000_000);
+    }
+
+    private long refresh(int beans, boolean indexed) {
+        long start = System.nanoTime();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(StartupConfig.class, ArgumentRenderer.class, TraceAspect.class, RetryAspect.class,
+                    MethodAopAspect.class, ExamService.class, ExamRepository.class);
+            if (indexed) {
+                context.register(AnnotationIndexConfigurer.class);
+            }
+
+            Class<?>[] types = {PlainA.class, PlainB.class, PlainC.class, PlainD.class};
+            for (int i = 0; i < beans; i++) {
+                context.registerBean("plain" + i, types[i % types.length]);
+            }
+            context.refresh();
+
+            assertThat(context.getBean(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME) instanceof IndexAwareAutoProxyCreator)
+                    .isEqualTo(indexed);
+            assertThat(AopUtils.isAopProxy(context.getBean(ExamService.class))).isTrue();
+            assertThat(AopUtils.isAopProxy(context.getBean("plain0"))).isFalse();
+        }
+        return System.nanoTime() - start;
+    }
+
+    @EnableAspectJAutoProxy
+    static class StartupConfig {
+    }
+
+    static class TracedBean {
+        @Trace
+        public String call() {
+            return "ok";
+        }
+    }
+
+    static class TracedChild extends TracedBean {
+    }
+
+    @Aspect
+    static class MethodAopAspect {
+
+        @Before("@annotation(annotation) && @within(hello.aop.member.annotation.ClassAop)")
+        public void before(JoinPoint joinPoint, MethodAop annotation) {
+            log.info("[@annotation] {} {}", joinPoint.getSignature(), annotation.value());
+        }
+    }
+
+    static class PlainA {
+        public void m1() {} public void m2() {} public void m3() {} public void m4() {} public void m5() {}
+        public void m6() {} public void m7() {} public void m8() {} public void m9() {} public void m10() {}
+    }
+
+    static class PlainB extends PlainA {
+        public void n1() {} public void n2() {} public void n3() {} public void n4() {} public void n5() {}
+    }
+
+    static class PlainC implements Runnable {
+        @Override
+        public void run() {}
+        public String s1(String value) { return value; } public String s2(String value) { return value; }
+    }
+
+    static class PlainD extends PlainC {
+        public int i1(int value) { return value; } public int i2(int value) { return value; }
+    }
+}
@@ -0,0 +1,60 @@
+package hello.aop.advisor;
+
+import hello.aop.exam.ExamService;
+import hello.aop.exam.aop.TraceAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AdvisedSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import(TraceAspect.class)
+@SpringBootTest
+class ChainPrecomputerTest {
+
+    @Autowired
+    ChainPrecomputer chainPrecomputer;
+
+    @Autowired
+    ExamService examService;
+
+    /** 아직 한 번도 부르지 않은 메서드도 체인이 캐시되어 있다 */
+    @Test
+    void chainsCachedBeforeFirstCall() {
+        assertThat(methodCache(examService)).isNotEmpty();
+
+        Optional<ChainPrecomputer.ChainInfo> request = chainPrecomputer.getChains().stream()
+                .filter(chain -> chain.getMethod().equals("hello.aop.exam.ExamService.request"))
+                .findFirst();
+        assertThat(request).isPresent();
+        //ExposeInvocationInterceptor + TraceAspect
+        assertThat(request.get().getLength()).isGreaterThanOrEqualTo(2);
+
+        log.info("[chain] methods={} total={}us", chainPrecomputer.getChains().size(),
+                chainPrecomputer.getTotalNanos() / 1000);
+    }
+
+    /** 미리 만든 체인과 실제 호출이 쓰는 체인이 같은 캐시 항목이어야 한다. 키는 Method 인스턴스로 비교한다 */
+    @Test
+    void callUsesPrecomputedEntry() {
+        int before = methodCache(examService).size();
+        examService.request("itemA");
+        assertThat(methodCache(examService)).hasSize(before);
+    }
+
+    private Map<?, ?> methodCache(Object proxy) {
+        AdvisedSupport config = ChainPrecomputer.configOf(proxy);
+        Field field = ReflectionUtils.findField(AdvisedSupport.class, "methodCache");
+        ReflectionUtils.makeAccessible(field);
+        return (Map<?, ?>) ReflectionUtils.getField(field, config);
+    }
+}
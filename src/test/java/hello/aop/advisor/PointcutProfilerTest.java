@@ -0,0 +1,101 @@
+package hello.aop.advisor;
+
+import hello.aop.member.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 동적 검사가 필요한 포인트컷은 호출마다 검사 횟수가 올라가고
+ * 정적 포인트컷은 체인을 만들 때만 검사한다.
+ * */
+@Slf4j
+@Import({PointcutProfiler.class, PointcutProfilerTest.MemberAspect.class})
+@SpringBootTest
+@AutoConfigureMockMvc
+class PointcutProfilerTest {
+
+    @Autowired
+    PointcutProfiler pointcutProfiler;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void stats() {
+        for (int i = 0; i < 10; i++) {
+            memberService.hello("helloA");
+        }
+
+        List<PointcutStats> stats = pointcutProfiler.stats();
+        stats.forEach(each -> log.info("{}", each));
+
+        PointcutStats execution = find(stats, "MemberAspect.execution");
+        assertThat(execution.getStaticMatches()).isPositive();
+        assertThat(execution.getDynamicChecks()).isZero();
+
+        PointcutStats args = find(stats, "MemberAspect.args");
+        assertThat(args.getDynamicChecks()).isGreaterThanOrEqualTo(10);
+        assertThat(args.getDynamicFailures()).isZero();
+
+        //hello(String) 은 Integer 인수가 아니므로 정적 매칭에서 빠져서 프록시에 들어가지도 않는다
+        assertThat(stats).noneMatch(each -> each.getName().endsWith("MemberAspect.integerArgs"));
+
+        PointcutStats target = find(stats, "MemberAspect.target");
+        assertThat(target.getDynamicChecks()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void endpoint() throws Exception {
+        memberService.hello("helloA");
+
+        mockMvc.perform(get("/admin/pointcuts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name =~ /.*MemberAspect.args/)].dynamicChecks").isNotEmpty());
+    }
+
+    private PointcutStats find(List<PointcutStats> stats, String suffix) {
+        return stats.stream()
+                .filter(each -> each.getName().endsWith(suffix))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Slf4j
+    @Aspect
+    static class MemberAspect {
+
+        @Before("execution(* hello.aop.member..*.*(..))")
+        public void execution(JoinPoint joinPoint) {
+        }
+
+        @Before("execution(* hello.aop.member..*.*(..)) && args(arg,..)")
+        public void args(String arg) {
+        }
+
+        @Before("execution(* hello.aop.member..*.*(..)) && args(arg,..)")
+        public void integerArgs(Integer arg) {
+        }
+
+        @Before("execution(* hello.aop.member..*.*(..)) && target(obj)")
+        public void target(MemberService obj) {
+        }
+    }
+}
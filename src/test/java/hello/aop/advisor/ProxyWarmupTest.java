@@ -0,0 +1,92 @@
+package hello.aop.advisor;
+
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.annotation.StatefulAspect;
+import hello.aop.exam.annotation.Trace;
+import hello.aop.exam.aop.RateLimitAspect;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TraceAspect;
+import hello.aop.order.aop.AspectV5Order;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import({TraceAspect.class, RetryAspect.class, RateLimitAspect.class, AspectV5Order.LogAspect.class,
+        AspectV5Order.TxAspect.class, ProxyWarmupTest.InventoryService.class, ProxyWarmupTest.AuditAspect.class,
+        StaticBindingOptimizer.class, AdvisorSwitchboard.class})
+@SpringBootTest(properties = {"warmup.enabled=true", "warmup.max-millis=3000", "warmup.batch=100"})
+class ProxyWarmupTest {
+
+    @Autowired
+    ProxyWarmup proxyWarmup;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    /** 준비 완료 전에 ApplicationRunner 로 실행됐고, 테스트가 부르지 않는 available() 의 실제 타겟은 한 번도 불리지 않았다 */
+    @Test
+    void warmedUpBeforeReady() {
+        ProxyWarmup.Result result = proxyWarmup.getLastResult();
+        log.info("[warmup] methods={} rounds={} {}ms {}ns -> {}ns", result.getMethods(), result.getRounds(),
+                result.getDurationMillis(), result.getFirstRoundNanos(), result.getLastRoundNanos());
+
+        assertThat(result.getMethods()).isGreaterThanOrEqualTo(2);
+        assertThat(result.getRounds()).isGreaterThan(1);
+        assertThat(result.getLastRoundNanos()).isLessThan(result.getFirstRoundNanos());
+        assertThat(InventoryService.availableCalls).hasValue(0);
+        //@StatefulAspect 는 대역 프록시에 들어가지 않는다
+        assertThat(AuditAspect.calls).hasValue(0);
+    }
+
+    /**
+     * 상태가 있는 애스펙트는 건너뛰므로 실제 호출의 한도를 쓰지 않는다
+     * StaticBindingOptimizer, AdvisorSwitchboard 가 어드바이저를 감싸도 마찬가지
+     * */
+    @Test
+    void statefulAspectsAreSkipped() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(inventoryService.reserve("itemA", 1)).isEqualTo("reserved");
+        }
+    }
+
+    @Aspect
+    @StatefulAspect
+    static class AuditAspect {
+
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Before("execution(* hello.aop.advisor.ProxyWarmupTest.InventoryService.available(..))")
+        public void audit() {
+            calls.incrementAndGet();
+        }
+    }
+
+    static class InventoryService {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        static final AtomicInteger availableCalls = new AtomicInteger();
+
+        @Trace
+        @Retry
+        @RateLimit(permits = 5, periodMillis = 60_000)
+        public String reserve(String itemId, int quantity) {
+            return "reserved";
+        }
+
+        @Trace
+        public int available(String itemId) {
+            availableCalls.incrementAndGet();
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package hello.aop.advisor;
+
+import hello.aop.member.MemberService;
+import hello.aop.member.MemberServiceImpl;
+import hello.aop.member.annotation.ClassAop;
+import hello.aop.member.annotation.MethodAop;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 바인딩을 미리 풀어도 ParameterTest, ArgsTest, ThisTargetTest 와 결과가 같아야 한다.
+ * */
+@Slf4j
+@Import({StaticBindingOptimizer.class, StaticBindingOptimizerTest.BindingAspect.class})
+@SpringBootTest
+class StaticBindingOptimizerTest {
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BindingAspect bindingAspect;
+
+    @Test
+    void optimizedInContainer() {
+        Advised advised = (Advised) memberService;
+        assertThat(Arrays.stream(advised.getAdvisors()).filter(StaticBindingAdvisor.class::isInstance))
+                .hasSize(7);
+
+        bindingAspect.calls.clear();
+        memberService.hello("helloA");
+
+        assertThat(bindingAspect.calls).containsExactlyInAnyOrder(
+                "args=helloA", "string=helloA", "this=true", "target=MemberServiceImpl",
+                "@target=true", "@within=true", "@annotation=test value");
+    }
+
+    /** ParameterTest 의 바인딩 값이 최적화 전후로 같은지 */
+    @Test
+    void sameBindings() {
+        MemberServiceImpl target = new MemberServiceImpl();
+
+        BindingAspect before = new BindingAspect();
+        MemberService plain = proxy(target, before, true);
+        BindingAspect after = new BindingAspect();
+        MemberService optimized = proxy(target, after, true);
+        assertThat(new StaticBindingOptimizer().optimize((Advised) optimized)).isEqualTo(7);
+
+        plain.hello("helloA");
+        optimized.hello("helloA");
+        plain.hello(null);
+        optimized.hello(null);
+
+        assertThat(after.calls).isEqualTo(before.calls);
+        assertThat(after.calls).contains("args=helloA", "args=null", "string=null");
+    }
+
+    /** ArgsTest: args(String) 를 Object 파라미터에 걸면 실제 값을 봐야 하므로 동적 검사가 남는다 */
+    @Test
+    void argsNeedsRuntimeType() {
+        ArgsAspect aspect = new ArgsAspect();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Echo());
+        factory.addAspect(aspect);
+        Echo echo = factory.getProxy();
+
+        assertThat(new StaticBindingOptimizer().optimize((Advised) echo)).isZero();
+
+        echo.echo("text");
+        echo.echo(1);
+        assertThat(aspect.calls).containsExactly("text");
+    }
+
+    /** ThisTargetTest: JDK 프록시에 this(구현 클래스) 는 적용되지 않고 target(구현 클래스) 는 적용 */
+    @Test
+    void thisWithJdkProxy() {
+        ThisTargetAspect aspect = new ThisTargetAspect();
+        MemberService proxy = proxy(new MemberServiceImpl(), aspect, false);
+
+        //this 는 동적 검사로 남고 target 만 미리 풀린다
+        assertThat(new StaticBindingOptimizer().optimize((Advised) proxy)).isEqualTo(1);
+
+        proxy.hello("helloA");
+        assertThat(aspect.calls).containsExactly("target");
+    }
+
+    /** 시간은 로그로만, ./gradlew benchmark 로 실행 */
+    @Test
+    @Tag("benchmark")
+    void benchmark() {
+        MemberServiceImpl target = new MemberServiceImpl();
+        BindingAspect plainAspect = new BindingAspect();
+        BindingAspect optimizedAspect = new BindingAspect();
+        MemberService plain = proxy(target, plainAspect, true);
+        MemberService optimized = proxy(target, optimizedAspect, true);
+        assertThat(new StaticBindingOptimizer().optimize((Advised) optimized)).isEqualTo(7);
+
+        int iterations = 200_000;
+
+        //워밍업
+        call(plain, iterations);
+        call(optimized, iterations);
+
+        long dynamicNanos = call(plain, iterations);
+        long staticNanos = call(optimized, iterations);
+
+        log.info("[benchmark] dynamic     {}ns/call", dynamicNanos / iterations);
+        log.info("[benchmark] static      {}ns/call", staticNanos / iterations);
+
+        //같은 횟수만큼 같은 바인딩으로 불렸다
+        assertThat(optimizedAspect.calls).isEqualTo(plainAspect.calls).isNotEmpty();
+    }
+
+    private long call(MemberService memberService, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            memberService.hello("helloA");
+        }
+        return System.nanoTime() - start;
+    }
+
+    private <T extends CallRecorder> MemberService proxy(MemberServiceImpl target, T aspect, boolean proxyTargetClass) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(proxyTargetClass);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    static class CallRecorder {
+
+        final List<String> calls = new ArrayList<>();
+
+        //벤치마크에서 계속 쌓이지 않도록
+        void record(String call) {
+            if (calls.size() < 100) {
+                calls.add(call);
+            }
+        }
+    }
+
+    @Aspect
+    static class BindingAspect extends CallRecorder {
+
+        @Pointcut("execution(* hello.aop.member..*.*(..))")
+        private void allMember() {
+        }
+
+        @Around("allMember() && args(arg,..)")
+        public Object args(ProceedingJoinPoint joinPoint, Object arg) throws Throwable {
+            record("args=" + arg);
+            return joinPoint.proceed();
+        }
+
+        @Before("allMember() && args(arg,..)")
+        public void string(String arg) {
+            record("string=" + arg);
+        }
+
+        @Before("allMember() && this(obj)")
+        public void thisArgs(JoinPoint joinPoint, MemberService obj) {
+            record("this=" + (obj == joinPoint.getThis()));
+        }
+
+        @Before("allMember() && target(obj)")
+        public void targetArgs(MemberService obj) {
+            record("target=" + obj.getClass().getSimpleName());
+        }
+
+        @Before("allMember() && @target(annotation)")
+        public void atTarget(ClassAop annotation) {
+            record("@target=" + (annotation != null));
+        }
+
+        @Before("allMember() && @within(annotation)")
+        public void atWithin(ClassAop annotation) {
+            record("@within=" + (annotation != null));
+        }
+
+        @Before("allMember() && @annotation(annotation)")
+        public void atAnnotation(MethodAop annotation) {
+            record("@annotation=" + annotation.value());
+        }
+    }
+
+    static class Echo {
+        public Object echo(Object value) {
+            return value;
+        }
+    }
+
+    @Aspect
+    static class ArgsAspect extends CallRecorder {
+
+        @Before("execution(* hello.aop.advisor.StaticBindingOptimizerTest.Echo.*(..)) && args(value)")
+        public void onlyString(String value) {
+            record(value);
+        }
+    }
+
+    @Aspect
+    static class ThisTargetAspect extends CallRecorder {
+
+        @Before("execution(* hello.aop.member..*.*(..)) && this(obj)")
+        public void thisImpl(MemberServiceImpl obj) {
+            record("this");
+        }
+
+        @Before("execution(* hello.aop.member..*.*(..)) && target(obj)")
+        public void targetImpl(MemberServiceImpl obj) {
+            record("target");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.AdaptiveLimit;
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.exam.limit.GradientLimiter;
+import hello.aop.exam.limit.LimitExceededException;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@AutoConfigureMockMvc
+@Import({AdaptiveLimitAspect.class, AdaptiveLimitTest.SlowRepository.class})
+@SpringBootTest
+class AdaptiveLimitTest {
+
+    @Autowired
+    AdaptiveLimitAspect adaptiveLimitAspect;
+
+    @Autowired
+    SlowRepository slowRepository;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    /**
+     * 동시에 8개까지는 2ms, 넘으면 줄을 서서 느려지는 저장소에 32 스레드로 계속 요청
+     * 스레드는 10ms 간격으로 하나씩 늘어난다.
+     * 한도가 처음 100 에서 저장소가 버티는 근처로 내려와야 한다.
+     * */
+    @Test
+    void simulation() throws Exception {
+        int threads = 32;
+        LongAdder success = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long startAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10) * i;
+            futures.add(executor.submit(() -> {
+                LockSupport.parkNanos(startAt - System.nanoTime());
+                while (System.nanoTime() < end) {
+                    try {
+                        slowRepository.save("itemA");
+                        success.increment();
+                    } catch (LimitExceededException e) {
+                        rejected.increment();
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        GradientLimiter limiter = adaptiveLimitAspect.limiters().stream()
+                .filter(each -> each.getName().contains("SlowRepository"))
+                .findFirst().orElseThrow();
+
+        log.info("[simulation] limit={} success={} rejected={} rejectionRate={} maxConcurrent={}",
+                limiter.getLimit(), success.sum(), rejected.sum(), limiter.getRejectionRate(), SlowRepository.maxConcurrent.get());
+
+        assertThat(limiter.getLimit()).isBetween(2, 30);
+        assertThat(limiter.getRejected()).isEqualTo(rejected.sum()).isPositive();
+        assertThat(limiter.getInFlight()).isZero();
+
+        mockMvc.perform(get("/admin/limits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name =~ /.*SlowRepository.*/)].limit").exists());
+    }
+
+    /**
+     * 한도 1 에서 자리를 잡고 있으면 기다리던 호출은 돌려주는 순간 깨어나서 자리를 얻는다.
+     * 기다리는 시간이 지나면 거절
+     * */
+    @Test
+    void waiterIsSignaled() throws Exception {
+        GradientLimiter limiter = new GradientLimiter("test", 1, 1, 1);
+        assertThat(limiter.acquire(0)).isTrue();
+        assertThat(limiter.acquire(0)).isFalse();
+        assertThat(limiter.acquire(TimeUnit.MILLISECONDS.toNanos(20))).isFalse();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> waiter = executor.submit(() -> limiter.acquire(TimeUnit.SECONDS.toNanos(5)));
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(waiter.isDone()).isFalse();
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertThat(waiter.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getAccepted()).isEqualTo(2);
+        assertThat(limiter.getRejected()).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    @Test
+    void orderRepository() {
+        orderService.orderItem("itemA");
+
+        assertThat(adaptiveLimitAspect.limiters())
+                .anyMatch(limiter -> limiter.getName().contains("OrderRepository.save"));
+    }
+
+    static class SlowRepository {
+
+        private static final int CAPACITY = 8;
+
+        //프록시로 읽어도 같은 값이도록 static
+        private static final AtomicInteger concurrent = new AtomicInteger();
+        private static final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @AdaptiveLimit(initialLimit = 100, maxLimit = 100)
+        public String save(String itemId) {
+            int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+            try {
+                //동시 실행이 처리 용량을 넘으면 그만큼 느려진다
+                long latency = TimeUnit.MILLISECONDS.toNanos(2) * Math.max(1, current) / CAPACITY;
+                LockSupport.parkNanos(Math.max(latency, TimeUnit.MILLISECONDS.toNanos(2)));
+                return "ok";
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Idempotent;
+import hello.aop.exam.annotation.SerializeOn;
+import hello.aop.exam.annotation.Timeout;
+import hello.aop.exam.aop.IdempotentAspect;
+import hello.aop.exam.aop.SerializeOnAspect;
+import hello.aop.exam.aop.TimeoutAspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 세 애스펙트를 등록 순서와 반대로 @Import 해도 AspectOrder 순서로 실행된다
+ * */
+@Import({SerializeOnAspect.class, IdempotentAspect.class, TimeoutAspect.class, AspectOrderTest.OrderedService.class})
+@SpringBootTest
+class AspectOrderTest {
+
+    @Autowired
+    OrderedService orderedService;
+
+    @Test
+    void timeoutWrapsIdempotentWrapsSerializeOn() {
+        List<String> aspects = new ArrayList<>();
+        for (Advisor advisor : ((Advised) orderedService).getAdvisors()) {
+            if (advisor.getAdvice() instanceof AbstractAspectJAdvice) {
+                aspects.add(((AbstractAspectJAdvice) advisor.getAdvice()).getAspectJAdviceMethod()
+                        .getDeclaringClass().getSimpleName());
+            }
+        }
+
+        //체인 앞쪽이 바깥
+        assertThat(aspects).containsExactly("TimeoutAspect", "IdempotentAspect", "SerializeOnAspect");
+        assertThat(orderedService.order("order-1")).isEqualTo("ok:order-1");
+    }
+
+    static class OrderedService {
+
+        @Timeout(1000)
+        @Idempotent
+        @SerializeOn(key = "#orderId")
+        public String order(String orderId) {
+            return "ok:" + orderId;
+        }
+    }
+}
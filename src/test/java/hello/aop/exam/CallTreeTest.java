@@ -0,0 +1,107 @@
+package hello.aop.exam;
+
+import hello.aop.exam.aop.CallTreeAspect;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.calltree.CallNode;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@AutoConfigureMockMvc
+@Import({CallTreeAspect.class, RetryAspect.class})
+@SpringBootTest(properties = "calltree.publish-millis=0")
+class CallTreeTest {
+
+    @Autowired
+    CallTreeAspect callTreeAspect;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void reset() {
+        callTreeAspect.reset();
+    }
+
+    @Test
+    void mergedAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<?>[] futures = new Future[4];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = executor.submit(() -> {
+                for (int j = 0; j < 25; j++) {
+                    orderService.orderItem("itemA");
+                    examService.request("itemA");
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        CallNode root = callTreeAspect.snapshot();
+        CallNode service = child(root, "OrderService.orderItem(..)");
+        CallNode repository = child(service, "OrderRepository.save(..)");
+        assertThat(service.getCount()).isEqualTo(100);
+        assertThat(repository.getCount()).isEqualTo(100);
+        assertThat(service.getTotalNanos()).isGreaterThanOrEqualTo(repository.getTotalNanos());
+        assertThat(service.getSelfNanos()).isEqualTo(service.getTotalNanos() - repository.getTotalNanos());
+
+        assertThat(child(child(root, "ExamService.request(..)"), "ExamRepository.save(..)").getCount()).isEqualTo(100);
+    }
+
+    @Test
+    void failedCallsAreRecorded() {
+        assertThatThrownBy(() -> orderService.orderItem("ex")).isInstanceOf(IllegalStateException.class);
+        orderService.orderItem("itemA");
+
+        CallNode service = child(callTreeAspect.snapshot(), "OrderService.orderItem(..)");
+        assertThat(service.getCount()).isEqualTo(2);
+        assertThat(child(service, "OrderRepository.save(..)").getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void collapsed() throws Exception {
+        orderService.orderItem("itemA");
+        orderService.orderItem("itemA");
+
+        String folded = callTreeAspect.collapsed("count");
+        log.info("collapsed\n{}", folded);
+        assertThat(folded).contains("OrderService.orderItem(..) 2\n")
+                .contains("OrderService.orderItem(..);OrderRepository.save(..) 2\n");
+
+        mockMvc.perform(get("/admin/calltree").param("metric", "count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(folded));
+    }
+
+    private static CallNode child(CallNode node, String name) {
+        return node.getChildren().stream()
+                .filter(each -> each.getName().equals(name))
+                .findFirst().orElseThrow(() -> new AssertionError(name + " 없음: " + node.getChildren()));
+    }
+}
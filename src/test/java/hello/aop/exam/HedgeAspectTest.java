@@ -0,0 +1,151 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Hedge;
+import hello.aop.exam.aop.HedgeAspect;
+import hello.aop.member.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import({HedgeAspect.class, HedgeAspectTest.SlowService.class, HedgeAspectTest.BindingAspect.class})
+@SpringBootTest
+class HedgeAspectTest {
+
+    @Autowired
+    HedgeAspect hedgeAspect;
+
+    @Autowired
+    SlowService slowService;
+
+    @Autowired
+    BindingAspect bindingAspect;
+
+    @Autowired
+    MemberService memberService;
+
+    @Test
+    void hedge() throws Exception {
+        long start = System.nanoTime();
+        String result = slowService.read("itemA");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("hedged result={} elapsed={}ms", result, elapsedMillis);
+        assertThat(result).isEqualTo("fast itemA");
+        assertThat(elapsedMillis).isLessThan(400);
+        assertThat(hedgeAspect.hedgeCount(SlowService.class.getMethod("read", String.class))).isEqualTo(1);
+
+        //늦은 쪽은 취소
+        assertThat(slowService.getCancelled().await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void limit() throws Exception {
+        long start = System.nanoTime();
+        String result = slowService.readWithoutBudget("itemA");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(result).isEqualTo("ok itemA");
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(100);
+        assertThat(hedgeAspect.hedgeCount(SlowService.class.getMethod("readWithoutBudget", String.class))).isZero();
+    }
+
+    /** 안쪽 @Before 는 시도마다 자기 JoinPoint 와 인자 바인딩을 받는다, 복제본끼리 userAttributes 를 같이 쓰지 않는다 */
+    @Test
+    void eachAttemptHasItsOwnJoinPoint() throws Exception {
+        String result = slowService.readBound("itemA");
+
+        assertThat(result).isEqualTo("fast itemA");
+        assertThat(hedgeAspect.hedgeCount(SlowService.class.getMethod("readBound", String.class))).isEqualTo(1);
+
+        assertThat(bindingAspect.itemIds).containsExactly("itemA", "itemA");
+        assertThat(bindingAspect.joinPoints).hasSize(2);
+        assertThat(bindingAspect.joinPoints.get(0)).isNotSameAs(bindingAspect.joinPoints.get(1));
+        assertThat(bindingAspect.threads).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void memberService() {
+        assertThat(memberService.hello("helloA")).isEqualTo("ok");
+    }
+
+    static class SlowService {
+
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        //첫 번째 시도만 느리다
+        @Hedge(initialDelayMillis = 20, maxPercent = 100)
+        public String read(String itemId) {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(1000);
+                    return "slow " + itemId;
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("취소", e);
+                }
+            }
+            return "fast " + itemId;
+        }
+
+        //프록시로 필드를 바로 읽으면 프록시 객체의 필드라서
+        public CountDownLatch getCancelled() {
+            return cancelled;
+        }
+
+        private final AtomicInteger boundAttempts = new AtomicInteger();
+
+        //첫 번째 시도만 느리다, BindingAspect 가 인자를 바인딩한다
+        @Hedge(initialDelayMillis = 20, maxPercent = 100)
+        public String readBound(String itemId) {
+            if (boundAttempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(1000);
+                    return "slow " + itemId;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("취소", e);
+                }
+            }
+            return "fast " + itemId;
+        }
+
+        //추가 호출 한도 0
+        @Hedge(initialDelayMillis = 20, maxPercent = 0)
+        public String readWithoutBudget(String itemId) throws InterruptedException {
+            Thread.sleep(100);
+            return "ok " + itemId;
+        }
+    }
+
+    //순서가 없어서 HedgeAspect 안쪽, 시도마다 실행된다
+    @Aspect
+    static class BindingAspect {
+
+        private final List<JoinPoint> joinPoints = new CopyOnWriteArrayList<>();
+        private final List<String> itemIds = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Before("execution(* hello.aop.exam.HedgeAspectTest.SlowService.readBound(..)) && args(itemId)")
+        public void bind(JoinPoint joinPoint, String itemId) {
+            joinPoints.add(joinPoint);
+            itemIds.add(itemId);
+            threads.add(Thread.currentThread().getName());
+        }
+    }
+}
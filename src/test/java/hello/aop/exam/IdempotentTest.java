@@ -0,0 +1,225 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Idempotent;
+import hello.aop.exam.aop.IdempotentAspect;
+import hello.aop.exam.idempotent.IdempotencyStore;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import({IdempotentAspect.class, IdempotentTest.PaymentService.class})
+@SpringBootTest
+class IdempotentTest {
+
+    @Autowired
+    PaymentService paymentService;
+
+    @BeforeEach
+    void reset() {
+        PaymentService.calls.set(0);
+    }
+
+    @Test
+    void duplicate() {
+        String first = paymentService.pay("order-1", 1000);
+        String second = paymentService.pay("order-1", 2000);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(PaymentService.calls).hasValue(1);
+
+        paymentService.pay("order-2", 1000);
+        assertThat(PaymentService.calls).hasValue(2);
+    }
+
+    @Test
+    void failureIsNotRecorded() {
+        assertThatThrownBy(() -> paymentService.pay("ex", 1000)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> paymentService.pay("ex", 1000)).isInstanceOf(IllegalStateException.class);
+        assertThat(PaymentService.calls).hasValue(2);
+    }
+
+    @Test
+    void nullKey() {
+        assertThatThrownBy(() -> paymentService.pay(null, 1000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("#orderId");
+        assertThat(PaymentService.calls).hasValue(0);
+    }
+
+    @Test
+    void concurrentDuplicate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] futures = new Future[8];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = executor.submit(() -> {
+                start.await();
+                return paymentService.slowPay("order-3");
+            });
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            assertThat(future.get()).isEqualTo("paid:order-3");
+        }
+        executor.shutdown();
+
+        assertThat(PaymentService.calls).hasValue(1);
+    }
+
+    @Test
+    void expire() throws InterruptedException {
+        paymentService.shortWindow("order-4");
+        paymentService.shortWindow("order-4");
+        assertThat(PaymentService.calls).hasValue(1);
+
+        Thread.sleep(150);
+        paymentService.shortWindow("order-4");
+        assertThat(PaymentService.calls).hasValue(2);
+    }
+
+    //지문은 toString 이 아니라 equals 가 같은지로 정해진다
+    @Test
+    void fingerprint() {
+        assertThat(IdempotencyStore.fingerprint(Arrays.asList("order-1", 1000)))
+                .isEqualTo(IdempotencyStore.fingerprint(new ArrayList<>(List.of("order-1", 1000))));
+        assertThat(IdempotencyStore.fingerprint(Set.of("a", "b")))
+                .isEqualTo(IdempotencyStore.fingerprint(new HashSet<>(List.of("b", "a"))));
+
+        assertThat(IdempotencyStore.fingerprint("1")).isNotEqualTo(IdempotencyStore.fingerprint(1));
+        assertThat(IdempotencyStore.fingerprint(1)).isNotEqualTo(IdempotencyStore.fingerprint(1L));
+        assertThat(IdempotencyStore.fingerprint(List.of("a,b"))).isNotEqualTo(IdempotencyStore.fingerprint(List.of("a", "b")));
+        assertThat(IdempotencyStore.fingerprint(null)).isNotEqualTo(IdempotencyStore.fingerprint("null"));
+
+        //컬렉션으로 끝나는 키도 앞의 인수까지 지문에 들어간다 ex) m(String customer, List items)
+        assertThat(IdempotencyStore.fingerprint(Arrays.asList("alice", List.of("x"))))
+                .isNotEqualTo(IdempotencyStore.fingerprint(Arrays.asList("bob", List.of("x"))));
+        assertThat(IdempotencyStore.fingerprint(Arrays.asList("alice", Set.of("x"))))
+                .isNotEqualTo(IdempotencyStore.fingerprint(Arrays.asList("bob", Set.of("x"))));
+        assertThat(IdempotencyStore.fingerprint(Arrays.asList("alice", Map.of("k", "v"))))
+                .isNotEqualTo(IdempotencyStore.fingerprint(Arrays.asList("bob", Map.of("k", "v"))));
+        assertThat(IdempotencyStore.fingerprint(Arrays.asList("alice", List.of("x"))))
+                .isEqualTo(IdempotencyStore.fingerprint(List.of("alice", new ArrayList<>(List.of("x")))));
+    }
+
+    /**
+     * 키 200만 개, 키당 메모리와 조회 지연
+     * 비교용으로 같은 키를 ConcurrentHashMap<String, Object> 에 넣었을 때의 힙 증가량
+     * 결과는 모두 같은 객체 하나를 가리키므로 결과 객체 크기는 빠진다.
+     * 메모리, 시간은 로그로만, ./gradlew benchmark 로 실행
+     * */
+    @Test
+    @Tag("benchmark")
+    void millionsOfKeys() {
+        int keys = 2_000_000;
+        Object result = "ok";
+
+        long before = usedHeap();
+        IdempotencyStore store = new IdempotencyStore(1, TimeUnit.MINUTES, 32);
+        for (int i = 0; i < keys; i++) {
+            store.put(IdempotencyStore.fingerprint("order-" + i), result);
+        }
+        long storeHeap = usedHeap() - before;
+        assertThat(store.size()).isEqualTo(keys);
+
+        long[] lookups = new long[1_000_000];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = IdempotencyStore.fingerprint("order-" + ThreadLocalRandom.current().nextInt(keys));
+        }
+        long begin = System.nanoTime();
+        int hits = 0;
+        for (long fingerprint : lookups) {
+            if (store.get(fingerprint) != IdempotencyStore.MISSING) {
+                hits++;
+            }
+        }
+        long lookupNanos = (System.nanoTime() - begin) / lookups.length;
+        assertThat(hits).isEqualTo(lookups.length);
+
+        before = usedHeap();
+        Map<String, Object> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            map.put("order-" + i, result);
+        }
+        long mapHeap = usedHeap() - before;
+
+        log.info("keys={} store={} bytes/key (arrays {} bytes/key) lookup={}ns, ConcurrentHashMap={} bytes/key",
+                keys, storeHeap / keys, store.memoryBytes() / keys, lookupNanos, mapHeap / keys);
+        assertThat(map).hasSize(keys);
+    }
+
+    @Test
+    void expiryWheel() throws InterruptedException {
+        IdempotencyStore store = new IdempotencyStore(100, TimeUnit.MILLISECONDS, 10);
+        for (int i = 0; i < 10_000; i++) {
+            store.put("order-" + i, "ok");
+        }
+        assertThat(store.get("order-0")).isEqualTo("ok");
+
+        //윈도우가 지나면 타이머 휠이 모두 지운다, 세그먼트는 접근할 때 정리하므로 한 번씩 건드려 준다
+        Thread.sleep(150);
+        for (int i = 0; i < 1000; i++) {
+            store.get("touch-" + i);
+        }
+        assertThat(store.size()).isZero();
+        assertThat(store.get("order-0")).isSameAs(IdempotencyStore.MISSING);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static class PaymentService {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Idempotent(key = "#orderId")
+        public String pay(String orderId, int amount) {
+            calls.incrementAndGet();
+            if (orderId.equals("ex")) {
+                throw new IllegalStateException("결제 실패");
+            }
+            return "paid:" + orderId + ":" + amount;
+        }
+
+        @Idempotent
+        public String slowPay(String orderId) throws InterruptedException {
+            calls.incrementAndGet();
+            Thread.sleep(100);
+            return "paid:" + orderId;
+        }
+
+        @Idempotent(windowMillis = 100)
+        public String shortWindow(String orderId) {
+            calls.incrementAndGet();
+            return "paid:" + orderId;
+        }
+    }
+}
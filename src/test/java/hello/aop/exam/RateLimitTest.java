@@ -0,0 +1,202 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.RateLimit;
+import hello.aop.exam.aop.RateLimitAspect;
+import hello.aop.exam.ratelimit.KeyedTokenBuckets;
+import hello.aop.exam.ratelimit.RateLimitExceededException;
+import hello.aop.exam.ratelimit.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import({RateLimitAspect.class, RateLimitTest.LimitedRepository.class})
+@SpringBootTest(properties = "rate-limit.max-keys=100")
+class RateLimitTest {
+
+    @Autowired
+    LimitedRepository limitedRepository;
+
+    @Test
+    void burst() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limitedRepository.save("itemA")).isEqualTo("ok");
+        }
+        assertThatThrownBy(() -> limitedRepository.save("itemA"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void perKey() {
+        for (int i = 0; i < 3; i++) {
+            limitedRepository.find("itemA");
+        }
+        assertThatThrownBy(() -> limitedRepository.find("itemA"))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("key=itemA");
+
+        //다른 키는 따로 센다
+        assertThat(limitedRepository.find("itemB")).isEqualTo("itemB");
+    }
+
+    @Test
+    void nullKey() {
+        assertThatThrownBy(() -> limitedRepository.find(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("#itemId");
+    }
+
+    @Test
+    void refill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 100, TimeUnit.MILLISECONDS, 1);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        //10ms 마다 하나씩 다시 찬다
+        Thread.sleep(15);
+        assertThat(bucket.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void boundedKeys() throws InterruptedException {
+        KeyedTokenBuckets keyed = new KeyedTokenBuckets(
+                () -> new TokenBucket(1, 1, TimeUnit.HOURS, 1), 100, 10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            assertThat(keyed.tryAcquire("key" + i)).isTrue();
+        }
+        assertThat(keyed.size()).isEqualTo(100);
+
+        //100번째 넘는 키가 들어오면 정리해서 한도 안으로 유지
+        for (int i = 100; i < 1000; i++) {
+            keyed.tryAcquire("key" + i);
+        }
+        assertThat(keyed.size()).isLessThanOrEqualTo(100);
+    }
+
+    /**
+     * 32 스레드가 버킷 하나를 두드릴 때 처리량
+     * CAS 버킷과 synchronized 로 토큰 수를 세는 버킷 비교, 토큰이 모자라지 않도록 한도는 넉넉하게
+     * 키별 버킷은 키 1000개에 나눠서
+     * 처리량은 로그로만, ./gradlew benchmark 로 실행
+     * */
+    @Test
+    @Tag("benchmark")
+    void throughput() throws Exception {
+        int threads = 32;
+        int perThread = 200_000;
+
+        TokenBucket cas = new TokenBucket(Integer.MAX_VALUE, 1, TimeUnit.MILLISECONDS, Integer.MAX_VALUE);
+        SynchronizedBucket locked = new SynchronizedBucket(1_000_000_000_000L, Long.MAX_VALUE / 2);
+        KeyedTokenBuckets keyed = new KeyedTokenBuckets(
+                () -> new TokenBucket(Integer.MAX_VALUE, 1, TimeUnit.MILLISECONDS, Integer.MAX_VALUE),
+                10_000, 1, TimeUnit.MINUTES);
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "key" + i;
+        }
+
+        //워밍업
+        run(threads, perThread / 10, i -> cas.tryAcquire());
+        run(threads, perThread / 10, i -> locked.tryAcquire());
+        run(threads, perThread / 10, i -> keyed.tryAcquire(keys[i % keys.length]));
+
+        double casOps = run(threads, perThread, i -> cas.tryAcquire());
+        double lockedOps = run(threads, perThread, i -> locked.tryAcquire());
+        double keyedOps = run(threads, perThread, i -> keyed.tryAcquire(keys[i % keys.length]));
+        log.info("threads={} cas={} ops/s synchronized={} ops/s keyed(1000)={} ops/s",
+                threads, (long) casOps, (long) lockedOps, (long) keyedOps);
+
+        assertThat(casOps).isGreaterThan(0);
+        assertThat(keyed.size()).isEqualTo(keys.length);
+    }
+
+    private double run(int threads, int perThread, IntPredicate acquire) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder granted = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                long count = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (acquire.test(offset + i)) {
+                        count++;
+                    }
+                }
+                granted.add(count);
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        assertThat(granted.sum()).isEqualTo((long) threads * perThread);
+        return (double) threads * perThread * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /** 비교용, 흔히 쓰는 토큰 수 + 마지막 충전 시각 버킷 */
+    static class SynchronizedBucket {
+
+        private final long permitsPerSecond;
+        private final long capacity;
+        private long tokens;
+        private long lastRefill = System.nanoTime();
+
+        SynchronizedBucket(long permitsPerSecond, long capacity) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            long refill = (now - lastRefill) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            if (refill > 0) {
+                tokens = Math.min(capacity, tokens + refill);
+                lastRefill = now;
+            }
+            if (tokens == 0) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    static class LimitedRepository {
+
+        @RateLimit(permits = 5, periodMillis = 60_000)
+        public String save(String itemId) {
+            return "ok";
+        }
+
+        @RateLimit(permits = 3, periodMillis = 60_000, key = "#itemId")
+        public String find(String itemId) {
+            return itemId;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hello.aop.exam;
+
+import hello.aop.exam.aop.ResourceAccountingAspect;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.resource.ResourceStats;
+import hello.aop.order.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@AutoConfigureMockMvc
+@Import({ResourceAccountingAspect.class, RetryAspect.class})
+@SpringBootTest(properties = "resource.sample-rate=1.0")
+class ResourceAccountingTest {
+
+    @Autowired
+    ResourceAccountingAspect resourceAccountingAspect;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void topConsumers() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            orderService.orderItem("itemA");
+            examService.request("itemA");
+        }
+
+        List<ResourceStats> byCpu = resourceAccountingAspect.top("cpu", 10);
+        List<ResourceStats> byAlloc = resourceAccountingAspect.top("alloc", 10);
+        byCpu.forEach(stats -> log.info("[cpu] {}", stats));
+        byAlloc.forEach(stats -> log.info("[alloc] {}", stats));
+
+        assertThat(byCpu).extracting(ResourceStats::getName).contains(
+                "OrderService.orderItem(..)", "OrderRepository.save(..)", "ExamService.request(..)", "ExamRepository.save(..)");
+        assertThat(byAlloc.get(0).getAllocatedBytes()).isPositive();
+        assertThat(byCpu.get(0).getCpuNanos()).isPositive();
+
+        //안쪽 호출은 바깥 호출에 포함된다
+        ResourceStats service = find(byCpu, "OrderService.orderItem(..)");
+        ResourceStats repository = find(byCpu, "OrderRepository.save(..)");
+        assertThat(service.getCalls()).isEqualTo(20);
+        assertThat(service.getSampled()).isEqualTo(20);
+        assertThat(service.getCpuNanos()).isGreaterThanOrEqualTo(repository.getCpuNanos());
+        assertThat(service.getAllocatedBytes()).isGreaterThanOrEqualTo(repository.getAllocatedBytes());
+
+        mockMvc.perform(get("/admin/resources").param("sort", "alloc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value(byAlloc.get(0).getName()));
+    }
+
+    private static ResourceStats find(List<ResourceStats> stats, String name) {
+        return stats.stream().filter(each -> each.getName().equals(name)).findFirst().orElseThrow();
+    }
+}
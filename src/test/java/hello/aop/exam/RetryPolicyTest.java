@@ -0,0 +1,114 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.retry.ResultPredicate;
+import hello.aop.exam.retry.RetryPolicy;
+import hello.aop.exam.retry.RetryableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import({RetryAspect.class, RetryPolicyTest.PickyRepository.class})
+@SpringBootTest
+class RetryPolicyTest {
+
+    @Autowired
+    PickyRepository pickyRepository;
+
+    @BeforeEach
+    void reset() {
+        PickyRepository.calls.set(0);
+    }
+
+    @Test
+    void includedExceptionIsRetried() {
+        assertThatThrownBy(() -> pickyRepository.save(new RetryableException("일시적 실패")))
+                .isInstanceOf(RetryableException.class);
+        assertThat(PickyRepository.calls).hasValue(3);
+    }
+
+    @Test
+    void excludedExceptionIsThrownImmediately() {
+        assertThatThrownBy(() -> pickyRepository.save(new IllegalArgumentException("잘못된 값")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(PickyRepository.calls).hasValue(1);
+    }
+
+    @Test
+    void notIncludedExceptionIsThrownImmediately() {
+        assertThatThrownBy(() -> pickyRepository.save(new UnsupportedOperationException("지원 안 함")))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(PickyRepository.calls).hasValue(1);
+    }
+
+    @Test
+    void errorIsNeverRetried() {
+        assertThatThrownBy(() -> pickyRepository.fail(new AssertionError("검증 실패")))
+                .isInstanceOf(AssertionError.class);
+        assertThat(PickyRepository.calls).hasValue(1);
+        assertThat(RetryPolicy.forMethod(PickyRepository.class, "save", RuntimeException.class)
+                .isRetryable(new AssertionError("e"))).isFalse();
+    }
+
+    @Test
+    void retryOnResult() {
+        //처음 두 번은 "busy", 세 번째에 "ok"
+        assertThat(pickyRepository.find(2)).isEqualTo("ok");
+        assertThat(PickyRepository.calls).hasValue(3);
+
+        //시도를 다 쓰면 마지막 결과를 그대로 반환
+        PickyRepository.calls.set(0);
+        assertThat(pickyRepository.find(10)).isEqualTo("busy");
+        assertThat(PickyRepository.calls).hasValue(3);
+    }
+
+    @Test
+    void decisionIsMemoizedPerExceptionClass() throws Exception {
+        RetryPolicy policy = RetryPolicy.forMethod(PickyRepository.class, "save", RuntimeException.class);
+
+        //exclude 가 include 보다 우선, 하위 타입도 같은 판단
+        assertThat(policy.isRetryable(new RetryableException("a"))).isTrue();
+        assertThat(policy.isRetryable(new IllegalStateException("b"))).isTrue();
+        assertThat(policy.isRetryable(new NumberFormatException("c"))).isFalse();
+        assertThat(policy.isRetryable(new RuntimeException("d"))).isFalse();
+        assertThat(policy.getMaxAttempts()).isEqualTo(3);
+    }
+
+    public static class BusyResult implements ResultPredicate {
+        @Override
+        public boolean shouldRetry(Object result) {
+            return "busy".equals(result);
+        }
+    }
+
+    static class PickyRepository {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Retry(value = 3, include = IllegalStateException.class, exclude = IllegalArgumentException.class)
+        public String save(RuntimeException failure) {
+            calls.incrementAndGet();
+            throw failure;
+        }
+
+        @Retry(3)
+        public String fail(Error failure) {
+            calls.incrementAndGet();
+            throw failure;
+        }
+
+        @Retry(value = 3, retryOnResult = BusyResult.class)
+        public String find(int busyTimes) {
+            return calls.incrementAndGet() <= busyTimes ? "busy" : "ok";
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.SerializeOn;
+import hello.aop.exam.aop.SerializeOnAspect;
+import hello.aop.exam.deadline.Deadline;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.exam.serialize.StripedLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import({SerializeOnAspect.class, SerializeOnTest.StockService.class})
+@SpringBootTest
+class SerializeOnTest {
+
+    @Autowired
+    StockService stockService;
+
+    @Test
+    void sameKeyDoesNotInterleave() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String itemId = "item" + (i % 2);
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 200; j++) {
+                    stockService.decrease(itemId);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(StockService.maxOverlap.get()).isEqualTo(1);
+        assertThat(StockService.stock.get("item0")).hasValue(-1600);
+        assertThat(StockService.stock.get("item1")).hasValue(-1600);
+    }
+
+    @Test
+    void differentKeysRunInParallel() throws Exception {
+        StripedLocks striped = new StripedLocks(256, false);
+        String other = "itemB";
+        for (int i = 0; striped.lockFor("itemA") == striped.lockFor(other); i++) {
+            other = "itemB" + i;
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> stockService.hold("itemA", holding, release));
+        holding.await();
+
+        //itemA 가 잡혀 있어도 다른 키는 바로 실행
+        assertThat(stockService.hold(other, new CountDownLatch(1), new CountDownLatch(0))).isEqualTo(other);
+
+        //같은 키는 남은 시간까지만 기다린다
+        try (DeadlineContext.Scope scope = DeadlineContext.open(Deadline.after(50, TimeUnit.MILLISECONDS))) {
+            assertThatThrownBy(() -> stockService.hold("itemA", new CountDownLatch(1), new CountDownLatch(0)))
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+
+        release.countDown();
+        holder.get();
+        executor.shutdown();
+    }
+
+    /**
+     * 32 스레드, 락 안에서 2µs 일을 하는 호출의 처리량
+     * 키 분포: 키 1만 개 균등, 지프(s=1.1), 키 하나에 모두
+     * 락: 전역 락 하나, 스트라이프 256 비공정, 스트라이프 256 공정
+     * 처리량은 로그로만, ./gradlew benchmark 로 실행
+     * */
+    @Test
+    @Tag("benchmark")
+    void contention() throws Exception {
+        int keys = 10_000;
+        double[] zipf = zipfTable(keys, 1.1);
+
+        Map<String, IntSupplier> distributions = new LinkedHashMap<>();
+        distributions.put("uniform", () -> ThreadLocalRandom.current().nextInt(keys));
+        distributions.put("zipf", () -> zipfNext(zipf));
+        distributions.put("single", () -> 0);
+
+        Map<String, StripedLocks> strategies = new LinkedHashMap<>();
+        strategies.put("global", new StripedLocks(1, false));
+        strategies.put("striped", new StripedLocks(256, false));
+        strategies.put("striped-fair", new StripedLocks(256, true));
+
+        for (Map.Entry<String, IntSupplier> distribution : distributions.entrySet()) {
+            StringBuilder line = new StringBuilder(distribution.getKey());
+            for (Map.Entry<String, StripedLocks> strategy : strategies.entrySet()) {
+                long ops = run(32, 200, strategy.getValue(), distribution.getValue());
+                //키 하나에 몰려도, 공정 락이어도 멈추지 않고 진행해야 한다
+                assertThat(ops).as("%s %s", distribution.getKey(), strategy.getKey()).isPositive();
+                line.append(' ').append(strategy.getKey()).append('=').append(ops).append(" ops/s");
+            }
+            log.info("[contention] {}", line);
+        }
+    }
+
+    private long run(int threads, long millis, StripedLocks striped, IntSupplier key) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] end = new long[1];
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (System.nanoTime() - end[0] < 0) {
+                    ReentrantLock lock = striped.lockFor(key.getAsInt());
+                    lock.lock();
+                    try {
+                        spin(2_000);
+                    } finally {
+                        lock.unlock();
+                    }
+                    ops.increment();
+                }
+                return null;
+            }));
+        }
+        end[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return ops.sum() * 1000 / millis;
+    }
+
+    private static void spin(long nanos) {
+        long until = System.nanoTime() + nanos;
+        while (System.nanoTime() - until < 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static double[] zipfTable(int n, double s) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int zipfNext(double[] cumulative) {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    static class StockService {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        static final Map<String, AtomicInteger> stock = new ConcurrentHashMap<>();
+        static final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        static final AtomicInteger maxOverlap = new AtomicInteger();
+
+        @SerializeOn(key = "#itemId")
+        public void decrease(String itemId) {
+            int overlap = running.computeIfAbsent(itemId, k -> new AtomicInteger()).incrementAndGet();
+            maxOverlap.accumulateAndGet(overlap, Math::max);
+
+            //읽고 잠깐 쉬고 쓰기, 섞이면 값이 틀어진다
+            AtomicInteger count = stock.computeIfAbsent(itemId, k -> new AtomicInteger());
+            int current = count.get();
+            LockSupport.parkNanos(1_000);
+            count.set(current - 1);
+
+            running.get(itemId).decrementAndGet();
+        }
+
+        @SerializeOn(key = "#itemId")
+        public String hold(String itemId, CountDownLatch holding, CountDownLatch release) throws InterruptedException {
+            holding.countDown();
+            release.await();
+            return itemId;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.annotation.SlowCall;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.SlowCallAspect;
+import hello.aop.exam.slowcall.SlowCallRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@AutoConfigureMockMvc
+@Import({SlowCallAspect.class, RetryAspect.class, SlowCallTest.ReportService.class, SlowCallTest.ReportRepository.class})
+@SpringBootTest(properties = "slowcall.min-samples=50")
+class SlowCallTest {
+
+    @Autowired
+    SlowCallAspect slowCallAspect;
+
+    @Autowired
+    ReportService reportService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    /** 고정 기준 20ms, 안쪽 호출이 두 번 실패하고 세 번째에 느리게 성공 */
+    @Test
+    void staticThreshold() throws Exception {
+        ReportRepository.failures.set(2);
+        reportService.build("monthly", 30);
+
+        SlowCallRecord record = find("ReportService.build(..)");
+        log.info("[slowcall] {}", record);
+        assertThat(record.getArguments()).contains("monthly", "30");
+        assertThat(record.getThread()).isEqualTo(Thread.currentThread().getName());
+        assertThat(record.getRetries()).isEqualTo(2);
+        assertThat(record.getThresholdNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(record.getDurationNanos()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(30));
+
+        //자기 자신 + 안쪽 호출, 재시도는 안쪽 호출 하나 안에서 일어난다
+        assertThat(record.getSpans()).extracting(SlowCallRecord.Span::getName)
+                .containsExactly("ReportService.build(..)", "ReportRepository.load(..)");
+        assertThat(record.getSpans().get(1).getDepth()).isEqualTo(1);
+
+        mockMvc.perform(get("/admin/slowcalls"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.signature == 'ReportService.build(..)')].retries").exists());
+    }
+
+    /** 기준이 없으면 최근 응답 시간의 p99, 빠른 호출이 쌓인 다음 느린 호출 하나만 잡힌다 */
+    @Test
+    void percentileThreshold() {
+        for (int i = 0; i < 200; i++) {
+            reportService.quick(0);
+        }
+        long before = count("ReportService.quick(..)");
+
+        reportService.quick(20);
+
+        List<SlowCallRecord> records = slowCallAspect.records();
+        assertThat(records.get(0).getSignature()).isEqualTo("ReportService.quick(..)");
+        assertThat(records.get(0).getArguments()).contains("20");
+        assertThat(records.get(0).getThresholdNanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(count("ReportService.quick(..)")).isEqualTo(before + 1);
+    }
+
+    private SlowCallRecord find(String signature) {
+        return slowCallAspect.records().stream()
+                .filter(record -> record.getSignature().equals(signature))
+                .findFirst().orElseThrow();
+    }
+
+    private long count(String signature) {
+        return slowCallAspect.records().stream().filter(record -> record.getSignature().equals(signature)).count();
+    }
+
+    static class ReportService {
+
+        private final ReportRepository reportRepository;
+
+        ReportService(ReportRepository reportRepository) {
+            this.reportRepository = reportRepository;
+        }
+
+        @SlowCall(thresholdMillis = 20)
+        public String build(String name, int sleepMillis) {
+            return reportRepository.load(name, sleepMillis);
+        }
+
+        @SlowCall
+        public void quick(int sleepMillis) {
+            sleep(sleepMillis);
+        }
+    }
+
+    static class ReportRepository {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        static final AtomicInteger failures = new AtomicInteger();
+
+        @Retry(3)
+        @SlowCall(thresholdMillis = 1000)
+        public String load(String name, int sleepMillis) {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("일시적 실패");
+            }
+            sleep(sleepMillis);
+            return name;
+        }
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.retry.RetryableException;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV5Order;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@Slf4j
+@Import({RetryAspect.class, AspectV5Order.TxAspect.class, StacklessFailureTest.FlakyRepository.class})
+@SpringBootTest(properties = "logging.level.hello.aop=WARN")
+class StacklessFailureTest {
+
+    @Autowired
+    FlakyRepository flakyRepository;
+
+    @Autowired
+    OrderService orderService;
+
+    /** 롤백 경로는 감싸지 않고 같은 예외를 그대로 던진다, 스택도 없다 */
+    @Test
+    void rollbackRethrowsSameException() {
+        Throwable thrown = catchThrowable(() -> orderService.orderItem("ex"));
+
+        assertThat(thrown).isExactlyInstanceOf(RetryableException.class).isInstanceOf(IllegalStateException.class);
+        assertThat(thrown.getCause()).isNull();
+        assertThat(thrown.getStackTrace()).isEmpty();
+    }
+
+    /**
+     * ExamRepository 처럼 5번에 1번 실패하고 재시도하면 성공하는 호출
+     * 실패를 스택이 있는 IllegalStateException 으로 던질 때와 RetryableException 으로 던질 때 비교
+     * 실제 서비스처럼 스택 깊이 100 에서 호출한다.
+     * 시간은 로그로만, ./gradlew benchmark 로 실행
+     * 재시도가 실패를 다 덮지 못하면 예외가 나서 여기서 멈춘다.
+     * */
+    @Test
+    @Tag("benchmark")
+    void benchmark() {
+        int calls = 50_000;
+
+        //워밍업
+        atDepth(100, () -> run(calls, false));
+        atDepth(100, () -> run(calls, true));
+
+        long withStack = atDepth(100, () -> run(calls, false));
+        long stackless = atDepth(100, () -> run(calls, true));
+
+        log.warn("[stackless] calls={} failures=1/5 with-stack={}ns/call stackless={}ns/call",
+                calls, withStack / calls, stackless / calls);
+    }
+
+    private long run(int calls, boolean stackless) {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            flakyRepository.save(stackless);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long atDepth(int depth, Supplier<Long> task) {
+        return depth == 0 ? task.get() : atDepth(depth - 1, task);
+    }
+
+    static class FlakyRepository {
+
+        //CGLIB 프록시는 필드를 넘겨주지 않으므로 static
+        private static int seq = 0;
+
+        @Retry(4)
+        public String save(boolean stackless) {
+            seq++;
+            if (seq % 5 == 0) {
+                throw stackless ? new RetryableException("예외 발생") : new IllegalStateException("예외 발생");
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package hello.aop.exam;
+
+import hello.aop.exam.annotation.Retry;
+import hello.aop.exam.annotation.Timeout;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TimeoutAspect;
+import hello.aop.exam.deadline.Deadline;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.order.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import({TimeoutAspect.class, RetryAspect.class, TimeoutTest.EntryService.class, TimeoutTest.FlakyRepository.class})
+@SpringBootTest
+class TimeoutTest {
+
+    @Autowired
+    EntryService entryService;
+
+    @Autowired
+    FlakyRepository flakyRepository;
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    ExamRepository examRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    /** 재시도 100번이어도 진입점 데드라인 100ms 가 지나면 멈춘다 */
+    @Test
+    void retryStopsAtDeadline() {
+        FlakyRepository.attempts.set(0);
+
+        assertThatThrownBy(() -> entryService.save("itemA"))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        log.info("attempts={}", FlakyRepository.attempts.get());
+        assertThat(FlakyRepository.attempts.get()).isBetween(2, 10);
+    }
+
+    /** 데드라인이 지나면 늦은 작업은 DeadlineContext.check 에서 스스로 멈춘다 */
+    @Test
+    void cancelSlowWork() {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> entryService.slow())
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(DeadlineContext.current()).isNull();
+    }
+
+    /** 진입점에서 시간을 다 쓰면 안쪽 @Retry 호출은 첫 시도도 하지 않는다 */
+    @Test
+    void spentBudgetRefusesInnerCall() {
+        FlakyRepository.attempts.set(0);
+
+        assertThatThrownBy(() -> entryService.spendThenSave("itemA"))
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessageContaining("FlakyRepository.save");
+
+        assertThat(FlakyRepository.attempts.get()).isZero();
+    }
+
+    /** 저장소는 저장하기 전에 데드라인을 확인한다 */
+    @Test
+    void spentBudgetRefusesStore() throws InterruptedException {
+        try (DeadlineContext.Scope scope = DeadlineContext.open(Deadline.after(1, TimeUnit.MILLISECONDS))) {
+            Thread.sleep(5);
+
+            assertThatThrownBy(() -> orderRepository.save("itemA"))
+                    .isInstanceOf(DeadlineExceededException.class)
+                    .hasMessageContaining("OrderRepository.save");
+            assertThatThrownBy(() -> examRepository.save("itemA"))
+                    .isInstanceOf(DeadlineExceededException.class)
+                    .hasMessageContaining("ExamRepository.save");
+        }
+    }
+
+    /** 데드라인을 확인하지 않는 작업은 interrupt 받지 않고 끝까지 실행된다, 파일 채널이 닫히지 않도록 */
+    @Test
+    void lateWorkIsNotInterrupted() {
+        assertThat(entryService.late()).isEqualTo("done");
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    /** 실행기로 넘긴 작업에도 데드라인이 이어지고, 이미 늦은 작업은 시작하지 않는다 */
+    @Test
+    void acrossExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<Deadline> inTime;
+            Callable<Deadline> late;
+            try (DeadlineContext.Scope scope = DeadlineContext.open(Deadline.after(50, TimeUnit.MILLISECONDS))) {
+                inTime = DeadlineContext.wrap(DeadlineContext::current);
+                late = DeadlineContext.wrap(DeadlineContext::current);
+            }
+
+            assertThat(executor.submit(inTime).get()).isNotNull();
+
+            Thread.sleep(60);
+            Future<Deadline> lateResult = executor.submit(late);
+            assertThatThrownBy(lateResult::get).hasCauseInstanceOf(DeadlineExceededException.class);
+
+            //작업이 끝나면 실행기 스레드에는 데드라인이 남지 않는다
+            assertThat(executor.submit(DeadlineContext::current).get()).isNull();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void examService() {
+        for (int i = 0; i < 5; i++) {
+            examService.request("data " + i);
+        }
+    }
+
+    static class EntryService {
+
+        private final FlakyRepository flakyRepository;
+
+        EntryService(FlakyRepository flakyRepository) {
+            this.flakyRepository = flakyRepository;
+        }
+
+        @Timeout(100)
+        public String save(String itemId) {
+            return flakyRepository.save(itemId);
+        }
+
+        @Timeout(20)
+        public String spendThenSave(String itemId) throws InterruptedException {
+            Thread.sleep(40);
+            return flakyRepository.save(itemId);
+        }
+
+        @Timeout(50)
+        public void slow() throws InterruptedException {
+            for (int i = 0; i < 500; i++) {
+                DeadlineContext.check("slow");
+                Thread.sleep(10);
+            }
+        }
+
+        @Timeout(20)
+        public String late() {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("중단", e);
+            }
+            return "done";
+        }
+    }
+
+    static class FlakyRepository {
+
+        //프록시로 읽어도 같은 값이도록 static
+        static final AtomicInteger attempts = new AtomicInteger();
+
+        //항상 30ms 뒤에 실패
+        @Retry(100)
+        public String save(String itemId) {
+            attempts.incrementAndGet();
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("저장 실패");
+        }
+    }
+}
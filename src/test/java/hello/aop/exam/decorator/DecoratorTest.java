@@ -0,0 +1,99 @@
+package hello.aop.exam.decorator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import hello.aop.exam.ExamRepository;
+import hello.aop.exam.ExamRepository_Decorator;
+import hello.aop.exam.ExamService;
+import hello.aop.exam.ExamService_Decorator;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TraceAspect;
+import hello.aop.render.ArgumentRenderer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 프록시 대신 생성된 데코레이터로 @Trace, @Retry 적용
+ * TraceAspect, RetryAspect 를 같이 등록해도 데코레이터에는 프록시가 생기지 않아야 한다.
+ * */
+@Slf4j
+@Import({TraceAspect.class, RetryAspect.class})
+@SpringBootTest(properties = "aop.decorator.enabled=true")
+class DecoratorTest {
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    ExamRepository examRepository;
+
+    @Test
+    void registeredInPlace() {
+        assertThat(examService).isInstanceOf(ExamService_Decorator.class);
+        assertThat(examRepository).isInstanceOf(ExamRepository_Decorator.class);
+        assertThat(AopUtils.isAopProxy(examService)).isFalse();
+        assertThat(AopUtils.isAopProxy(examRepository)).isFalse();
+
+        //5번에 1번 실패해도 재시도로 복구
+        for (int i = 0; i < 10; i++) {
+            examService.request("data " + i);
+        }
+    }
+
+    /** 시간은 로그로만, ./gradlew benchmark 로 실행 */
+    @Test
+    @Tag("benchmark")
+    void benchmark() {
+        ArgumentRenderer renderer = new ArgumentRenderer(256, 3, 20, List.of());
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ExamRepository());
+        factory.addAspect(new TraceAspect(renderer));
+        factory.addAspect(new RetryAspect(renderer));
+        ExamRepository proxy = factory.getProxy();
+
+        ExamRepository_Decorator decorator = new ExamRepository_Decorator();
+        decorator.setDecoratorSupport(new DecoratorSupport(renderer));
+
+        //로그 출력 비용은 양쪽이 같으므로 빼고 잰다
+        List<Logger> loggers = List.of(logger(TraceAspect.class), logger(RetryAspect.class), logger(DecoratorSupport.class));
+        loggers.forEach(logger -> logger.setLevel(Level.WARN));
+        try {
+            int iterations = 200_000;
+
+            //워밍업
+            call(proxy, iterations);
+            call(decorator, iterations);
+
+            long proxyNanos = call(proxy, iterations);
+            long decoratorNanos = call(decorator, iterations);
+
+            log.info("[benchmark] proxy       {}ns/call", proxyNanos / iterations);
+            log.info("[benchmark] decorator   {}ns/call", decoratorNanos / iterations);
+        } finally {
+            loggers.forEach(logger -> logger.setLevel(null));
+        }
+    }
+
+    private long call(ExamRepository repository, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertThat(repository.save("itemA")).isEqualTo("ok");
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Logger logger(Class<?> type) {
+        return (Logger) LoggerFactory.getLogger(type);
+    }
+}
@@ -0,0 +1,53 @@
+package hello.aop.exam.journal;
+
+import hello.aop.exam.ExamService;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TraceJournalAspect;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ExamTest 와 같은 호출을 저널에 남기고 다시 읽어보는
+ * */
+@Slf4j
+@Import({TraceJournalAspect.class, RetryAspect.class})
+@SpringBootTest
+class TraceJournalAspectTest {
+
+    static Path directory;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws Exception {
+        directory = Files.createTempDirectory("trace-journal");
+        registry.add("trace.journal.dir", () -> directory.toString());
+    }
+
+    @Autowired
+    ExamService examService;
+
+    @Test
+    void journal() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            examService.request("data " + i);
+        }
+
+        List<TraceRecord> records = new TraceJournalReader(directory).read(record -> true);
+        records.forEach(record -> log.info("{}", record));
+
+        assertThat(records).filteredOn(record -> record.getSignature().contains("ExamService.request"))
+                .hasSize(5);
+        assertThat(records).filteredOn(record -> record.getSignature().contains("ExamRepository.save"))
+                .hasSizeGreaterThanOrEqualTo(5);
+    }
+}
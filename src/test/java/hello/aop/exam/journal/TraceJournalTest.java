@@ -0,0 +1,133 @@
+package hello.aop.exam.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class TraceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndRead() throws Exception {
+        try (TraceJournal journal = new TraceJournal(directory, 1024, 8)) {
+            int save = journal.methodId("String ExamRepository.save(String)");
+            int request = journal.methodId("void ExamService.request(String)");
+
+            journal.append(request, 1L, 100, 400, true);
+            journal.append(save, 1L, 150, 350, false);
+            journal.append(save, 2L, 500, 700, true);
+        }
+
+        List<TraceRecord> records = new TraceJournalReader(directory).read(record -> true);
+        assertThat(records).hasSize(3);
+
+        TraceRecord first = records.get(0);
+        assertThat(first.getSignature()).isEqualTo("void ExamService.request(String)");
+        assertThat(first.getThreadId()).isEqualTo(1L);
+        assertThat(first.getDurationNanos()).isEqualTo(300);
+        assertThat(first.isSuccess()).isTrue();
+        assertThat(records.get(1).isSuccess()).isFalse();
+    }
+
+    //다시 열어도 같은 메서드는 같은 id, 세그먼트 번호는 이어서
+    @Test
+    void reopen() throws Exception {
+        int id;
+        try (TraceJournal journal = new TraceJournal(directory, 1024, 8)) {
+            id = journal.methodId("a");
+            journal.append(id, 1L, 0, 10, true);
+        }
+        try (TraceJournal journal = new TraceJournal(directory, 1024, 8)) {
+            assertThat(journal.methodId("a")).isEqualTo(id);
+            assertThat(journal.methodId("b")).isNotEqualTo(id);
+            journal.append(id, 1L, 0, 10, true);
+        }
+
+        assertThat(TraceJournal.segments(directory)).hasSize(2);
+        assertThat(new TraceJournalReader(directory).read(record -> true)).hasSize(2);
+    }
+
+    //세그먼트가 차면 다음 파일, maxSegments 를 넘으면 오래된 파일 삭제
+    @Test
+    void rolling() throws Exception {
+        //레코드 10개짜리 세그먼트
+        int segmentSize = TraceJournalFormat.HEADER_SIZE + TraceJournalFormat.RECORD_SIZE * 10;
+
+        try (TraceJournal journal = new TraceJournal(directory, segmentSize, 3)) {
+            int id = journal.methodId("a");
+            for (int i = 0; i < 55; i++) {
+                journal.append(id, 1L, i, i + 1, true);
+            }
+        }
+
+        //00003, 00004, 00005 만 남는다
+        assertThat(TraceJournal.segments(directory)).hasSize(3);
+        assertThat(new TraceJournalReader(directory).read(record -> true)).hasSize(25);
+    }
+
+    @Test
+    void concurrentWriters() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+
+        try (TraceJournal journal = new TraceJournal(directory, 64 * 1024, 1000)) {
+            int id = journal.methodId("a");
+
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long start = System.nanoTime();
+                        journal.append(id, Thread.currentThread().getId(), start, System.nanoTime(), true);
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        assertThat(new TraceJournalReader(directory).read(record -> true)).hasSize(threads * perThread);
+    }
+
+    @Test
+    void commandLine() throws Exception {
+        try (TraceJournal journal = new TraceJournal(directory, 1024, 8)) {
+            int save = journal.methodId("String ExamRepository.save(String)");
+            int request = journal.methodId("void ExamService.request(String)");
+            journal.append(request, 1L, 0, 5_000, true);
+            journal.append(save, 1L, 0, 2_000, true);
+            journal.append(save, 1L, 0, 4_000, false);
+        }
+
+        String records = run(directory.toString(), "--method=save", "--outcome=error");
+        log.info("records\n{}", records);
+        assertThat(records.lines()).hasSize(1);
+        assertThat(records).contains("error 4us String ExamRepository.save(String)");
+
+        String aggregate = run(directory.toString(), "--aggregate");
+        log.info("aggregate\n{}", aggregate);
+        assertThat(aggregate.lines()).hasSize(3);
+        assertThat(aggregate.lines().skip(1).findFirst().orElseThrow()).contains("ExamRepository.save");
+    }
+
+    private String run(String... args) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TraceJournalReader.run(args, new PrintStream(out, true, StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package hello.aop.importer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 버퍼를 작게 잡아서 줄이 버퍼 경계에 걸치는 경우를 많이 만든다.
+ * 워커가 묶음마다 조금씩 멈추게 해서 큐가 차고 읽기가 기다리는지 본다.
+ * */
+@Slf4j
+@Import(OrderImporterTest.SlowSaveAspect.class)
+@SpringBootTest(properties = {"order-import.workers=2", "order-import.batch-size=100",
+        "order-import.queue-capacity=2", "order-import.buffer-bytes=256", "order-import.progress-millis=200"})
+class OrderImporterTest {
+
+    @Autowired
+    OrderImporter orderImporter;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void importsEveryLineWithBackpressure() throws Exception {
+        Path file = directory.resolve("orders.txt");
+        int rows = 100_000;
+        int failing = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                //1000 줄마다 실패하는 상품, 가끔 윈도우 줄바꿈과 빈 줄
+                if (i % 1000 == 0) {
+                    writer.write("ex");
+                    failing++;
+                } else {
+                    writer.write("item-" + i);
+                }
+                writer.write(i % 7 == 0 ? "\r\n" : "\n");
+                if (i % 5000 == 0) {
+                    writer.write("\n");
+                }
+            }
+            //마지막 줄은 줄바꿈 없이
+            writer.write("item-last");
+        }
+
+        SlowSaveAspect.batches.set(0);
+        ImportResult result = orderImporter.importFile(file);
+
+        assertThat(result.getRows()).isEqualTo(rows + 1);
+        assertThat(result.getFailedRows()).isEqualTo(failing);
+        assertThat(result.getBytes()).isEqualTo(Files.size(file));
+        assertThat(SlowSaveAspect.batches.get()).isBetween((rows + 1) / 100, (rows + 1) / 100 + 30);
+        assertThat(result.getReaderBlockedMillis()).isGreaterThan(0);
+        log.info("[import] rows={} {} rows/s blocked={}ms", result.getRows(), (long) result.getRowsPerSecond(),
+                result.getReaderBlockedMillis());
+    }
+
+    @Test
+    void lines() {
+        byte[] chunk = "a\r\n\nbb\nccc".getBytes(StandardCharsets.UTF_8);
+        assertThat(OrderImporter.lines(chunk)).isEqualTo(List.of("a", "bb", "ccc"));
+    }
+
+    @Test
+    void lineLongerThanBuffer() throws IOException {
+        Path file = directory.resolve("long.txt");
+        Files.writeString(file, "x".repeat(1_000) + "\n");
+
+        assertThatThrownBy(() -> orderImporter.importFile(file))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Aspect
+    static class SlowSaveAspect {
+
+        static final AtomicInteger batches = new AtomicInteger();
+
+        @Around("execution(* hello.aop.order.OrderRepository.saveAll(..))")
+        public Object slow(ProceedingJoinPoint joinPoint) throws Throwable {
+            batches.incrementAndGet();
+            Thread.sleep(1);
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package hello.aop.jfr;
+
+import hello.aop.exam.ExamService;
+import hello.aop.exam.aop.AdaptiveLimitAspect;
+import hello.aop.exam.aop.RateLimitAspect;
+import hello.aop.exam.aop.RetryAspect;
+import hello.aop.exam.aop.TraceAspect;
+import hello.aop.exam.retry.RetryableException;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV5Order;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@Import({TraceAspect.class, RetryAspect.class, AspectV5Order.LogAspect.class, AspectV5Order.TxAspect.class,
+        AdaptiveLimitAspect.class, RateLimitAspect.class})
+@SpringBootTest
+class JfrEventsTest {
+
+    @Autowired
+    ExamService examService;
+
+    @Autowired
+    OrderService orderService;
+
+    /** 녹화하면서 호출하고, 파일로 떨군 다음 다시 읽어서 이벤트를 확인 */
+    @Test
+    void recordAndParse() throws Exception {
+        Path file = Files.createTempFile("aop", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TracedInvocationEvent.class);
+            recording.enable(RetryAttemptEvent.class);
+            recording.enable(TransactionEvent.class);
+            recording.enable(LimitDecisionEvent.class);
+            recording.start();
+
+            //ExamRepository 는 5번에 1번 실패, 10번이면 재시도가 적어도 한 번
+            for (int i = 0; i < 10; i++) {
+                examService.request("itemA");
+            }
+            orderService.orderItem("itemA");
+            assertThatThrownBy(() -> orderService.orderItem("ex")).isInstanceOf(IllegalStateException.class);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        log.info("events={}", events.stream().collect(Collectors.groupingBy(
+                event -> event.getEventType().getName(), Collectors.counting())));
+
+        assertThat(named(events, "hello.aop.TracedInvocation"))
+                .anyMatch(event -> event.getString("signature").equals("ExamService.request(..)")
+                        && event.getString("arguments").contains("itemA"));
+
+        assertThat(named(events, "hello.aop.RetryAttempt"))
+                .isNotEmpty()
+                .allMatch(event -> event.getString("signature").equals("ExamRepository.save(..)")
+                        && event.getString("exceptionType").equals(RetryableException.class.getName())
+                        && event.getInt("maxAttempts") == 4
+                        && event.getInt("attempt") >= 1);
+
+        List<RecordedEvent> transactions = named(events, "hello.aop.Transaction");
+        assertThat(transactions).anyMatch(event -> event.getBoolean("committed")
+                && event.getString("signature").equals("OrderService.orderItem(..)"));
+        assertThat(transactions).anyMatch(event -> !event.getBoolean("committed")
+                && event.getString("exceptionType").equals(RetryableException.class.getName()));
+
+        List<RecordedEvent> limits = named(events, "hello.aop.LimitDecision");
+        assertThat(limits).anyMatch(event -> event.getString("limiter").equals("adaptive") && event.getBoolean("accepted"));
+        assertThat(limits).anyMatch(event -> event.getString("limiter").equals("rate")
+                && "itemA".equals(event.getString("key")));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
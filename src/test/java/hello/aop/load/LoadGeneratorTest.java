@@ -0,0 +1,111 @@
+package hello.aop.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class LoadGeneratorTest {
+
+    /**
+     * 워커 하나에 한 요청이 300ms 멈추면 뒤에 예정된 요청들이 밀린다.
+     * 실제 호출 시간(service)으로는 한 번만 느리지만, 예정 시각부터 잰 지연에는 밀린 요청들이 모두 들어간다.
+     * */
+    @Test
+    void stallDelaysQueuedRequests() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(200, 1, 1000, 5000, 0, 1, List.of(
+                new LoadTarget("stall", 1, (sequence, fail) -> {
+                    if (sequence == 10) {
+                        Thread.sleep(300);
+                    }
+                })));
+
+        LoadReport report = generator.run();
+        log.info("\n{}", report.toText());
+
+        LoadReport.MethodReport stall = report.getMethods().get(0);
+        assertThat(stall.getCount()).isEqualTo(200);
+        assertThat(report.getDropped()).isZero();
+        assertThat(stall.getP99Micros()).isGreaterThanOrEqualTo(200_000);
+        assertThat(stall.getP90Micros()).isGreaterThanOrEqualTo(20_000);
+        assertThat(stall.getServiceP99Micros()).isLessThan(100_000);
+    }
+
+    /**
+     * 요청 하나에 20ms 걸리는데 5ms 마다 보내면 drain 시간 안에 다 처리하지 못한다.
+     * 버린 요청도 count 와 latency 에 들어가야 밀린 만큼의 꼬리 지연이 결과에 남는다.
+     * */
+    @Test
+    void droppedRequestsAreRecorded() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(200, 1, 200, 50, 0, 1, List.of(
+                new LoadTarget("slow", 1, (sequence, fail) -> Thread.sleep(20))));
+
+        LoadReport report = generator.run();
+        log.info("\n{}", report.toText());
+
+        LoadReport.MethodReport slow = report.getMethods().get(0);
+        assertThat(report.getDropped()).isPositive();
+        assertThat(slow.getDropped()).isEqualTo(report.getDropped());
+        assertThat(slow.getCount()).isEqualTo(40);
+        assertThat(slow.getMaxMicros()).isGreaterThanOrEqualTo(150_000);
+        assertThat(slow.getThroughput()).isLessThan(slow.getCount() / (report.getElapsedMillis() / 1000.0));
+    }
+
+    @Test
+    void mixAndFailureRatio() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(1000, 2, 1000, 5000, 0.2, 1, List.of(
+                new LoadTarget("a", 3, LoadGeneratorTest::failIfAsked),
+                new LoadTarget("b", 1, LoadGeneratorTest::failIfAsked)));
+
+        LoadReport report = generator.run();
+        LoadReport.MethodReport a = report.getMethods().get(0);
+        LoadReport.MethodReport b = report.getMethods().get(1);
+
+        assertThat(a.getCount() + b.getCount()).isEqualTo(1000);
+        assertThat((double) a.getCount() / b.getCount()).isBetween(2.5, 3.5);
+        assertThat((double) (a.getErrors() + b.getErrors()) / 1000).isBetween(0.15, 0.25);
+        assertThat(report.toJson()).contains("\"name\":\"a\"", "\"p99Micros\"", "\"targetRate\":1000.0");
+    }
+
+    private static void failIfAsked(long sequence, boolean fail) {
+        if (fail) {
+            throw new IllegalStateException("fail");
+        }
+    }
+
+    @Test
+    void histogramError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(100_000_000);
+        assertThat(histogram.percentile(50)).isBetween(50_000_000L, (long) (50_000_000 * (1 + 1.0 / 64)));
+        assertThat(histogram.percentile(99)).isBetween(99_000_000L, (long) (99_000_000 * (1 + 1.0 / 64)));
+        assertThat(histogram.percentile(100)).isEqualTo(100_000_000);
+    }
+
+    /**
+     * 실제 서비스에 부하를 주는 진입점, 표와 JSON 을 출력한다
+     * 로그 레벨은 JVM 전체에 남으므로 다른 테스트를 위해 INFO 로 둔다.
+     * */
+    @Test
+    void cli() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        LoadGenerator.run(new String[]{"--rate=100", "--duration-millis=500", "--failure-ratio=0.1",
+                "--aspects=hello.aop.exam.aop.RetryAspect", "--logging.level.hello.aop=INFO"},
+                new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        log.info("\n{}", output);
+        assertThat(output).contains("order", "exam", "member", "p99(us)", "\"methods\":[");
+    }
+}
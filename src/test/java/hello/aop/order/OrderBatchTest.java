@@ -0,0 +1,108 @@
+package hello.aop.order;
+
+import hello.aop.exam.retry.RetryableException;
+import hello.aop.order.aop.AspectV5Order;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Import({AspectV5Order.LogAspect.class, AspectV5Order.TxAspect.class, OrderBatchTest.CountingAspect.class})
+@SpringBootTest
+class OrderBatchTest {
+
+    @Autowired
+    OrderService orderService;
+
+    /** 배치 하나에 서비스, 저장소 어드바이스가 한 번씩, 실패한 건은 결과에 남는다 */
+    @Test
+    void oneAdviceInvocationPerBatch() {
+        List<String> itemIds = items(100);
+        itemIds.set(10, "ex");
+        itemIds.set(50, "ex2");
+        itemIds.set(90, "ex");
+
+        CountingAspect.calls.set(0);
+        BatchResult result = orderService.orderItems(itemIds);
+
+        assertThat(CountingAspect.calls).hasValue(2);
+        assertThat(result.size()).isEqualTo(100);
+        assertThat(result.getSucceeded()).hasSize(98).contains("ex2").doesNotContain("ex");
+        assertThat(result.getFailed()).extracting(BatchResult.Failure::getIndex).containsExactly(10, 90);
+        assertThat(result.getFailed()).extracting(BatchResult.Failure::getException)
+                .allMatch(e -> e instanceof RetryableException);
+        assertThat(result.isAllSucceeded()).isFalse();
+    }
+
+    /**
+     * 건마다 부르면 건마다 로그, 트랜잭션 어드바이스를 지나간다.
+     * 같은 수를 100건씩 묶어서 처리량 비교
+     * 처리량은 로그로만, ./gradlew benchmark 로 실행. 동작은 oneAdviceInvocationPerBatch 에서 확인
+     * */
+    @Test
+    @Tag("benchmark")
+    void itemsPerSecond() {
+        int total = 5_000;
+        List<String> itemIds = items(total);
+
+        //JIT 워밍업
+        perItem(itemIds.subList(0, 1_000));
+        batched(itemIds.subList(0, 1_000));
+
+        long perItemNanos = perItem(itemIds);
+        long batchedNanos = batched(itemIds);
+
+        double perItemRate = total / (perItemNanos / 1e9);
+        double batchedRate = total / (batchedNanos / 1e9);
+        log.info("[batch] per-item={} items/s batched(100)={} items/s x{}",
+                (long) perItemRate, (long) batchedRate, String.format("%.1f", batchedRate / perItemRate));
+    }
+
+    private long perItem(List<String> itemIds) {
+        long start = System.nanoTime();
+        for (String itemId : itemIds) {
+            orderService.orderItem(itemId);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long batched(List<String> itemIds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < itemIds.size(); i += 100) {
+            orderService.orderItems(itemIds.subList(i, Math.min(itemIds.size(), i + 100)));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<String> items(int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add("item-" + i);
+        }
+        return result;
+    }
+
+    @Aspect
+    static class CountingAspect {
+
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @Around("hello.aop.order.aop.Pointcuts.allOrder()")
+        public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+            calls.incrementAndGet();
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package hello.aop.pipeline;
+
+import hello.aop.exam.deadline.Deadline;
+import hello.aop.exam.deadline.DeadlineContext;
+import hello.aop.exam.deadline.DeadlineExceededException;
+import hello.aop.exam.retry.RetryableException;
+import hello.aop.order.OrderService;
+import hello.aop.order.aop.AspectV5Order;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 저장 묶음마다 2ms 멈추게 해서 persist 단계를 병목으로 만든다.
+ * */
+@Slf4j
+@Import({AspectV5Order.TxAspect.class, OrderPipelineTest.SlowBatchAspect.class})
+@SpringBootTest(properties = {"order.pipeline.enabled=true", "order.pipeline.batch-size=32",
+        "order.pipeline.offer-millis=5000", "logging.level.hello.aop.order=WARN"})
+class OrderPipelineTest {
+
+    @Autowired
+    OrderPipeline orderPipeline;
+
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void stagesCompleteEachOrder() {
+        int total = 2_000;
+        List<StageStats> before = orderPipeline.stats();
+        int batchesBefore = SlowBatchAspect.batches.get();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            //빈 id 8건, 저장 실패 16건
+            String itemId = i % 250 == 0 ? "" : i % 100 == 0 ? "ex" : "item-" + i;
+            futures.add(orderPipeline.submit(itemId));
+        }
+
+        int succeeded = 0;
+        int invalid = 0;
+        int failed = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+                succeeded++;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IllegalArgumentException) {
+                    invalid++;
+                } else if (e.getCause() instanceof RetryableException) {
+                    failed++;
+                }
+            }
+        }
+        assertThat(invalid).isEqualTo(8);
+        assertThat(failed).isEqualTo(16);
+        assertThat(succeeded).isEqualTo(total - 24);
+
+        List<StageStats> stats = orderPipeline.stats();
+        stats.forEach(stage -> log.info("[pipeline] {} processed={} batches={} avg={} wait p50={}us p99={}us "
+                        + "service p50={}us p99={}us blocked={}ms", stage.getName(), stage.getProcessed(),
+                stage.getBatches(), String.format("%.1f", stage.getAverageBatchSize()), stage.getWaitP50Micros(),
+                stage.getWaitP99Micros(), stage.getServiceP50Micros(), stage.getServiceP99Micros(),
+                stage.getBlockedMillis()));
+
+        StageStats validate = stats.get(0);
+        StageStats persist = stats.get(1);
+        StageStats notify = stats.get(2);
+        assertThat(validate.getProcessed() - before.get(0).getProcessed()).isEqualTo(total);
+        assertThat(persist.getProcessed() - before.get(1).getProcessed()).isEqualTo(total - 8);
+        assertThat(notify.getProcessed() - before.get(2).getProcessed()).isEqualTo(total - 24);
+
+        //밀린 만큼 묶어서 저장하고, 트랜잭션은 묶음마다 한 번
+        long persistBatches = persist.getBatches() - before.get(1).getBatches();
+        assertThat((double) (total - 8) / persistBatches).isGreaterThan(2);
+        assertThat(SlowBatchAspect.batches.get() - batchesBefore).isEqualTo((int) persistBatches);
+        //병목은 persist, validate 는 persist 큐가 차서 기다린다
+        assertThat(persist.getServiceP50Micros()).isGreaterThan(validate.getServiceP50Micros());
+        assertThat(validate.getBlockedMillis()).isGreaterThan(persist.getBlockedMillis());
+    }
+
+    @Test
+    void expiredDeadline() throws InterruptedException {
+        CompletableFuture<Void> future;
+        try (DeadlineContext.Scope ignored = DeadlineContext.open(Deadline.after(1, TimeUnit.NANOSECONDS))) {
+            Thread.sleep(1);
+            future = orderPipeline.submit("itemA");
+        }
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(DeadlineExceededException.class);
+    }
+
+    /** 종료하면 처리 중이던 것, 큐에 남은 것, 종료 뒤에 들어온 것까지 모두 끝난다 */
+    @Test
+    void shutdownCompletesEveryFuture() throws Exception {
+        OrderPipeline pipeline = new OrderPipeline(orderService, 64, 8, 5000, 1, 1, 1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(pipeline.submit("item-" + i));
+        }
+        pipeline.destroy();
+        futures.add(pipeline.submit("late"));
+
+        int succeeded = 0;
+        int cancelled = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (CancellationException e) {
+                //CancellationException 으로 끝난 future 는 감싸지 않고 그대로 던진다
+                cancelled++;
+            }
+        }
+        log.info("succeeded={} cancelled={}", succeeded, cancelled);
+        assertThat(succeeded + cancelled).isEqualTo(futures.size());
+        assertThat(futures.get(futures.size() - 1)).isCompletedExceptionally();
+    }
+
+    /** 묶음 처리가 Error 로 끝나도 이미 넘긴 건은 그대로, 스레드도 계속 처리한다 */
+    @Test
+    void failureKeepsForwardedTasks() {
+        Stage next = new Stage("next", 16, 1, 4, batch -> batch.forEach(task -> task.future.complete(null)));
+        Stage first = new Stage("first", 16, 1, 4, batch -> {
+            for (OrderTask task : batch) {
+                if (task.itemId.equals("bad")) {
+                    throw new AssertionError("boom");
+                }
+                next.put(task);
+            }
+        });
+        try {
+            OrderTask ok = new OrderTask("ok", null);
+            OrderTask bad = new OrderTask("bad", null);
+            OrderTask after = new OrderTask("after", null);
+            assertThat(offer(first, ok)).isTrue();
+            assertThat(offer(first, bad)).isTrue();
+
+            assertThatThrownBy(bad.future::join).hasCauseInstanceOf(AssertionError.class);
+            ok.future.join();
+
+            assertThat(offer(first, after)).isTrue();
+            after.future.join();
+        } finally {
+            first.shutdown();
+            next.shutdown();
+        }
+    }
+
+    private static boolean offer(Stage stage, OrderTask task) {
+        try {
+            return stage.offer(task, 1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Aspect
+    static class SlowBatchAspect {
+
+        static final AtomicInteger batches = new AtomicInteger();
+
+        @Around("execution(* hello.aop.order.OrderService.orderItems(..))")
+        public Object slow(ProceedingJoinPoint joinPoint) throws Throwable {
+            batches.incrementAndGet();
+            Thread.sleep(2);
+            return joinPoint.proceed();
+        }
+    }
+}
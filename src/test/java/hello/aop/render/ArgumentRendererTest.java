@@ -0,0 +1,134 @@
+package hello.aop.render;
+
+import ch.qos.logback.classic.Level;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class ArgumentRendererTest {
+
+    ArgumentRenderer renderer = new ArgumentRenderer(64, 2, 3, List.of());
+
+    @Test
+    void simple() {
+        assertThat(renderer.render(new Object[]{"data 0", 1, null})).isEqualTo("[data 0, 1, null]");
+        assertThat(renderer.render("ok")).isEqualTo("ok");
+        assertThat(renderer.render(null)).isEqualTo("null");
+    }
+
+    //원소 수 제한
+    @Test
+    void maxElements() {
+        assertThat(renderer.render(List.of(1, 2, 3, 4, 5))).isEqualTo("[1, 2, 3, ...(2 more)]");
+        assertThat(renderer.render(new int[]{1, 2, 3, 4})).isEqualTo("[1, 2, 3, ...(1 more)]");
+    }
+
+    //깊이 제한, args 배열이 한 단계
+    @Test
+    void maxDepth() {
+        Object[] args = {List.of(List.of(1, 2), Map.of("a", 1))};
+        assertThat(renderer.render(args)).isEqualTo("[[[2 elements], {1 entries}]]");
+    }
+
+    //길이 제한
+    @Test
+    void maxLength() {
+        String rendered = renderer.render("x".repeat(1000));
+        assertThat(rendered).hasSize(64 + ArgumentRenderer.TRUNCATED.length());
+        assertThat(rendered).endsWith(ArgumentRenderer.TRUNCATED);
+    }
+
+    //타입별 포매터, 하위 타입에도 적용
+    @Test
+    void formatter() {
+        ArgumentFormatter<List> sizeOnly = new ArgumentFormatter<>() {
+            @Override
+            public Class<List> type() {
+                return List.class;
+            }
+
+            @Override
+            public String format(List value) {
+                return "List(size=" + value.size() + ")";
+            }
+        };
+        ArgumentRenderer renderer = new ArgumentRenderer(64, 2, 3, List.of(sizeOnly));
+
+        assertThat(renderer.render(new Object[]{new ArrayList<>(List.of(1, 2, 3, 4))})).isEqualTo("[List(size=4)]");
+    }
+
+    //로그 레벨이 꺼져 있으면 만들지 않는다
+    @Test
+    void lazy() {
+        Logger logger = LoggerFactory.getLogger("hello.aop.render.lazy");
+        ((ch.qos.logback.classic.Logger) logger).setLevel(Level.INFO);
+
+        AtomicInteger rendered = new AtomicInteger();
+        Object value = new Object() {
+            @Override
+            public String toString() {
+                rendered.incrementAndGet();
+                return "value";
+            }
+        };
+
+        logger.debug("[trace] args={}", renderer.lazy(value));
+        assertThat(rendered).hasValue(0);
+
+        logger.info("[trace] args={}", renderer.lazy(value));
+        assertThat(rendered).hasValue(1);
+    }
+
+    /**
+     * 큰 컬렉션 인수로 기존 방식(배열 전체 toString)과 비교
+     * 10만개 리스트를 인수로 받는 호출
+     * 시간은 로그로만, ./gradlew benchmark 로 실행
+     * */
+    @Test
+    @Tag("benchmark")
+    void benchmark() {
+        List<Integer> large = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        Object[] args = {"itemA", large};
+        ArgumentRenderer renderer = new ArgumentRenderer(256, 3, 20, List.of());
+
+        int iterations = 200;
+        long fullLength = 0;
+        long renderedLength = 0;
+
+        //워밍업
+        for (int i = 0; i < iterations; i++) {
+            fullLength += Arrays.toString(args).length();
+            renderedLength += renderer.render(args).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            fullLength += Arrays.toString(args).length();
+        }
+        long fullNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            renderedLength += renderer.render(args).length();
+        }
+        long renderedNanos = System.nanoTime() - start;
+
+        log.info("[benchmark] toString    {}us/call, {} chars", fullNanos / iterations / 1_000, fullLength / iterations / 2);
+        log.info("[benchmark] renderer    {}us/call, {} chars", renderedNanos / iterations / 1_000, renderedLength / iterations / 2);
+
+        assertThat(renderedLength).isLessThan(fullLength);
+    }
+}